@@ -0,0 +1,27 @@
+// src/main/java/com/guvi/busapp/config/JpaBatchingConfig.java
+package com.guvi.busapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JDBC batching for inserts and updates. Works together with the pooled ids on Booking, Passenger,
+ * ScheduledTrip and User (see PooledIds): a booking with six passengers is sent as one booking insert
+ * plus one passenger batch instead of seven round trips. Explicit spring.jpa.properties.* settings win.
+ */
+@Configuration
+public class JpaBatchingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer(@Value("${busapp.jpa.batch-size:50}") int batchSize) {
+        return properties -> {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+            // Group statements by entity so interleaved booking/passenger inserts still form batches
+            properties.putIfAbsent("hibernate.order_inserts", "true");
+            properties.putIfAbsent("hibernate.order_updates", "true");
+            properties.putIfAbsent("hibernate.jdbc.batch_versioned_data", "true");
+        };
+    }
+}
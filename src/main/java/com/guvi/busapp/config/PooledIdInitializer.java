@@ -0,0 +1,75 @@
+// src/main/java/com/guvi/busapp/config/PooledIdInitializer.java
+package com.guvi.busapp.config;
+
+import com.guvi.busapp.model.PooledIds;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves each id_sequences row past the ids already in its table, so the first pooled block after
+ * switching from IDENTITY (or after rows were inserted by hand) can't collide with existing rows.
+ * Runs once at startup, after the EntityManagerFactory has created the schema and before the web
+ * server accepts requests. A sequence that can't be aligned fails startup.
+ */
+@Component
+public class PooledIdInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledIdInitializer.class);
+
+    // Segment (pkColumnValue) -> table it issues ids for
+    private static final Map<String, String> SEGMENTS = new LinkedHashMap<>();
+    static {
+        SEGMENTS.put("bookings", "bookings");
+        SEGMENTS.put("passengers", "passengers");
+        SEGMENTS.put("scheduled_trips", "scheduled_trips");
+        SEGMENTS.put("users", "users");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PooledIdInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        // entityManagerFactory is only a dependency: the schema must exist before we read it
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        SEGMENTS.forEach((segment, table) -> {
+            try {
+                align(segment, table);
+            } catch (RuntimeException e) {
+                // Starting anyway would hand out ids that may already be taken, so refuse to start
+                throw new IllegalStateException("Could not align id sequence '" + segment + "' with table " + table
+                        + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private void align(String segment, String table) {
+        long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        // The pooled optimizer hands out (next_val - ALLOCATION_SIZE, next_val], so keep a full block clear
+        long floor = maxId + PooledIds.ALLOCATION_SIZE + 1;
+        List<Long> current = jdbcTemplate.queryForList(
+                "SELECT " + PooledIds.VALUE_COLUMN + " FROM " + PooledIds.TABLE + " WHERE " + PooledIds.NAME_COLUMN + " = ?",
+                Long.class, segment);
+        if (current.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO " + PooledIds.TABLE + " (" + PooledIds.NAME_COLUMN + ", " + PooledIds.VALUE_COLUMN + ") VALUES (?, ?)",
+                    segment, floor);
+            logger.info("Id sequence '{}' initialized at {} (max existing id {}).", segment, floor, maxId);
+        } else if (current.get(0) < floor) {
+            jdbcTemplate.update("UPDATE " + PooledIds.TABLE + " SET " + PooledIds.VALUE_COLUMN + " = ? WHERE "
+                    + PooledIds.NAME_COLUMN + " = ? AND " + PooledIds.VALUE_COLUMN + " < ?", floor, segment, floor);
+            logger.info("Id sequence '{}' moved from {} to {} (max existing id {}).", segment, current.get(0), floor, maxId);
+        }
+    }
+}
@@ -84,13 +84,15 @@ public class SecurityConfig {
                         // --- Allow specific API endpoints ---
                         .requestMatchers("/api/auth/login", "/api/auth/register").permitAll() // Auth API (POST)
                         .requestMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**", "/api-docs/**").permitAll() // Swagger
-                        .requestMatchers(HttpMethod.GET, "/api/trips/search").permitAll() // Public Search API
+                        .requestMatchers(HttpMethod.GET, "/api/trips/search", "/api/trips/availability", "/api/trips/calendar").permitAll() // Public Search API
+                        .requestMatchers(HttpMethod.GET, "/api/locations/suggest").permitAll() // Public Autocomplete API
                         .requestMatchers(HttpMethod.POST, "/api/stripe/webhook").permitAll() // Stripe Webhook
 
                         // --- Protected API Routes (Require Roles/Authentication) ---
                         // Specific API endpoints requiring USER role
                         .requestMatchers(
-                                HttpMethod.POST, "/api/payment/create-intent", "/api/booking/lock-seats", "/api/booking", "/api/user/change-password"
+                                HttpMethod.POST, "/api/payment/create-intent", "/api/booking/lock-seats", "/api/booking", "/api/booking/checkout", "/api/booking/group", "/api/user/change-password",
+                                "/api/user/bookings/*/cancel"
                         ).hasRole("USER")
                         .requestMatchers(
                                 HttpMethod.GET, "/api/user/bookings", "/api/user/profile"
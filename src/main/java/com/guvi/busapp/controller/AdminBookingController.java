@@ -1,18 +1,29 @@
 package com.guvi.busapp.controller;
 
-import com.guvi.busapp.dto.BookingResponseDto;
+import com.guvi.busapp.dto.BookingPageDto;
+import com.guvi.busapp.dto.BookingSearchCriteria;
+import com.guvi.busapp.model.Booking;
+import com.guvi.busapp.service.BookingExportService;
 import com.guvi.busapp.service.BookingService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/admin/bookings") // Base path for admin booking operations
@@ -24,16 +35,47 @@ public class AdminBookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private BookingExportService bookingExportService;
+
+    // Newest first, keyset-paginated: pass nextCursor back as "cursor" for the next page
+    // Optional filters (AND-ed): bookingId, reference, email, tripId, routeId, status, from/to (booking date, inclusive)
     @GetMapping
-    public ResponseEntity<?> getAllBookings() {
-        logger.info("Admin request received to fetch all bookings.");
+    public ResponseEntity<?> getAllBookings(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "" + BookingService.DEFAULT_PAGE_SIZE) int size,
+                                            @RequestParam(required = false) Long bookingId,
+                                            @RequestParam(required = false) String reference,
+                                            @RequestParam(required = false) String email,
+                                            @RequestParam(required = false) Long tripId,
+                                            @RequestParam(required = false) Long routeId,
+                                            @RequestParam(required = false) String status,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        logger.info("Admin request received to fetch bookings (size={}).", size);
         try {
-            List<BookingResponseDto> bookings = bookingService.getAllBookings();
-            logger.info("Returning {} total bookings.", bookings.size());
-            if (bookings.isEmpty()) {
-                return ResponseEntity.noContent().build(); // Return 204 if no bookings exist
+            BookingSearchCriteria criteria = new BookingSearchCriteria();
+            criteria.setBookingId(bookingId);
+            criteria.setReference(reference);
+            criteria.setUserEmail(email);
+            criteria.setTripId(tripId);
+            criteria.setRouteId(routeId);
+            criteria.setStatus(status != null && !status.isBlank() ? Booking.BookingStatus.valueOf(status.trim().toUpperCase(Locale.ROOT)) : null);
+            criteria.setFromDate(from);
+            criteria.setToDate(to);
+            criteria.setCursor(cursor);
+            criteria.setSize(size);
+
+            BookingPageDto page = criteria.hasFilters()
+                    ? bookingService.searchBookings(criteria)
+                    : bookingService.getAllBookings(cursor, size);
+            logger.info("Returning {} bookings (hasMore={}).", page.getBookings().size(), page.isHasMore());
+            if (page.getBookings().isEmpty() && (cursor == null || cursor.isBlank())) {
+                return ResponseEntity.noContent().build(); // Return 204 if no bookings match
             }
-            return ResponseEntity.ok(bookings);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid admin bookings request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             logger.error("Unexpected error fetching all bookings for admin: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -41,4 +83,48 @@ public class AdminBookingController {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Streams bookings as CSV or NDJSON straight from a database cursor, so memory use is flat however
+     * many rows match. Dates are booking dates (inclusive) and default to the current month.
+     * With gzip=true the body is a .gz file rather than a Content-Encoding, so it downloads compressed.
+     */
+    @GetMapping("/export")
+    public void exportBookings(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                               @RequestParam(required = false) String status,
+                               @RequestParam(defaultValue = "csv") String format,
+                               @RequestParam(defaultValue = "false") boolean gzip,
+                               HttpServletResponse response) throws IOException {
+        // Validate everything before the first byte is written; IllegalArgumentException maps to 400
+        LocalDate start = from != null ? from : LocalDate.now().withDayOfMonth(1);
+        LocalDate end = to != null ? to : LocalDate.now();
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Export start date must not be after its end date.");
+        }
+        Booking.BookingStatus statusFilter = status != null && !status.isBlank()
+                ? Booking.BookingStatus.valueOf(status.trim().toUpperCase(Locale.ROOT)) : null;
+        BookingExportService.Format exportFormat = BookingExportService.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        logger.info("Admin export requested: {} to {}, status={}, format={}, gzip={}", start, end, statusFilter, exportFormat, gzip);
+
+        String fileName = "bookings-" + start + "-to-" + end + (exportFormat == BookingExportService.Format.NDJSON ? ".ndjson" : ".csv");
+        if (gzip) {
+            fileName += ".gz";
+            response.setContentType("application/gzip");
+        } else {
+            response.setContentType(exportFormat == BookingExportService.Format.NDJSON ? "application/x-ndjson" : "text/csv");
+            response.setCharacterEncoding("UTF-8");
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192)) {
+                bookingExportService.exportBookings(start, end, statusFilter, exportFormat, gzipOut);
+            }
+        } else {
+            bookingExportService.exportBookings(start, end, statusFilter, exportFormat, out);
+        }
+        out.flush();
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.guvi.busapp.controller;
+
+import com.guvi.busapp.dto.WebhookInboxEventDto;
+import com.guvi.busapp.service.WebhookInboxProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/webhooks") // Dead-lettered payment webhooks
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminWebhookController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminWebhookController.class);
+
+    @Autowired
+    private WebhookInboxProcessor webhookInboxProcessor;
+
+    // Newest first
+    @GetMapping("/dead")
+    public ResponseEntity<List<WebhookInboxEventDto>> getDeadLetters(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(webhookInboxProcessor.getDeadLetters(limit));
+    }
+
+    // Puts a dead-lettered event back in the queue; the processor picks it up on its next poll
+    @PostMapping("/{id}/retry")
+    public ResponseEntity<String> retry(@PathVariable Long id) {
+        logger.info("Admin request to retry webhook inbox event #{}.", id);
+        if (!webhookInboxProcessor.requeue(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No dead-lettered webhook event with ID " + id + ".");
+        }
+        return ResponseEntity.accepted().body("Webhook event " + id + " queued for retry.");
+    }
+}
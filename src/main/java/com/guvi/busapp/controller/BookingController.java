@@ -3,13 +3,20 @@ package com.guvi.busapp.controller;
 
 import com.guvi.busapp.dto.BookingRequestDto;
 import com.guvi.busapp.dto.BookingResponseDto;
+import com.guvi.busapp.dto.CheckoutResponseDto;
+import com.guvi.busapp.dto.GroupBookingRequestDto;
+import com.guvi.busapp.dto.GroupBookingResultDto;
 import com.guvi.busapp.dto.SeatLockRequestDto;
 import com.guvi.busapp.exception.ResourceNotFoundException;
 import com.guvi.busapp.exception.SeatUnavailableException;
 import com.guvi.busapp.model.User;
 import com.guvi.busapp.repository.UserRepository;
 import com.guvi.busapp.service.BookingService;
+import com.guvi.busapp.service.GroupBookingService;
+import com.guvi.busapp.service.PaymentGateway;
+import com.guvi.busapp.service.PaymentService;
 import com.guvi.busapp.service.ScheduledTripService;
+import com.guvi.busapp.service.TripWriteQueue;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +28,9 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/booking")
 public class BookingController {
@@ -33,6 +43,12 @@ public class BookingController {
     private BookingService bookingService;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private TripWriteQueue tripWriteQueue; // Runs trip mutations inline unless the single-writer mode is enabled
+    @Autowired
+    private GroupBookingService groupBookingService;
 
     // POST: Attempt to lock seats
     @PostMapping("/lock-seats")
@@ -46,7 +62,8 @@ public class BookingController {
         Long userId = currentUser.getId();
         logger.info("Received seat lock request from user ID {} for trip ID {} seats {}", userId, lockRequest.getTripId(), lockRequest.getSeatNumbers());
         try {
-            scheduledTripService.lockSeats(lockRequest.getTripId(), lockRequest.getSeatNumbers(), userId);
+            tripWriteQueue.execute(lockRequest.getTripId(),
+                    () -> scheduledTripService.lockSeats(lockRequest.getTripId(), lockRequest.getSeatNumbers(), userId));
             logger.info("Seats locked successfully for user ID {} on trip ID {}", userId, lockRequest.getTripId());
             return ResponseEntity.ok().body("Seats locked successfully.");
         } catch (SeatUnavailableException e) {
@@ -55,6 +72,9 @@ public class BookingController {
         } catch (ResourceNotFoundException e) {
             logger.warn("Seat locking failed for user ID {} on trip ID {}: {}", userId, lockRequest.getTripId(), e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Seat locking rejected for user ID {} on trip ID {}: {}", userId, lockRequest.getTripId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (Exception e) {
             logger.error("Unexpected error during seat locking for user ID {} on trip ID {}: {}", userId, lockRequest.getTripId(), e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An internal error occurred while locking seats.");
@@ -77,7 +97,8 @@ public class BookingController {
                 userEmail, bookingRequest.getTripId(), bookingRequest.getSelectedSeats());
 
         try {
-            BookingResponseDto createdBooking = bookingService.createBooking(bookingRequest, userEmail);
+            BookingResponseDto createdBooking = tripWriteQueue.execute(bookingRequest.getTripId(),
+                    () -> bookingService.createBooking(bookingRequest, userEmail));
             logger.info("Booking created successfully with ID: {}", createdBooking.getBookingId());
             return ResponseEntity.status(HttpStatus.CREATED).body(createdBooking); // 201 Created
         } catch (SeatUnavailableException e) {
@@ -89,9 +110,93 @@ public class BookingController {
         } catch (IllegalArgumentException e) {
             logger.warn("Booking failed for user {}: {}", userEmail, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage()); // 400
+        } catch (RejectedExecutionException e) {
+            logger.warn("Booking rejected for user {}: {}", userEmail, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage()); // 503
         } catch (Exception e) {
             logger.error("Unexpected error during booking creation for user {}: {}", userEmail, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An internal error occurred during booking."); // 500
         }
     }
-}
\ No newline at end of file
+
+    // POST: Lock seats and create the PENDING booking in one call (one trip row lock instead of two)
+    // With withPaymentIntent=true the Stripe PaymentIntent is created right after the booking commits
+    @PostMapping("/checkout")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> checkout(
+            @Valid @RequestBody BookingRequestDto bookingRequest,
+            @RequestParam(defaultValue = "false") boolean withPaymentIntent,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User authentication required.");
+        }
+        String userEmail = userDetails.getUsername();
+        logger.info("Received checkout request from user {} for trip ID {} seats {}",
+                userEmail, bookingRequest.getTripId(), bookingRequest.getSelectedSeats());
+
+        BookingResponseDto createdBooking;
+        try {
+            createdBooking = tripWriteQueue.execute(bookingRequest.getTripId(),
+                    () -> bookingService.checkout(bookingRequest, userEmail));
+            logger.info("Checkout created booking ID: {}", createdBooking.getBookingId());
+        } catch (SeatUnavailableException e) {
+            logger.warn("Checkout failed for user {}: {}", userEmail, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage()); // 409
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Checkout failed for user {}: {}", userEmail, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404
+        } catch (IllegalArgumentException e) {
+            logger.warn("Checkout failed for user {}: {}", userEmail, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage()); // 400
+        } catch (RejectedExecutionException e) {
+            logger.warn("Checkout rejected for user {}: {}", userEmail, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage()); // 503
+        } catch (Exception e) {
+            logger.error("Unexpected error during checkout for user {}: {}", userEmail, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An internal error occurred during checkout."); // 500
+        }
+
+        // The booking is committed and its row lock released; the Stripe round trip happens outside it.
+        // A failure here is not a checkout failure: the payment page falls back to POST /api/payment/create-intent.
+        String clientSecret = null;
+        if (withPaymentIntent) {
+            try {
+                long amountInPaise = createdBooking.getTotalFare().multiply(new BigDecimal("100")).longValueExact();
+                PaymentGateway.CreatedIntent paymentIntent = paymentService.createPaymentIntent(createdBooking.getBookingId(), amountInPaise, "inr", userEmail);
+                clientSecret = paymentIntent.clientSecret();
+            } catch (Exception e) {
+                logger.warn("PaymentIntent creation after checkout failed for booking ID {}: {}", createdBooking.getBookingId(), e.getMessage());
+            }
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(new CheckoutResponseDto(createdBooking, clientSecret)); // 201 Created
+    }
+
+    // POST: Bulk checkout for tour operators: many bookings across trips in one call, with a per-booking report.
+    // Entries that can't be booked are reported and skipped; the rest are created as PENDING bookings.
+    @PostMapping("/group")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> groupCheckout(
+            @Valid @RequestBody GroupBookingRequestDto groupRequest,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User authentication required.");
+        }
+        String userEmail = userDetails.getUsername();
+        logger.info("Received group checkout request from user {} with {} bookings", userEmail, groupRequest.getBookings().size());
+
+        try {
+            GroupBookingResultDto result = groupBookingService.checkoutGroup(groupRequest, userEmail);
+            // 201 when everything was booked, 200 with the report otherwise (including when nothing was)
+            HttpStatus status = result.getFailed() == 0 ? HttpStatus.CREATED : HttpStatus.OK;
+            return ResponseEntity.status(status).body(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Group checkout refused for user {}: {}", userEmail, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage()); // 400
+        } catch (Exception e) {
+            logger.error("Unexpected error during group checkout for user {}: {}", userEmail, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An internal error occurred during group checkout."); // 500
+        }
+    }
+}
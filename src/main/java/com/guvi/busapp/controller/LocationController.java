@@ -0,0 +1,41 @@
+// src/main/java/com/guvi/busapp/controller/LocationController.java
+package com.guvi.busapp.controller;
+
+import com.guvi.busapp.service.LocationSuggestService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/locations") // Public lookup APIs for the search form
+public class LocationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationController.class);
+
+    private static final int MAX_SUGGESTIONS = 20;
+
+    private final LocationSuggestService locationSuggestService;
+
+    @Autowired
+    public LocationController(LocationSuggestService locationSuggestService) {
+        this.locationSuggestService = locationSuggestService;
+    }
+
+    // GET: Origin/destination autocomplete (Publicly accessible)
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggestLocations(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        List<String> suggestions = locationSuggestService.suggest(q, boundedLimit);
+        logger.debug("Location suggestions for '{}': {}", q, suggestions);
+        return ResponseEntity.ok(suggestions);
+    }
+}
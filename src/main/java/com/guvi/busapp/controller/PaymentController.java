@@ -7,8 +7,8 @@ import com.guvi.busapp.exception.ResourceNotFoundException;
 import com.guvi.busapp.model.Booking;
 import com.guvi.busapp.repository.BookingRepository; // Need BookingRepository
 import com.guvi.busapp.repository.UserRepository;
+import com.guvi.busapp.service.PaymentGateway;
 import com.guvi.busapp.service.PaymentService;
-import com.stripe.model.PaymentIntent;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +23,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/payment") // Base path for payment related APIs
@@ -78,7 +79,7 @@ public class PaymentController {
             long amountInPaise = booking.getTotalFare().multiply(new BigDecimal("100")).longValueExact();
 
             // 5. Call PaymentService to create Stripe Payment Intent
-            PaymentIntent paymentIntent = paymentService.createPaymentIntent(
+            PaymentGateway.CreatedIntent paymentIntent = paymentService.createPaymentIntent(
                     booking.getId(),
                     amountInPaise,
                     currency,
@@ -86,10 +87,10 @@ public class PaymentController {
             );
 
             // 6. Return the client secret to the frontend
-            PaymentIntentResponseDto responseDto = new PaymentIntentResponseDto(paymentIntent.getClientSecret());
+            PaymentIntentResponseDto responseDto = new PaymentIntentResponseDto(paymentIntent.clientSecret());
             // Optionally add publishable key: responseDto.setPublishableKey(stripePublishableKey);
 
-            logger.info("Successfully created Payment Intent {} for booking ID {}", paymentIntent.getId(), booking.getId());
+            logger.info("Successfully created Payment Intent {} for booking ID {}", paymentIntent.id(), booking.getId());
             return ResponseEntity.ok(responseDto);
 
         } catch (ResourceNotFoundException e) {
@@ -98,6 +99,12 @@ public class PaymentController {
         } catch (AccessDeniedException e) {
             logger.error("Payment intent creation failed: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (IllegalStateException e) { // Cancelled or expired since the status check above
+            logger.warn("Payment intent creation refused for booking ID {}: {}", paymentRequest.getBookingId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RejectedExecutionException e) { // Gateway circuit open, pool full or call timed out
+            logger.warn("Payment intent creation rejected for booking ID {}: {}", paymentRequest.getBookingId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (Exception e) { // Catch StripeException or other errors
             logger.error("Error creating Stripe Payment Intent for booking ID {}: {}", paymentRequest.getBookingId(), e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to create payment intent.");
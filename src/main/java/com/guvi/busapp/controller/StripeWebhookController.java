@@ -1,12 +1,9 @@
 // src/main/java/com/guvi/busapp/controller/StripeWebhookController.java
 package com.guvi.busapp.controller;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
 
-import com.guvi.busapp.service.PaymentService;
+import com.guvi.busapp.service.WebhookInbox;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.model.Event;
 import com.stripe.net.Webhook;
@@ -14,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment; // Keep Environment for loading secret
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -25,15 +23,12 @@ public class StripeWebhookController {
     private static final Logger logger = LoggerFactory.getLogger(StripeWebhookController.class);
 
     @Autowired
-    private PaymentService paymentService;
+    private WebhookInbox webhookInbox;
 
     // Use Environment to load secret as @Value wasn't working reliably before
     @Autowired
     private Environment env;
 
-    // Gson instance for manual parsing
-    private static final Gson gson = new Gson();
-
     @PostMapping("/webhook")
     public ResponseEntity<String> handleStripeWebhook(
             @RequestBody String payload, // Raw request body
@@ -69,72 +64,35 @@ public class StripeWebhookController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error processing webhook");
         }
 
-        // Step 2: Manually Parse Necessary Data (since deserializer failed)
-        String eventType = event.getType();
-        String paymentIntentId = null;
-        Long bookingId = null;
-        Long amount = null;
-        String currency = null;
-
+        // Step 2: Store the raw event and acknowledge. Booking/seat updates run later in
+        // WebhookInboxProcessor, so a slow confirmation never makes Stripe time out and retry.
         try {
-            // Parse the raw payload string into a JsonObject
-            JsonObject jsonObject = JsonParser.parseString(payload).getAsJsonObject();
-            JsonObject dataObject = jsonObject.getAsJsonObject("data").getAsJsonObject("object");
-
-            // Extract required fields
-            if (dataObject.has("id")) {
-                paymentIntentId = dataObject.get("id").getAsString();
-            }
-            if (dataObject.has("metadata")) {
-                JsonObject metadata = dataObject.getAsJsonObject("metadata");
-                if (metadata.has("booking_id")) {
-                    bookingId = metadata.get("booking_id").getAsLong();
-                }
+            if (!webhookInbox.accept(event.getId(), event.getType(), payload)) {
+                return ResponseEntity.ok().body("Duplicate webhook ignored");
             }
-            // Extract optional fields for success handler
-            if (eventType.equals("payment_intent.succeeded")) {
-                if (dataObject.has("amount")) {
-                    amount = dataObject.get("amount").getAsLong();
-                }
-                if (dataObject.has("currency")) {
-                    currency = dataObject.get("currency").getAsString();
-                }
-            }
-
-
-            // Validate essential extracted data
-            if (paymentIntentId == null || bookingId == null) {
-                logger.error("Webhook Error: Failed to extract paymentIntentId or bookingId from webhook payload for event type {}. Payload: {}", eventType, payload);
-                // Acknowledge receipt but indicate processing failure
-                return ResponseEntity.status(HttpStatus.ACCEPTED).body("Webhook received but missing essential data in payload.");
+        } catch (DataIntegrityViolationException e) {
+            // Only a duplicate if another delivery of the same event was accepted concurrently;
+            // any other constraint failure means the event wasn't stored and Stripe must retry
+            if (isAccepted(event.getId())) {
+                logger.info("Webhook event {} accepted concurrently by another request, ignoring.", event.getId());
+                return ResponseEntity.ok().body("Duplicate webhook ignored");
             }
-
-            logger.info("Manually Parsed Data: Type='{}', PI_ID='{}', Booking_ID={}", eventType, paymentIntentId, bookingId);
-
-
-        } catch (JsonSyntaxException | IllegalStateException | NullPointerException | NumberFormatException e) {
-            logger.error("Webhook Error: Failed to manually parse JSON payload or extract required fields for event ID: {}. Error: {}", event.getId(), e.getMessage(), e);
-            // Acknowledge receipt but indicate processing failure
-            return ResponseEntity.status(HttpStatus.ACCEPTED).body("Webhook received but failed to parse essential data.");
+            logger.error("Webhook Error: Could not store event {} in the inbox: {}", event.getId(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error storing webhook");
+        } catch (Exception e) {
+            logger.error("Webhook Error: Could not store event {} in the inbox: {}", event.getId(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error storing webhook"); // Stripe retries
         }
 
+        return ResponseEntity.ok().body("Webhook Received");
+    }
 
-        // Step 3: Handle the event using extracted data
-        switch (eventType) {
-            case "payment_intent.succeeded":
-                logger.info("Webhook: Calling handlePaymentSuccess for PI_ID={}, Booking_ID={}", paymentIntentId, bookingId);
-                // Pass extracted data to the service method
-                paymentService.handlePaymentSuccess(paymentIntentId, bookingId, amount, currency);
-                break;
-            case "payment_intent.payment_failed":
-                logger.warn("Webhook: Calling handlePaymentFailure for PI_ID={}, Booking_ID={}", paymentIntentId, bookingId);
-                // Pass extracted data to the service method
-                paymentService.handlePaymentFailure(paymentIntentId, bookingId);
-                break;
-            default:
-                logger.debug("Webhook: Unhandled event type: {}", eventType);
+    private boolean isAccepted(String eventId) {
+        try {
+            return webhookInbox.isAccepted(eventId);
+        } catch (Exception e) {
+            logger.error("Webhook Error: Could not check whether event {} was already stored: {}", eventId, e.getMessage(), e);
+            return false;
         }
-
-        return ResponseEntity.ok().body("Webhook Handled");
     }
 }
\ No newline at end of file
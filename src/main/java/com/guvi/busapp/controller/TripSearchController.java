@@ -1,9 +1,14 @@
 // src/main/java/com/guvi/busapp/controller/TripSearchController.java
 package com.guvi.busapp.controller;
 
+import com.guvi.busapp.dto.CorridorAvailabilityDto;
 import com.guvi.busapp.dto.ScheduledTripResponseDto;
 import com.guvi.busapp.dto.SeatLayoutDto;
+import com.guvi.busapp.dto.TripSearchCriteria;
+import com.guvi.busapp.dto.TripSearchPageDto;
 import com.guvi.busapp.exception.ResourceNotFoundException;
+import com.guvi.busapp.model.Amenity;
+import com.guvi.busapp.service.CorridorSummaryService;
 import com.guvi.busapp.service.ScheduledTripService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +19,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 @RestController
@@ -23,38 +29,102 @@ public class TripSearchController {
     private static final Logger logger = LoggerFactory.getLogger(TripSearchController.class);
 
     private final ScheduledTripService scheduledTripService;
+    private final CorridorSummaryService corridorSummaryService;
 
     @Autowired
-    public TripSearchController(ScheduledTripService scheduledTripService) {
+    public TripSearchController(ScheduledTripService scheduledTripService, CorridorSummaryService corridorSummaryService) {
         this.scheduledTripService = scheduledTripService;
+        this.corridorSummaryService = corridorSummaryService;
     }
 
     // GET: Search for available trips (Publicly accessible)
+    // Sorted by departure time (default), fare or available seats; keyset-paginated via "cursor"
+    // Optional filters: amenities=AC,WIFI (all required), busType, operatorName, departureFrom/departureTo (HH:mm)
     @GetMapping("/search")
-    public ResponseEntity<List<ScheduledTripResponseDto>> searchAvailableTrips(
+    public ResponseEntity<TripSearchPageDto> searchAvailableTrips(
             @RequestParam String origin,
             @RequestParam String destination,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TripSearchCriteria.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) List<String> amenities,
+            @RequestParam(required = false) String busType,
+            @RequestParam(required = false) String operatorName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime departureFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime departureTo) {
 
-        logger.info("Received trip search request for origin={}, destination={}, date={}", origin, destination, date);
+        logger.info("Received trip search request for origin={}, destination={}, date={}, sortBy={}, size={}, amenities={}, busType={}, operatorName={}, departure={}..{}",
+                origin, destination, date, sortBy, size, amenities, busType, operatorName, departureFrom, departureTo);
         if (origin == null || origin.isBlank() || destination == null || destination.isBlank() || date == null) {
             logger.warn("Search request received with missing parameters.");
             return ResponseEntity.badRequest().build();
         }
         if (origin.equalsIgnoreCase(destination)) {
             logger.warn("Search request received with same origin and destination.");
-            return ResponseEntity.badRequest().body(List.of());
+            return ResponseEntity.badRequest().body(new TripSearchPageDto(List.of(), null, false));
         }
         try {
-            List<ScheduledTripResponseDto> availableTrips = scheduledTripService.findAvailableTrips(origin, destination, date);
-            logger.info("Found {} available trips for the search criteria.", availableTrips.size());
-            return ResponseEntity.ok(availableTrips);
+            TripSearchCriteria criteria = new TripSearchCriteria(origin, destination, date);
+            criteria.setSortBy(TripSearchCriteria.SortBy.fromParam(sortBy));
+            criteria.setCursor(cursor);
+            criteria.setSize(size);
+            if (amenities != null) {
+                amenities.stream().filter(a -> !a.isBlank()).map(Amenity::fromParam).forEach(criteria.getAmenities()::add);
+            }
+            criteria.setBusType(busType);
+            criteria.setOperatorName(operatorName);
+            criteria.setDepartureFrom(departureFrom);
+            criteria.setDepartureTo(departureTo);
+            TripSearchPageDto page = scheduledTripService.findAvailableTrips(criteria);
+            logger.info("Found {} available trips for the search criteria (hasMore={}).", page.getTrips().size(), page.isHasMore());
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid trip search request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error during trip search for origin={}, destination={}, date={}: {}", origin, destination, date, e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    // GET: "Is anything available?" for one corridor-day (Publicly accessible)
+    // Reads the precomputed corridor_day_summary row instead of aggregating trips
+    @GetMapping("/availability")
+    public ResponseEntity<CorridorAvailabilityDto> getCorridorAvailability(
+            @RequestParam String origin,
+            @RequestParam String destination,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        if (origin.isBlank() || destination.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(corridorSummaryService.getAvailability(origin.trim(), destination.trim(), date));
+        } catch (Exception e) {
+            logger.error("Error fetching availability for {} -> {} on {}: {}", origin, destination, date, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // GET: Per-day availability and lowest fare for a date range, for the search calendar (Publicly accessible)
+    @GetMapping("/calendar")
+    public ResponseEntity<List<CorridorAvailabilityDto>> getCorridorCalendar(
+            @RequestParam String origin,
+            @RequestParam String destination,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "14") int days) {
+        if (origin.isBlank() || destination.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDate start = from != null ? from : LocalDate.now();
+        try {
+            return ResponseEntity.ok(corridorSummaryService.getCalendar(origin.trim(), destination.trim(), start, days));
+        } catch (Exception e) {
+            logger.error("Error fetching availability calendar for {} -> {} from {}: {}", origin, destination, start, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     // GET: Seat Layout for a specific Trip (Requires authentication)
     @GetMapping("/{tripId}/seats")
     @PreAuthorize("isAuthenticated()") // Ensure user is logged in
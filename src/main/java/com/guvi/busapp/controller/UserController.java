@@ -1,16 +1,21 @@
 // src/main/java/com/guvi/busapp/controller/UserController.java
 package com.guvi.busapp.controller;
 
+import com.guvi.busapp.dto.BookingPageDto;
 import com.guvi.busapp.dto.BookingResponseDto;
 import com.guvi.busapp.dto.ChangePasswordDto; // Import DTO
 import com.guvi.busapp.dto.UserProfileDto; // Import DTO
 import com.guvi.busapp.exception.ResourceNotFoundException;
+import com.guvi.busapp.service.BookingHistoryCache;
 import com.guvi.busapp.service.BookingService;
+import com.guvi.busapp.service.TripWriteQueue;
 import com.guvi.busapp.service.UserService; // Import UserService
 import jakarta.validation.Valid; // Import Valid
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,7 +23,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*; // Import needed annotations
 
-import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/user") // Base path for user-specific API operations
@@ -33,29 +38,80 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private BookingHistoryCache bookingHistoryCache;
+
+    @Autowired
+    private TripWriteQueue tripWriteQueue; // Cancellation releases seats, so it joins the trip's write queue
+
     // --- GET User's Booking History ---
     @GetMapping("/bookings")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> getUserBookingHistory(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> getUserBookingHistory(@AuthenticationPrincipal UserDetails userDetails,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "" + BookingService.DEFAULT_PAGE_SIZE) int size,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         if (userDetails == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User authentication required.");
         }
         String userEmail = userDetails.getUsername();
-        logger.info("Request received to fetch booking history for user: {}", userEmail);
+        logger.info("Request received to fetch booking history for user: {} (size={})", userEmail, size);
 
         try {
-            List<BookingResponseDto> bookings = bookingService.getBookingsByUser(userEmail);
-            logger.info("Returning {} bookings for user {}", bookings.size(), userEmail);
-            return ResponseEntity.ok(bookings);
+            // Newest first, keyset-paginated: pass nextCursor back as "cursor" for the next page
+            BookingHistoryCache.CachedPage cached = bookingHistoryCache.getPage(userEmail, cursor, size,
+                    () -> bookingService.getBookingsByUser(userEmail, cursor, size));
+            // private, no-cache: the browser keeps the page but revalidates it with If-None-Match every time
+            CacheControl revalidate = CacheControl.noCache().cachePrivate();
+            if (cached.isMatchedBy(ifNoneMatch)) {
+                logger.debug("Booking history for user {} unchanged, returning 304.", userEmail);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.etag()).cacheControl(revalidate).build();
+            }
+            BookingPageDto page = cached.page();
+            logger.info("Returning {} bookings for user {} (hasMore={})", page.getBookings().size(), userEmail, page.isHasMore());
+            return ResponseEntity.ok().eTag(cached.etag()).cacheControl(revalidate).body(page);
         } catch (ResourceNotFoundException e) {
             logger.error("Error fetching bookings: User {} not found.", userEmail, e);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid booking history request for user {}: {}", userEmail, e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             logger.error("Unexpected error fetching booking history for user {}: {}", userEmail, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching booking history.");
         }
     }
 
+    // --- POST Cancel one of the user's bookings ---
+    @PostMapping("/bookings/{bookingId}/cancel")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> cancelBooking(@AuthenticationPrincipal UserDetails userDetails,
+                                           @PathVariable Long bookingId) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User authentication required.");
+        }
+        String userEmail = userDetails.getUsername();
+        logger.info("Request received from user {} to cancel booking {}", userEmail, bookingId);
+
+        try {
+            Long tripId = tripWriteQueue.isEnabled() ? bookingService.findTripIdForBooking(bookingId) : null;
+            BookingResponseDto cancelled = tripWriteQueue.execute(tripId, () -> bookingService.cancelBooking(bookingId, userEmail));
+            return ResponseEntity.ok(cancelled);
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Cancellation of booking {} by user {} failed: {}", bookingId, userEmail, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Cancellation of booking {} by user {} refused: {}", bookingId, userEmail, e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Cancellation of booking {} rejected: {}", bookingId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Unexpected error cancelling booking {} for user {}: {}", bookingId, userEmail, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while cancelling the booking.");
+        }
+    }
+
     // --- ADDED Profile Management Endpoints ---
 
     @GetMapping("/profile")
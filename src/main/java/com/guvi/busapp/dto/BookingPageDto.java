@@ -0,0 +1,19 @@
+// src/main/java/com/guvi/busapp/dto/BookingPageDto.java
+package com.guvi.busapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPageDto {
+
+    private List<BookingResponseDto> bookings;
+    private String nextCursor; // Pass back as "cursor" to fetch the next page; null on the last page
+    private boolean hasMore;
+
+}
@@ -12,6 +12,7 @@ import java.util.List;
 public class BookingResponseDto {
 
     private Long bookingId;
+    private String bookingReference; // Short code shown to customers; null for older bookings
     private ScheduledTripResponseDto tripDetails; // Include details of the trip
     private List<PassengerDto> passengers; // Include details of booked passengers (with seat numbers)
     private Booking.BookingStatus status;
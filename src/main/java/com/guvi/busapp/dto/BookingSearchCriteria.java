@@ -0,0 +1,29 @@
+// src/main/java/com/guvi/busapp/dto/BookingSearchCriteria.java
+package com.guvi.busapp.dto;
+
+import com.guvi.busapp.model.Booking;
+import com.guvi.busapp.service.BookingService;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// Admin booking search; every filter is optional and they combine with AND
+@Data
+public class BookingSearchCriteria {
+
+    private Long bookingId;
+    private String reference;  // Customer-facing booking reference; separators and case are ignored
+    private String userEmail;  // Exact match (users.email is unique)
+    private Long tripId;
+    private Long routeId;
+    private Booking.BookingStatus status;
+    private LocalDate fromDate; // Booking date, inclusive
+    private LocalDate toDate;   // Booking date, inclusive
+    private String cursor;      // Opaque cursor from the previous page's nextCursor, null for the first page
+    private int size = BookingService.DEFAULT_PAGE_SIZE;
+
+    public boolean hasFilters() {
+        return bookingId != null || (reference != null && !reference.isBlank()) || (userEmail != null && !userEmail.isBlank()) || tripId != null || routeId != null
+                || status != null || fromDate != null || toDate != null;
+    }
+}
@@ -0,0 +1,18 @@
+// src/main/java/com/guvi/busapp/dto/CheckoutResponseDto.java
+package com.guvi.busapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutResponseDto {
+
+    private BookingResponseDto booking;
+    // Stripe client secret when a PaymentIntent was requested and created after the booking committed;
+    // null otherwise, in which case the payment page calls POST /api/payment/create-intent itself
+    private String clientSecret;
+
+}
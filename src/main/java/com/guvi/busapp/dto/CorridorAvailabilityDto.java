@@ -0,0 +1,26 @@
+// src/main/java/com/guvi/busapp/dto/CorridorAvailabilityDto.java
+package com.guvi.busapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One corridor-day from corridor_day_summary: "is anything available, and from what price"
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CorridorAvailabilityDto {
+    private String origin;
+    private String destination;
+    private LocalDate date;
+    private int tripCount;
+    private BigDecimal minFare; // Null when nothing is bookable
+    private int totalAvailableSeats;
+
+    public boolean isAvailable() {
+        return totalAvailableSeats > 0;
+    }
+}
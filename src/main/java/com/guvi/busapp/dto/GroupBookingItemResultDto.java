@@ -0,0 +1,26 @@
+// src/main/java/com/guvi/busapp/dto/GroupBookingItemResultDto.java
+package com.guvi.busapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupBookingItemResultDto {
+
+    private int index; // Position of the entry in the request
+    private Long tripId;
+    private boolean success;
+    private BookingResponseDto booking; // Set when success
+    private String error; // Set when not
+
+    public static GroupBookingItemResultDto succeeded(Long tripId, BookingResponseDto booking) {
+        return new GroupBookingItemResultDto(-1, tripId, true, booking, null);
+    }
+
+    public static GroupBookingItemResultDto failed(Long tripId, String error) {
+        return new GroupBookingItemResultDto(-1, tripId, false, null, error);
+    }
+}
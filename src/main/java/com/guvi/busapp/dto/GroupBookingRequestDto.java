@@ -0,0 +1,18 @@
+// src/main/java/com/guvi/busapp/dto/GroupBookingRequestDto.java
+package com.guvi.busapp.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class GroupBookingRequestDto {
+
+    // One entry per booking to create; several entries may target the same trip
+    @Valid
+    @NotEmpty(message = "At least one booking must be requested")
+    private List<BookingRequestDto> bookings;
+
+}
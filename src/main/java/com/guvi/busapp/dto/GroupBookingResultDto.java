@@ -0,0 +1,20 @@
+// src/main/java/com/guvi/busapp/dto/GroupBookingResultDto.java
+package com.guvi.busapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupBookingResultDto {
+
+    private int requested;
+    private int succeeded;
+    private int failed;
+    private List<GroupBookingItemResultDto> results; // In request order
+
+}
@@ -0,0 +1,78 @@
+// src/main/java/com/guvi/busapp/dto/TripSearchCriteria.java
+package com.guvi.busapp.dto;
+
+import com.guvi.busapp.model.Amenity;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@Data
+public class TripSearchCriteria {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 50;
+
+    public enum SortBy {
+        DEPARTURE_TIME, // Earliest first
+        FARE,           // Cheapest first
+        AVAILABLE_SEATS; // Emptiest first
+
+        // Accepts "fare", "FARE", "available_seats", "available-seats"...
+        public static SortBy fromParam(String value) {
+            if (value == null || value.isBlank()) return DEPARTURE_TIME;
+            try {
+                return SortBy.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported sort option: " + value);
+            }
+        }
+    }
+
+    private String origin;
+    private String destination;
+    private LocalDate date;
+    private SortBy sortBy = SortBy.DEPARTURE_TIME;
+    private String cursor; // Opaque cursor from the previous page's nextCursor, null for the first page
+    private int size = DEFAULT_PAGE_SIZE;
+
+    // --- Optional filters, applied to each keyset batch on the server ---
+    private Set<Amenity> amenities = EnumSet.noneOf(Amenity.class); // Bus must have all of these
+    private String busType;       // Case-insensitive "contains", e.g. "sleeper"
+    private String operatorName;  // Case-insensitive "contains"
+    private LocalTime departureFrom; // Inclusive
+    private LocalTime departureTo;   // Inclusive
+
+    public TripSearchCriteria() {
+    }
+
+    public TripSearchCriteria(String origin, String destination, LocalDate date) {
+        this.origin = origin;
+        this.destination = destination;
+        this.date = date;
+    }
+
+    public boolean hasFilters() {
+        return (amenities != null && !amenities.isEmpty())
+                || (busType != null && !busType.isBlank())
+                || (operatorName != null && !operatorName.isBlank())
+                || departureFrom != null || departureTo != null;
+    }
+
+    // Immutable snapshot of everything that affects the result; equal keys mean identical searches
+    public List<Object> searchKey() {
+        return Arrays.asList(origin, destination, date, sortBy, cursor, getEffectiveSize(),
+                amenities != null && !amenities.isEmpty() ? EnumSet.copyOf(amenities) : EnumSet.noneOf(Amenity.class),
+                busType, operatorName, departureFrom, departureTo);
+    }
+
+    // Page size clamped to 1..MAX_PAGE_SIZE
+    public int getEffectiveSize() {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+}
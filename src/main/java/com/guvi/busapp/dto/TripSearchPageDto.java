@@ -0,0 +1,19 @@
+// src/main/java/com/guvi/busapp/dto/TripSearchPageDto.java
+package com.guvi.busapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripSearchPageDto {
+
+    private List<ScheduledTripResponseDto> trips;
+    private String nextCursor; // Pass back as "cursor" to fetch the next page; null on the last page
+    private boolean hasMore;
+
+}
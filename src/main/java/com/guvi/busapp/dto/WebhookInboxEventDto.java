@@ -0,0 +1,25 @@
+// src/main/java/com/guvi/busapp/dto/WebhookInboxEventDto.java
+package com.guvi.busapp.dto;
+
+import com.guvi.busapp.model.WebhookInboxEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Admin view of a webhook inbox row; the raw payload is left out
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookInboxEventDto {
+
+    private Long id;
+    private String eventId;
+    private String eventType;
+    private Long bookingId;
+    private WebhookInboxEvent.Status status;
+    private int attempts;
+    private LocalDateTime receivedAt;
+    private String lastError;
+}
@@ -0,0 +1,33 @@
+// src/main/java/com/guvi/busapp/event/BookingLifecycleEvent.java
+package com.guvi.busapp.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * A booking state change, read back from the booking outbox and delivered by OutboxDispatcher
+ * after the change has committed. Delivery is at-least-once and in order per booking, so
+ * listeners must tolerate a repeat of the same outboxId.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class BookingLifecycleEvent {
+
+    public enum Type {
+        CREATED,   // PENDING booking created, seats held
+        CONFIRMED, // Payment succeeded
+        FAILED,    // Payment failed
+        EXPIRED,   // Held too long without payment
+        CANCELLED  // Cancelled by the customer, seats back on sale
+    }
+
+    private final long outboxId;
+    private final long bookingId;
+    private final Type type;
+    private final String payload; // JSON snapshot of the booking at the time of the change
+    private final LocalDateTime occurredAt;
+}
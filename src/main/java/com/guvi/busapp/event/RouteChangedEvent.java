@@ -0,0 +1,22 @@
+// src/main/java/com/guvi/busapp/event/RouteChangedEvent.java
+package com.guvi.busapp.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by RouteServiceImpl whenever a route is created, updated or deleted.
+ * In-memory route indexes (location suggestions, served corridors) listen for it
+ * and rebuild themselves once the surrounding transaction has committed.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class RouteChangedEvent {
+
+    public enum ChangeType { CREATED, UPDATED, DELETED }
+
+    private final Long routeId;
+    private final ChangeType changeType;
+}
@@ -0,0 +1,42 @@
+// src/main/java/com/guvi/busapp/event/TripAvailabilityChangedEvent.java
+package com.guvi.busapp.event;
+
+import com.guvi.busapp.model.ScheduledTrip;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+
+/**
+ * Published whenever a trip's bookable seats change (lock, release, cancel) or a trip
+ * is scheduled, edited or removed. CorridorSummaryService applies it after commit:
+ * a plain seat delta adjusts the corridor-day row in place, anything else recomputes it.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class TripAvailabilityChangedEvent {
+
+    private final String origin;
+    private final String destination;
+    private final LocalDate date;
+    private final int seatDelta;
+    private final boolean recompute; // Trip count or min fare may have changed
+
+    public static TripAvailabilityChangedEvent seatsChanged(ScheduledTrip trip, int previousAvailable) {
+        int current = trip.getAvailableSeats() != null ? trip.getAvailableSeats() : 0;
+        // Crossing zero adds or removes a bookable trip, which can move the count and the min fare
+        boolean bookabilityChanged = (previousAvailable > 0) != (current > 0);
+        return new TripAvailabilityChangedEvent(trip.getRoute().getOrigin(), trip.getRoute().getDestination(),
+                trip.getDepartureDate(), current - previousAvailable, bookabilityChanged);
+    }
+
+    public static TripAvailabilityChangedEvent scheduleChanged(String origin, String destination, LocalDate date) {
+        return new TripAvailabilityChangedEvent(origin, destination, date, 0, true);
+    }
+
+    public static TripAvailabilityChangedEvent scheduleChanged(ScheduledTrip trip) {
+        return scheduleChanged(trip.getRoute().getOrigin(), trip.getRoute().getDestination(), trip.getDepartureDate());
+    }
+}
@@ -0,0 +1,24 @@
+// src/main/java/com/guvi/busapp/exception/PaymentGatewayException.java
+package com.guvi.busapp.exception;
+
+// The payment provider rejected or couldn't complete a call; wraps the provider SDK's own exception
+public class PaymentGatewayException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    // True when the provider itself is struggling (unreachable, 5xx, rate limited) rather than rejecting this request
+    private final boolean providerFault;
+
+    public PaymentGatewayException(String message, Throwable cause) {
+        this(message, cause, false);
+    }
+
+    public PaymentGatewayException(String message, Throwable cause, boolean providerFault) {
+        super(message, cause);
+        this.providerFault = providerFault;
+    }
+
+    public boolean isProviderFault() {
+        return providerFault;
+    }
+}
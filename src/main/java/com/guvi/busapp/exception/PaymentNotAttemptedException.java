@@ -0,0 +1,14 @@
+package com.guvi.busapp.exception;
+
+import java.util.concurrent.RejectedExecutionException;
+
+// PaymentGatewayGuard refused the call before it was handed to the provider (circuit open, bulkhead full),
+// so nothing can have been created on the provider's side. A timeout is not one of these.
+public class PaymentNotAttemptedException extends RejectedExecutionException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PaymentNotAttemptedException(String message) {
+        super(message);
+    }
+}
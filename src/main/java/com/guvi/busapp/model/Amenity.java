@@ -0,0 +1,71 @@
+// src/main/java/com/guvi/busapp/model/Amenity.java
+package com.guvi.busapp.model;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Searchable bus features, one bit each in {@link Bus#getAmenityMask()}.
+ * A trip matches an amenity filter when (busMask & requiredMask) == requiredMask.
+ * Append new constants at the end only: the bit is the ordinal and masks are persisted.
+ */
+public enum Amenity {
+    AC("AC"),
+    SLEEPER("Sleeper"),          // Derived from the bus type, e.g. "AC Sleeper (2+1)"
+    WIFI("WiFi"),
+    CHARGING("Charging Point");
+
+    private final String label; // Value stored in bus_amenities by the admin bus form
+
+    Amenity(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    // Accepts "wifi", "WIFI", "WiFi", "charging", "Charging Point"...
+    public static Amenity fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Amenity filter cannot be blank.");
+        }
+        String trimmed = value.trim();
+        for (Amenity amenity : values()) {
+            if (amenity.name().equalsIgnoreCase(trimmed) || amenity.label.equalsIgnoreCase(trimmed)) {
+                return amenity;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported amenity filter: " + value);
+    }
+
+    // Mask for a bus: labelled amenities from its collection, SLEEPER from its type
+    public static int maskOf(Collection<String> amenityLabels, String busType) {
+        int mask = 0;
+        if (amenityLabels != null) {
+            for (String label : amenityLabels) {
+                for (Amenity amenity : values()) {
+                    if (amenity.label.equalsIgnoreCase(label)) {
+                        mask |= amenity.bit();
+                    }
+                }
+            }
+        }
+        if (busType != null && busType.toLowerCase(Locale.ROOT).contains("sleeper")) {
+            mask |= SLEEPER.bit();
+        }
+        return mask;
+    }
+
+    public static int maskOf(Collection<Amenity> amenities) {
+        int mask = 0;
+        for (Amenity amenity : amenities) {
+            mask |= amenity.bit();
+        }
+        return mask;
+    }
+}
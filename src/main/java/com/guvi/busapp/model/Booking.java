@@ -8,6 +8,7 @@ import lombok.Getter; // Use individual annotations
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -16,7 +17,17 @@ import java.util.Objects; // Import for manual equals/hashCode if needed later
 import java.util.Set;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        // Keyset pages for the user history and the admin listing (bookingTime DESC, id DESC)
+        @Index(name = "idx_bookings_user_time", columnList = "user_id, booking_time, id"),
+        @Index(name = "idx_bookings_time", columnList = "booking_time, id"),
+        // Admin search: status + date range, and all bookings of a trip
+        @Index(name = "idx_bookings_status_time", columnList = "status, booking_time"),
+        @Index(name = "idx_bookings_trip", columnList = "trip_id")
+}, uniqueConstraints = {
+        // Customer-facing reference lookup (support desk, "find my booking")
+        @UniqueConstraint(name = "uk_bookings_reference_code", columnNames = "reference_code")
+})
 @Getter // Add Getter
 @Setter // Add Setter
 @NoArgsConstructor // Add NoArgsConstructor
@@ -27,9 +38,15 @@ public class Booking {
     // Let's assume it stays in ScheduledTrip for now.
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "bookings_id")
+    @TableGenerator(name = "bookings_id", table = PooledIds.TABLE, pkColumnName = PooledIds.NAME_COLUMN,
+            valueColumnName = PooledIds.VALUE_COLUMN, pkColumnValue = "bookings", allocationSize = PooledIds.ALLOCATION_SIZE)
     private Long id;
 
+    // Short checksummed code from BookingReferenceGenerator; null for bookings made before codes existed
+    @Column(name = "reference_code", length = 16, updatable = false)
+    private String referenceCode;
+
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
@@ -53,7 +70,11 @@ public class Booking {
     @Enumerated(EnumType.STRING)
     private BookingStatus status; // e.g., CONFIRMED, CANCELLED
 
+    @Column(name = "payment_started_at")
+    private LocalDateTime paymentStartedAt; // Set before the first PaymentIntent is created; such a booking can't be cancelled while PENDING
+
     @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @BatchSize(size = 50) // Listings load passengers for up to 50 bookings per query
     private Set<Passenger> passengers = new HashSet<>();
 
     @PrePersist
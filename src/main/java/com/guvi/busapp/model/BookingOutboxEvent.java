@@ -0,0 +1,94 @@
+// src/main/java/com/guvi/busapp/model/BookingOutboxEvent.java
+package com.guvi.busapp.model;
+
+import com.guvi.busapp.event.BookingLifecycleEvent;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Transactional outbox row: written in the same transaction as the booking state change it
+ * describes, dispatched later by OutboxDispatcher. Rows are never updated by booking code.
+ */
+@Entity
+@Table(name = "booking_outbox", indexes = {
+        // Poller: pending rows that are due, oldest first
+        @Index(name = "idx_booking_outbox_due", columnList = "status, next_attempt_at, id"),
+        // Per-booking ordering: is an earlier event of this booking still pending?
+        @Index(name = "idx_booking_outbox_booking", columnList = "booking_id, status, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString(exclude = "payload")
+public class BookingOutboxEvent {
+
+    public enum Status {
+        PENDING,    // Waiting for its first attempt or a retry
+        DISPATCHED, // Every consumer accepted it
+        DEAD        // Gave up after max-attempts; the consumers in deliveredTo did get it
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 20)
+    private BookingLifecycleEvent.Type eventType;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "dispatched_at")
+    private LocalDateTime dispatchedAt; // Null until every sink has accepted it
+
+    // Comma-separated consumers that already accepted the event, so a retry skips them
+    @Column(name = "delivered_to", length = 200)
+    private String deliveredTo;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public BookingOutboxEvent(Long bookingId, BookingLifecycleEvent.Type eventType, String payload) {
+        this.bookingId = bookingId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+        this.status = Status.PENDING;
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    public Set<String> deliveredConsumers() {
+        if (deliveredTo == null || deliveredTo.isEmpty()) return new LinkedHashSet<>();
+        return new LinkedHashSet<>(Arrays.asList(deliveredTo.split(",")));
+    }
+
+    public BookingLifecycleEvent toEvent() {
+        return new BookingLifecycleEvent(id, bookingId, eventType, payload, createdAt);
+    }
+}
@@ -0,0 +1,100 @@
+// src/main/java/com/guvi/busapp/model/BookingView.java
+package com.guvi.busapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Denormalized booking history row: everything the history page shows for one booking,
+ * so a page is one indexed read instead of a join over five tables. Maintained by
+ * BookingViewProjector; bookings and the tables it copies from remain the source of truth.
+ */
+@Entity
+@Table(name = "booking_view", indexes = {
+        // User history, newest first, keyset-paginated
+        @Index(name = "idx_booking_view_user_time", columnList = "user_id, booking_time, booking_id"),
+        @Index(name = "idx_booking_view_trip", columnList = "trip_id"),
+        @Index(name = "idx_booking_view_route", columnList = "route_id"),
+        @Index(name = "idx_booking_view_bus", columnList = "bus_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString(exclude = "passengersJson")
+public class BookingView {
+
+    @Id
+    @Column(name = "booking_id")
+    private Long bookingId; // Same id as the booking, not generated
+
+    @Column(name = "booking_reference", length = 16)
+    private String bookingReference;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "user_email")
+    private String userEmail;
+
+    @Column(name = "user_full_name")
+    private String userFullName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Booking.BookingStatus status;
+
+    @Column(name = "total_fare")
+    private BigDecimal totalFare;
+
+    @Column(name = "booking_time", nullable = false)
+    private LocalDateTime bookingTime;
+
+    @Column(name = "trip_id")
+    private Long tripId;
+
+    @Column(name = "departure_date")
+    private LocalDate departureDate;
+
+    @Column(name = "departure_time")
+    private LocalTime departureTime;
+
+    @Column(name = "arrival_time")
+    private LocalTime arrivalTime;
+
+    @Column(name = "trip_fare")
+    private BigDecimal tripFare;
+
+    @Column(name = "route_id")
+    private Long routeId;
+
+    private String origin;
+
+    private String destination;
+
+    @Column(name = "bus_id")
+    private Long busId;
+
+    @Column(name = "bus_number")
+    private String busNumber;
+
+    @Column(name = "operator_name")
+    private String operatorName;
+
+    @Column(name = "bus_type")
+    private String busType;
+
+    @Lob
+    @Column(name = "passengers_json", columnDefinition = "TEXT")
+    private String passengersJson; // [{name, age, gender, seatNumber}]
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
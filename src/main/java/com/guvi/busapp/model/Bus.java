@@ -9,6 +9,7 @@ import lombok.Getter; // Use individual annotations
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.HashSet;
 import java.util.Objects;
@@ -41,6 +42,7 @@ public class Bus {
     private Integer totalSeats;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 50) // Buses loaded together fetch their amenities in one query
     @CollectionTable(name = "bus_amenities", joinColumns = @JoinColumn(name = "bus_id"))
     @Column(name = "amenity")
     private Set<String> amenities = new HashSet<>();
@@ -48,6 +50,16 @@ public class Bus {
     @Column(name = "seat_layout", length = 500)
     private String seatLayout;
 
+    // Bitmask of searchable amenities (see Amenity), kept in step with amenities/busType
+    @Column(name = "amenity_mask", nullable = false)
+    private int amenityMask;
+
+    @PrePersist
+    @PreUpdate
+    public void refreshAmenityMask() {
+        this.amenityMask = Amenity.maskOf(amenities, busType);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,72 @@
+// src/main/java/com/guvi/busapp/model/CorridorDaySummary.java
+package com.guvi.busapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Materialized availability for one corridor (origin -> destination) on one day,
+ * counting only trips that still have seats. Maintained by CorridorSummaryService;
+ * scheduled_trips remains the source of truth.
+ */
+@Entity
+@Table(name = "corridor_day_summary",
+        uniqueConstraints = @UniqueConstraint(name = "uk_corridor_day", columnNames = {"origin", "destination", "travel_date"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class CorridorDaySummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String origin;
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Column(name = "travel_date", nullable = false)
+    private LocalDate travelDate;
+
+    @Column(name = "trip_count", nullable = false)
+    private int tripCount; // Trips with at least one available seat
+
+    @Column(name = "min_fare")
+    private BigDecimal minFare; // Cheapest of those trips, null when none
+
+    @Column(name = "total_available_seats", nullable = false)
+    private int totalAvailableSeats;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public CorridorDaySummary(String origin, String destination, LocalDate travelDate) {
+        this.origin = origin;
+        this.destination = destination;
+        this.travelDate = travelDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CorridorDaySummary that = (CorridorDaySummary) o;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? Objects.hash(id) : getClass().hashCode();
+    }
+}
@@ -21,7 +21,9 @@ import java.util.Objects;
 public class Passenger {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "passengers_id")
+    @TableGenerator(name = "passengers_id", table = PooledIds.TABLE, pkColumnName = PooledIds.NAME_COLUMN,
+            valueColumnName = PooledIds.VALUE_COLUMN, pkColumnValue = "passengers", allocationSize = PooledIds.ALLOCATION_SIZE)
     private Long id;
 
     @NotNull // Ensure booking is set
@@ -0,0 +1,21 @@
+// src/main/java/com/guvi/busapp/model/PooledIds.java
+package com.guvi.busapp.model;
+
+/**
+ * Shared settings for table-backed, pooled id generation. IDENTITY ids force Hibernate to insert
+ * rows one at a time to read each key back; pooled ids are handed out from an in-memory block of
+ * ALLOCATION_SIZE, so inserts can be sent as JDBC batches. Each entity has its own row in
+ * id_sequences; PooledIdInitializer moves those rows past ids issued before the switch.
+ */
+public final class PooledIds {
+
+    public static final String TABLE = "id_sequences";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+
+    // Ids reserved per round trip to id_sequences; a restart leaves at most this many unused per entity
+    public static final int ALLOCATION_SIZE = 50;
+
+    private PooledIds() {
+    }
+}
@@ -0,0 +1,55 @@
+// src/main/java/com/guvi/busapp/model/ProcessedWebhookEvent.java
+package com.guvi.busapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per payment-provider event id already accepted, so redeliveries of the same event
+ * are recognised by primary key instead of by booking state. Pruned after the retention period.
+ */
+@Entity
+@Table(name = "processed_webhook_events", indexes = {
+        // Retention purge
+        @Index(name = "idx_processed_webhook_events_received", columnList = "received_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class ProcessedWebhookEvent implements Persistable<String> {
+
+    @Id
+    @Column(name = "event_id")
+    private String eventId; // Provider's event id (evt_...), assigned
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    public ProcessedWebhookEvent(String eventId, String eventType) {
+        this.eventId = eventId;
+        this.eventType = eventType;
+        this.receivedAt = LocalDateTime.now();
+    }
+
+    @Override
+    public String getId() {
+        return eventId;
+    }
+
+    // Rows are only ever inserted, so save() can persist without a select-before-insert
+    @Override
+    @Transient
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -11,7 +11,9 @@ import lombok.ToString;
 import java.util.Objects;
 
 @Entity
-@Table(name = "routes")
+@Table(name = "routes", indexes = {
+        @Index(name = "idx_routes_origin_destination", columnList = "origin, destination")
+})
 @Getter
 @Setter
 @NoArgsConstructor
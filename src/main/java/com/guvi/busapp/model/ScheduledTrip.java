@@ -19,7 +19,10 @@ import java.util.Map;
 import java.util.Objects;
 
 @Entity
-@Table(name = "scheduled_trips")
+@Table(name = "scheduled_trips", indexes = {
+        // Search: route + day, then ordered by departure for keyset pages
+        @Index(name = "idx_trips_route_date_departure", columnList = "route_id, departure_date, departure_time, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -29,7 +32,9 @@ public class ScheduledTrip {
     public enum SeatStatus { AVAILABLE, BOOKED, LOCKED, UNAVAILABLE }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "scheduled_trips_id")
+    @TableGenerator(name = "scheduled_trips_id", table = PooledIds.TABLE, pkColumnName = PooledIds.NAME_COLUMN,
+            valueColumnName = PooledIds.VALUE_COLUMN, pkColumnValue = "scheduled_trips", allocationSize = PooledIds.ALLOCATION_SIZE)
     private Long id;
 
     @NotNull
@@ -0,0 +1,81 @@
+// src/main/java/com/guvi/busapp/model/WebhookInboxEvent.java
+package com.guvi.busapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Raw payment-provider webhook, stored as received once its signature checks out and
+ * processed later by WebhookInboxProcessor. The webhook request only waits for this insert.
+ */
+@Entity
+@Table(name = "webhook_inbox", indexes = {
+        // Poller: pending rows that are due, oldest first
+        @Index(name = "idx_webhook_inbox_due", columnList = "status, next_attempt_at, id"),
+        // Per-booking ordering: is an earlier event of this booking still pending?
+        @Index(name = "idx_webhook_inbox_booking", columnList = "booking_id, status, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString(exclude = "payload")
+public class WebhookInboxEvent {
+
+    public enum Status {
+        PENDING,   // Waiting for its first attempt or a retry
+        PROCESSED, // Handled
+        IGNORED,   // Event type we don't act on
+        DEAD       // Gave up: out of attempts or unusable payload; needs an admin retry
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private String eventId; // Provider's event id (evt_...)
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    @Column(name = "booking_id")
+    private Long bookingId; // From the payment's metadata; null when the payload doesn't carry one
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public WebhookInboxEvent(String eventId, String eventType, Long bookingId, String payload) {
+        this.eventId = eventId;
+        this.eventType = eventType;
+        this.bookingId = bookingId;
+        this.payload = payload;
+        this.status = Status.PENDING;
+        this.receivedAt = LocalDateTime.now();
+        this.nextAttemptAt = this.receivedAt;
+    }
+}
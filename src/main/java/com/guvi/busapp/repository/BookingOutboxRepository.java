@@ -0,0 +1,45 @@
+// src/main/java/com/guvi/busapp/repository/BookingOutboxRepository.java
+package com.guvi.busapp.repository;
+
+import com.guvi.busapp.model.BookingOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BookingOutboxRepository extends JpaRepository<BookingOutboxEvent, Long> {
+
+    // Due rows, oldest first (idx_booking_outbox_due); Pageable is only used as a LIMIT
+    List<BookingOutboxEvent> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(BookingOutboxEvent.Status status,
+                                                                                  LocalDateTime now, Pageable limit);
+
+    // An earlier event of the same booking still waiting for a retry holds later ones back
+    boolean existsByBookingIdAndStatusAndIdLessThan(Long bookingId, BookingOutboxEvent.Status status, Long id);
+
+    long countByStatus(BookingOutboxEvent.Status status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BookingOutboxEvent e SET e.deliveredTo = :deliveredTo WHERE e.id = :id")
+    int markDelivered(@Param("id") Long id, @Param("deliveredTo") String deliveredTo);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BookingOutboxEvent e SET e.status = com.guvi.busapp.model.BookingOutboxEvent.Status.DISPATCHED, " +
+            "e.dispatchedAt = :now WHERE e.id = :id")
+    int markDispatched(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BookingOutboxEvent e SET e.status = :status, e.attempts = e.attempts + 1, e.lastError = :error, " +
+            "e.nextAttemptAt = :nextAttemptAt WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("status") BookingOutboxEvent.Status status,
+                      @Param("error") String error, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+}
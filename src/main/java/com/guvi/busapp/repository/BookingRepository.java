@@ -3,19 +3,81 @@ package com.guvi.busapp.repository;
 
 import com.guvi.busapp.model.Booking;
 import com.guvi.busapp.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query; // Import Query
 import org.springframework.data.repository.query.Param; // Import Param
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime; // Import LocalDateTime
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking> {
     // Find bookings by user, ordered by booking time descending
+    // Trip, bus, route and user come from the same join; passengers/amenities load in batches (@BatchSize)
+    @EntityGraph(attributePaths = {"user", "scheduledTrip", "scheduledTrip.bus", "scheduledTrip.route"})
     List<Booking> findByUserOrderByBookingTimeDesc(User user);
 
+    // Admin listing: same fetch plan as the user history
+    @Override
+    @EntityGraph(attributePaths = {"user", "scheduledTrip", "scheduledTrip.bus", "scheduledTrip.route"})
+    List<Booking> findAll(Sort sort);
+
+    // --- Keyset (seek) page, newest first: rows strictly before (afterTime, afterId) ---
+    // Pageable is only used as a LIMIT (always page 0); served by idx_bookings_time.
+    // User history pages are read from booking_view instead (BookingViewRepository.findUserPage).
+    @EntityGraph(attributePaths = {"user", "scheduledTrip", "scheduledTrip.bus", "scheduledTrip.route"})
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.bookingTime < :afterTime OR (b.bookingTime = :afterTime AND b.id < :afterId) " +
+            "ORDER BY b.bookingTime DESC, b.id DESC")
+    List<Booking> findBookingsPage(@Param("afterTime") LocalDateTime afterTime,
+                                   @Param("afterId") Long afterId,
+                                   Pageable limit);
+
+    // Booking view backfill: a chunk of bookings with the listing fetch plan
+    @EntityGraph(attributePaths = {"user", "scheduledTrip", "scheduledTrip.bus", "scheduledTrip.route"})
+    List<Booking> findByIdIn(Collection<Long> ids);
+
+    // Trip id only, without loading the booking (and its EAGER passengers)
+    @Query("SELECT b.scheduledTrip.id FROM Booking b WHERE b.id = :bookingId")
+    Optional<Long> findTripIdById(@Param("bookingId") Long bookingId);
+
+    // Reference code seeding at startup: the newest booking time, then the codes issued from a given time on
+    @Query("SELECT MAX(b.bookingTime) FROM Booking b")
+    LocalDateTime findLatestBookingTime();
+
+    @Query("SELECT b.referenceCode FROM Booking b WHERE b.bookingTime >= :since AND b.referenceCode IS NOT NULL")
+    List<String> findReferenceCodesBookedSince(@Param("since") LocalDateTime since);
+
+    // Locking read: sees the latest committed status even after earlier plain reads in the transaction
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findByIdForUpdate(@Param("id") Long id);
+
+    // Claims a PENDING booking for payment before any PaymentIntent exists; 0 once it was cancelled or expired.
+    // The row lock orders this against cancelBooking's locking read. An earlier attempt's timestamp is kept.
+    @Transactional
+    @Modifying
+    @Query("UPDATE Booking b SET b.paymentStartedAt = COALESCE(b.paymentStartedAt, :now) WHERE b.id = :id " +
+            "AND b.status = com.guvi.busapp.model.Booking.BookingStatus.PENDING")
+    int markPaymentStarted(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Undoes markPaymentStarted when no PaymentIntent was requested after all, unless an earlier attempt had set it
+    @Transactional
+    @Modifying
+    @Query("UPDATE Booking b SET b.paymentStartedAt = NULL WHERE b.id = :id AND b.paymentStartedAt = :startedAt")
+    int clearPaymentStarted(@Param("id") Long id, @Param("startedAt") LocalDateTime startedAt);
+
     // **** ADDED: Find PENDING bookings created before a certain time ****
     @Query("SELECT b FROM Booking b WHERE b.status = :status AND b.bookingTime < :expiryTime")
     List<Booking> findExpiredPendingBookings(@Param("expiryTime") LocalDateTime expiryTime, @Param("status") Booking.BookingStatus status);
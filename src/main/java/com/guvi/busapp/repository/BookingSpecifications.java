@@ -0,0 +1,73 @@
+// src/main/java/com/guvi/busapp/repository/BookingSpecifications.java
+package com.guvi.busapp.repository;
+
+import com.guvi.busapp.model.Booking;
+import com.guvi.busapp.model.User;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Building blocks for the admin booking search. Each predicate maps onto an indexed column so the
+ * combined query stays an index range scan: user -> idx_bookings_user_time, status -> idx_bookings_status_time,
+ * trip -> idx_bookings_trip, reference -> uk_bookings_reference_code, booking time alone -> idx_bookings_time.
+ */
+public final class BookingSpecifications {
+
+    private BookingSpecifications() {
+    }
+
+    public static Specification<Booking> hasId(Long id) {
+        return (root, query, cb) -> cb.equal(root.get("id"), id);
+    }
+
+    public static Specification<Booking> hasReference(String referenceCode) {
+        return (root, query, cb) -> cb.equal(root.get("referenceCode"), referenceCode);
+    }
+
+    public static Specification<Booking> belongsTo(User user) {
+        return (root, query, cb) -> cb.equal(root.get("user"), user);
+    }
+
+    public static Specification<Booking> hasStatus(Booking.BookingStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Booking> forTrip(Long tripId) {
+        return (root, query, cb) -> cb.equal(root.get("scheduledTrip").get("id"), tripId);
+    }
+
+    public static Specification<Booking> onRoute(Long routeId) {
+        return (root, query, cb) -> cb.equal(root.get("scheduledTrip").get("route").get("id"), routeId);
+    }
+
+    public static Specification<Booking> bookedAtOrAfter(LocalDateTime from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("bookingTime"), from);
+    }
+
+    public static Specification<Booking> bookedBefore(LocalDateTime before) {
+        return (root, query, cb) -> cb.lessThan(root.get("bookingTime"), before);
+    }
+
+    // Keyset seek for (bookingTime DESC, id DESC): rows strictly before (afterTime, afterId)
+    public static Specification<Booking> seekBefore(LocalDateTime afterTime, long afterId) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("bookingTime"), afterTime),
+                cb.and(cb.equal(root.get("bookingTime"), afterTime), cb.lessThan(root.get("id"), afterId)));
+    }
+
+    // Same fetch plan as the listing queries (user, trip, bus, route in one join); skipped for count queries
+    public static Specification<Booking> fetchListingGraph() {
+        return (root, query, cb) -> {
+            if (query != null && !Long.class.equals(query.getResultType()) && !long.class.equals(query.getResultType())) {
+                root.fetch("user", JoinType.INNER);
+                Fetch<Object, Object> trip = root.fetch("scheduledTrip", JoinType.INNER);
+                trip.fetch("bus", JoinType.INNER);
+                trip.fetch("route", JoinType.INNER);
+            }
+            return null; // No restriction
+        };
+    }
+}
@@ -0,0 +1,64 @@
+// src/main/java/com/guvi/busapp/repository/BookingViewRepository.java
+package com.guvi.busapp.repository;
+
+import com.guvi.busapp.model.BookingView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+@Repository
+public interface BookingViewRepository extends JpaRepository<BookingView, Long> {
+
+    // User history page, newest first: rows strictly before (afterTime, afterId).
+    // Single-table read on idx_booking_view_user_time; Pageable is only used as a LIMIT.
+    @Query("SELECT v FROM BookingView v WHERE v.userId = :userId " +
+            "AND (v.bookingTime < :afterTime OR (v.bookingTime = :afterTime AND v.bookingId < :afterId)) " +
+            "ORDER BY v.bookingTime DESC, v.bookingId DESC")
+    List<BookingView> findUserPage(@Param("userId") Long userId,
+                                   @Param("afterTime") LocalDateTime afterTime,
+                                   @Param("afterId") Long afterId,
+                                   Pageable limit);
+
+    // Bookings with no view row yet (created before the view existed), oldest first
+    @Query("SELECT b.id FROM Booking b WHERE b.id > :afterId " +
+            "AND NOT EXISTS (SELECT 1 FROM BookingView v WHERE v.bookingId = b.id) ORDER BY b.id ASC")
+    List<Long> findUnprojectedBookingIds(@Param("afterId") Long afterId, Pageable limit);
+
+    // --- Copies of trip, route and bus columns, refreshed in bulk when those are edited ---
+
+    @Modifying
+    @Query("UPDATE BookingView v SET v.departureDate = :departureDate, v.departureTime = :departureTime, " +
+            "v.arrivalTime = :arrivalTime, v.tripFare = :fare, v.updatedAt = :now WHERE v.tripId = :tripId")
+    int refreshTrip(@Param("tripId") Long tripId,
+                    @Param("departureDate") LocalDate departureDate,
+                    @Param("departureTime") LocalTime departureTime,
+                    @Param("arrivalTime") LocalTime arrivalTime,
+                    @Param("fare") BigDecimal fare,
+                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE BookingView v SET v.origin = :origin, v.destination = :destination, v.updatedAt = :now " +
+            "WHERE v.routeId = :routeId")
+    int refreshRoute(@Param("routeId") Long routeId,
+                     @Param("origin") String origin,
+                     @Param("destination") String destination,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE BookingView v SET v.busNumber = :busNumber, v.operatorName = :operatorName, " +
+            "v.busType = :busType, v.updatedAt = :now WHERE v.busId = :busId")
+    int refreshBus(@Param("busId") Long busId,
+                   @Param("busNumber") String busNumber,
+                   @Param("operatorName") String operatorName,
+                   @Param("busType") String busType,
+                   @Param("now") LocalDateTime now);
+}
@@ -2,13 +2,22 @@
 package com.guvi.busapp.repository;
 
 import com.guvi.busapp.model.Bus;
+import com.guvi.busapp.repository.projection.BusAmenityRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BusRepository extends JpaRepository<Bus, Long> {
     Optional<Bus> findByBusNumber(String busNumber); // Find by unique number
     Boolean existsByBusNumber(String busNumber);
-}
\ No newline at end of file
+
+    // Amenities for many buses in one statement (instead of one EAGER load per bus)
+    @Query("SELECT b.id AS busId, a AS amenity FROM Bus b JOIN b.amenities a WHERE b.id IN :busIds")
+    List<BusAmenityRow> findAmenitiesByBusIds(@Param("busIds") Collection<Long> busIds);
+}
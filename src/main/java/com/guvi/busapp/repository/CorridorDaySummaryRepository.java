@@ -0,0 +1,74 @@
+// src/main/java/com/guvi/busapp/repository/CorridorDaySummaryRepository.java
+package com.guvi.busapp.repository;
+
+import com.guvi.busapp.model.CorridorDaySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CorridorDaySummaryRepository extends JpaRepository<CorridorDaySummary, Long> {
+
+    // Single-row lookup on the unique (origin, destination, travel_date) index
+    Optional<CorridorDaySummary> findByOriginAndDestinationAndTravelDate(String origin, String destination, LocalDate travelDate);
+
+    List<CorridorDaySummary> findByOriginAndDestinationAndTravelDateBetweenOrderByTravelDateAsc(
+            String origin, String destination, LocalDate from, LocalDate to);
+
+    List<CorridorDaySummary> findByTravelDateGreaterThanEqual(LocalDate from);
+
+    // Seat-only change on a trip that stays bookable: adjust the running total in place
+    @Modifying
+    @Query("UPDATE CorridorDaySummary c SET c.totalAvailableSeats = c.totalAvailableSeats + :delta, c.updatedAt = :now " +
+            "WHERE c.origin = :origin AND c.destination = :destination AND c.travelDate = :date")
+    int applySeatDelta(@Param("origin") String origin,
+                       @Param("destination") String destination,
+                       @Param("date") LocalDate date,
+                       @Param("delta") int delta,
+                       @Param("now") LocalDateTime now);
+
+    // Recomputes one corridor-day from scheduled_trips in a single statement: inserts the row or, on the
+    // uk_corridor_day key, overwrites it, so concurrent recomputes can't race each other into a duplicate.
+    // The aggregate always yields one row, so a day with nothing bookable is written as zeros.
+    // MySQL syntax; the derived table lets the UPDATE clause refer to the new values without VALUES().
+    @Modifying
+    @Query(value = "INSERT INTO corridor_day_summary " +
+            "(origin, destination, travel_date, trip_count, min_fare, total_available_seats, updated_at) " +
+            "SELECT * FROM (SELECT :origin AS origin, :destination AS destination, :date AS travel_date, " +
+            "COUNT(st.id) AS trip_count, MIN(st.fare) AS min_fare, COALESCE(SUM(st.available_seats), 0) AS total_available_seats, " +
+            ":now AS updated_at " +
+            "FROM scheduled_trips st JOIN routes r ON r.id = st.route_id " +
+            "WHERE r.origin = :origin AND r.destination = :destination AND st.departure_date = :date " +
+            "AND st.available_seats > 0) AS incoming " +
+            "ON DUPLICATE KEY UPDATE trip_count = incoming.trip_count, min_fare = incoming.min_fare, " +
+            "total_available_seats = incoming.total_available_seats, updated_at = incoming.updated_at",
+            nativeQuery = true)
+    int upsertFromTrips(@Param("origin") String origin,
+                        @Param("destination") String destination,
+                        @Param("date") LocalDate date,
+                        @Param("now") LocalDateTime now);
+
+    // Same upsert with an aggregate the caller already has, for the bulk rebuild
+    @Modifying
+    @Query(value = "INSERT INTO corridor_day_summary " +
+            "(origin, destination, travel_date, trip_count, min_fare, total_available_seats, updated_at) " +
+            "VALUES (:origin, :destination, :date, :tripCount, :minFare, :seats, :now) AS incoming " +
+            "ON DUPLICATE KEY UPDATE trip_count = incoming.trip_count, min_fare = incoming.min_fare, " +
+            "total_available_seats = incoming.total_available_seats, updated_at = incoming.updated_at",
+            nativeQuery = true)
+    int upsert(@Param("origin") String origin,
+               @Param("destination") String destination,
+               @Param("date") LocalDate date,
+               @Param("tripCount") int tripCount,
+               @Param("minFare") BigDecimal minFare,
+               @Param("seats") int seats,
+               @Param("now") LocalDateTime now);
+}
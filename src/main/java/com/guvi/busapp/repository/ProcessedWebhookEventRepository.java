@@ -0,0 +1,21 @@
+// src/main/java/com/guvi/busapp/repository/ProcessedWebhookEventRepository.java
+package com.guvi.busapp.repository;
+
+import com.guvi.busapp.model.ProcessedWebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ProcessedWebhookEventRepository extends JpaRepository<ProcessedWebhookEvent, String> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ProcessedWebhookEvent e WHERE e.receivedAt < :cutoff")
+    int deleteReceivedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
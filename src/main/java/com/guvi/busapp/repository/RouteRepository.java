@@ -2,7 +2,9 @@
 package com.guvi.busapp.repository;
 
 import com.guvi.busapp.model.Route;
+import com.guvi.busapp.repository.projection.RouteEndpointCount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +14,9 @@ public interface RouteRepository extends JpaRepository<Route, Long> {
     // Find routes by origin and destination
     List<Route> findByOriginIgnoreCaseAndDestinationIgnoreCase(String origin, String destination);
     Boolean existsByOriginIgnoreCaseAndDestinationIgnoreCase(String origin, String destination);
-}
\ No newline at end of file
+
+    // Every route's endpoints with its scheduled trip count (popularity), in one statement
+    @Query("SELECT r.origin AS origin, r.destination AS destination, " +
+            "(SELECT COUNT(st) FROM ScheduledTrip st WHERE st.route = r) AS tripCount FROM Route r")
+    List<RouteEndpointCount> findRouteEndpointCounts();
+}
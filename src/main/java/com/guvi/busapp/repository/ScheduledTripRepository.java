@@ -3,14 +3,19 @@ package com.guvi.busapp.repository;
 
 import com.guvi.busapp.model.Route;
 import com.guvi.busapp.model.ScheduledTrip;
+import com.guvi.busapp.repository.projection.CorridorAggregate;
+import com.guvi.busapp.repository.projection.TripRow;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,16 +26,73 @@ public interface ScheduledTripRepository extends JpaRepository<ScheduledTrip, Lo
     @Query("SELECT st FROM ScheduledTrip st WHERE st.route = :route AND st.departureDate = :date AND st.availableSeats > 0")
     List<ScheduledTrip> findAvailableTripsByRouteAndDate(@Param("route") Route route, @Param("date") LocalDate date);
 
+    // --- Read-side projections: trip + bus + route scalars in one join, no entity hydration ---
+
     // Find trips between two locations on a specific date with available seats
-    @Query("SELECT st FROM ScheduledTrip st JOIN st.route r WHERE r.origin = :origin AND r.destination = :destination AND st.departureDate = :date AND st.availableSeats > 0")
-    List<ScheduledTrip> findAvailableTripsByLocationAndDate(
+    @Query(TripRow.SELECT + "WHERE r.origin = :origin AND r.destination = :destination " +
+            "AND st.departureDate = :date AND st.availableSeats > 0")
+    List<TripRow> findAvailableTripRowsByLocationAndDate(
             @Param("origin") String origin,
             @Param("destination") String destination,
             @Param("date") LocalDate date);
 
+    @Query(TripRow.SELECT + "WHERE st.id = :id")
+    Optional<TripRow> findTripRowById(@Param("id") Long id);
+
+    @Query(TripRow.SELECT + "ORDER BY st.departureDate DESC, st.departureTime DESC, st.id DESC")
+    List<TripRow> findAllTripRows();
+
+    // --- Keyset (seek) pages for trip search: rows strictly after (lastValue, lastId) in sort order ---
+    // Pageable is only used as a LIMIT (always page 0); the WHERE clause does the skipping, never OFFSET.
+
+    @Query(TripRow.SELECT + "WHERE r.origin = :origin AND r.destination = :destination " +
+            "AND st.departureDate = :date AND st.availableSeats > 0 " +
+            "AND (st.departureTime > :afterTime OR (st.departureTime = :afterTime AND st.id > :afterId)) " +
+            "ORDER BY st.departureTime ASC, st.id ASC")
+    List<TripRow> findAvailableTripsPageByDepartureTime(
+            @Param("origin") String origin,
+            @Param("destination") String destination,
+            @Param("date") LocalDate date,
+            @Param("afterTime") LocalTime afterTime,
+            @Param("afterId") Long afterId,
+            Pageable limit);
+
+    @Query(TripRow.SELECT + "WHERE r.origin = :origin AND r.destination = :destination " +
+            "AND st.departureDate = :date AND st.availableSeats > 0 " +
+            "AND (st.fare > :afterFare OR (st.fare = :afterFare AND st.id > :afterId)) " +
+            "ORDER BY st.fare ASC, st.id ASC")
+    List<TripRow> findAvailableTripsPageByFare(
+            @Param("origin") String origin,
+            @Param("destination") String destination,
+            @Param("date") LocalDate date,
+            @Param("afterFare") BigDecimal afterFare,
+            @Param("afterId") Long afterId,
+            Pageable limit);
+
+    @Query(TripRow.SELECT + "WHERE r.origin = :origin AND r.destination = :destination " +
+            "AND st.departureDate = :date AND st.availableSeats > 0 " +
+            "AND (st.availableSeats < :afterSeats OR (st.availableSeats = :afterSeats AND st.id > :afterId)) " +
+            "ORDER BY st.availableSeats DESC, st.id ASC")
+    List<TripRow> findAvailableTripsPageByAvailableSeats(
+            @Param("origin") String origin,
+            @Param("destination") String destination,
+            @Param("date") LocalDate date,
+            @Param("afterSeats") Integer afterSeats,
+            @Param("afterId") Long afterId,
+            Pageable limit);
+
     // Find by ID with Pessimistic Write Lock
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT st FROM ScheduledTrip st WHERE st.id = :id")
     Optional<ScheduledTrip> findByIdForUpdate(@Param("id") Long id);
 
-}
\ No newline at end of file
+
+    // --- Corridor-day availability aggregates (source for corridor_day_summary) ---
+
+    @Query("SELECT r.origin AS origin, r.destination AS destination, st.departureDate AS travelDate, " +
+            "COUNT(st) AS tripCount, MIN(st.fare) AS minFare, SUM(st.availableSeats) AS totalAvailableSeats " +
+            "FROM ScheduledTrip st JOIN st.route r " +
+            "WHERE st.departureDate >= :from AND st.availableSeats > 0 " +
+            "GROUP BY r.origin, r.destination, st.departureDate")
+    List<CorridorAggregate> aggregateCorridorDaysFrom(@Param("from") LocalDate from);
+}
@@ -0,0 +1,48 @@
+// src/main/java/com/guvi/busapp/repository/WebhookInboxRepository.java
+package com.guvi.busapp.repository;
+
+import com.guvi.busapp.model.WebhookInboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WebhookInboxRepository extends JpaRepository<WebhookInboxEvent, Long> {
+
+    // Due rows, oldest first (idx_webhook_inbox_due); Pageable is only used as a LIMIT
+    List<WebhookInboxEvent> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(WebhookInboxEvent.Status status,
+                                                                                  LocalDateTime now, Pageable limit);
+
+    // An earlier event of the same booking still waiting for a retry holds later ones back
+    boolean existsByBookingIdAndStatusAndIdLessThan(Long bookingId, WebhookInboxEvent.Status status, Long id);
+
+    List<WebhookInboxEvent> findByStatusOrderByIdDesc(WebhookInboxEvent.Status status, Pageable limit);
+
+    long countByStatus(WebhookInboxEvent.Status status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookInboxEvent e SET e.status = :status, e.processedAt = :now, e.attempts = e.attempts + 1 WHERE e.id = :id")
+    int markDone(@Param("id") Long id, @Param("status") WebhookInboxEvent.Status status, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookInboxEvent e SET e.status = :status, e.attempts = e.attempts + 1, e.lastError = :error, " +
+            "e.nextAttemptAt = :nextAttemptAt WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("status") WebhookInboxEvent.Status status,
+                      @Param("error") String error, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    // Admin retry of a dead-lettered event: back to PENDING, due now, with a fresh attempt budget
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookInboxEvent e SET e.status = com.guvi.busapp.model.WebhookInboxEvent.Status.PENDING, " +
+            "e.attempts = 0, e.nextAttemptAt = :now WHERE e.id = :id AND e.status = com.guvi.busapp.model.WebhookInboxEvent.Status.DEAD")
+    int requeueDead(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,10 @@
+// src/main/java/com/guvi/busapp/repository/projection/BusAmenityRow.java
+package com.guvi.busapp.repository.projection;
+
+/**
+ * Interface projection: one (bus, amenity) pair from the bus_amenities collection table.
+ */
+public interface BusAmenityRow {
+    Long getBusId();
+    String getAmenity();
+}
@@ -0,0 +1,18 @@
+// src/main/java/com/guvi/busapp/repository/projection/CorridorAggregate.java
+package com.guvi.busapp.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Interface projection: availability of one corridor-day aggregated over scheduled_trips.
+ * Source rows for rebuilding corridor_day_summary.
+ */
+public interface CorridorAggregate {
+    String getOrigin();
+    String getDestination();
+    LocalDate getTravelDate();
+    Long getTripCount();
+    BigDecimal getMinFare();
+    Long getTotalAvailableSeats();
+}
@@ -0,0 +1,12 @@
+// src/main/java/com/guvi/busapp/repository/projection/RouteEndpointCount.java
+package com.guvi.busapp.repository.projection;
+
+/**
+ * Interface projection: a route's endpoints plus how many trips are scheduled on it.
+ * Used to rank location suggestions by route popularity.
+ */
+public interface RouteEndpointCount {
+    String getOrigin();
+    String getDestination();
+    Long getTripCount();
+}
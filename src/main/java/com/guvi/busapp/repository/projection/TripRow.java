@@ -0,0 +1,47 @@
+// src/main/java/com/guvi/busapp/repository/projection/TripRow.java
+package com.guvi.busapp.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Constructor projection: the scalar columns of a trip, its bus and its route, read in
+ * one join. Never managed by the persistence context, so no dirty checking and no
+ * lazy or EAGER association loads. Bus amenities are fetched separately in one batch.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class TripRow {
+
+    // Select list shared by every TripRow query; order must match the constructor
+    public static final String SELECT = "SELECT new com.guvi.busapp.repository.projection.TripRow(" +
+            "st.id, st.departureDate, st.departureTime, st.arrivalTime, st.fare, st.availableSeats, " +
+            "b.id, b.busNumber, b.operatorName, b.busType, b.totalSeats, b.seatLayout, b.amenityMask, " +
+            "r.id, r.origin, r.destination) " +
+            "FROM ScheduledTrip st JOIN st.bus b JOIN st.route r ";
+
+    private final Long id;
+    private final LocalDate departureDate;
+    private final LocalTime departureTime;
+    private final LocalTime arrivalTime;
+    private final BigDecimal fare;
+    private final Integer availableSeats;
+
+    private final Long busId;
+    private final String busNumber;
+    private final String operatorName;
+    private final String busType;
+    private final Integer totalSeats;
+    private final String seatLayout;
+    private final int amenityMask;
+
+    private final Long routeId;
+    private final String origin;
+    private final String destination;
+}
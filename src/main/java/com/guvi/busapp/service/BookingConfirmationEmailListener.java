@@ -0,0 +1,58 @@
+// src/main/java/com/guvi/busapp/service/BookingConfirmationEmailListener.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.event.BookingLifecycleEvent;
+import com.guvi.busapp.model.Booking;
+import com.guvi.busapp.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Sends the confirmation email for CONFIRMED outbox events, outside the payment webhook's
+ * transaction. Outbox delivery is at-least-once, so a retried event can repeat the email.
+ */
+@Component
+public class BookingConfirmationEmailListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingConfirmationEmailListener.class);
+
+    private final BookingRepository bookingRepository;
+    private final EmailService emailService;
+
+    @Autowired
+    public BookingConfirmationEmailListener(BookingRepository bookingRepository,
+                                            ObjectProvider<EmailService> emailService) {
+        this.bookingRepository = bookingRepository;
+        this.emailService = emailService.getIfAvailable();
+    }
+
+    @EventListener
+    @Transactional(readOnly = true)
+    public void onBookingLifecycle(BookingLifecycleEvent event) {
+        if (event.getType() != BookingLifecycleEvent.Type.CONFIRMED) return;
+        if (emailService == null) {
+            logger.warn("EmailService not available. Skipping confirmation email for booking ID: {}", event.getBookingId());
+            return;
+        }
+        Booking booking = bookingRepository.findById(event.getBookingId()).orElse(null);
+        if (booking == null) {
+            logger.warn("Booking ID {} from outbox event {} no longer exists. Skipping confirmation email.", event.getBookingId(), event.getOutboxId());
+            return;
+        }
+        // Initialize lazy associations here; the email is rendered on another thread after this returns
+        if (booking.getUser() != null) booking.getUser().getEmail();
+        if (booking.getScheduledTrip() != null) {
+            if (booking.getScheduledTrip().getBus() != null) booking.getScheduledTrip().getBus().getId();
+            if (booking.getScheduledTrip().getRoute() != null) booking.getScheduledTrip().getRoute().getId();
+        }
+        booking.getPassengers().size();
+
+        logger.info("Sending confirmation email for booking ID: {}", booking.getId());
+        emailService.sendBookingConfirmation(booking);
+    }
+}
@@ -0,0 +1,27 @@
+// src/main/java/com/guvi/busapp/service/BookingExportService.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.model.Booking;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Service interface for bulk booking exports (finance reporting).
+ */
+public interface BookingExportService {
+
+    enum Format { CSV, NDJSON }
+
+    /**
+     * Streams bookings made between {@code from} and {@code to} (inclusive, by booking date), oldest first,
+     * straight from a forward-only database cursor to {@code out}. Memory use does not grow with the row count.
+     *
+     * @param status optional status filter; null exports every status.
+     * @return the number of rows written.
+     * @throws IllegalArgumentException if the date range is inverted.
+     */
+    long exportBookings(LocalDate from, LocalDate to, Booking.BookingStatus status, Format format, OutputStream out)
+            throws IOException, IllegalArgumentException;
+}
@@ -0,0 +1,234 @@
+// src/main/java/com/guvi/busapp/service/BookingExportServiceImpl.java
+package com.guvi.busapp.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.guvi.busapp.model.Booking;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class BookingExportServiceImpl implements BookingExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingExportServiceImpl.class);
+
+    static final String[] COLUMNS = {
+            "booking_id", "booking_time", "status", "seats", "total_fare", "user_email", "user_name",
+            "trip_id", "departure_date", "departure_time", "origin", "destination", "bus_number", "operator_name"
+    };
+
+    // Plain JDBC rather than JPA: no entities, no persistence context, no EAGER passenger loads per row.
+    // Range scan on idx_bookings_time.
+    private static final String EXPORT_SQL =
+            "SELECT b.id, b.booking_time, b.status, b.number_of_seats, b.total_fare, " +
+            "u.email, u.first_name, u.last_name, " +
+            "st.id AS trip_id, st.departure_date, st.departure_time, r.origin, r.destination, bus.bus_number, bus.operator_name " +
+            "FROM bookings b " +
+            "JOIN users u ON u.id = b.user_id " +
+            "JOIN scheduled_trips st ON st.id = b.trip_id " +
+            "JOIN routes r ON r.id = st.route_id " +
+            "JOIN buses bus ON bus.id = st.bus_id " +
+            "WHERE b.booking_time >= ? AND b.booking_time < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * @param fetchSize JDBC fetch size for the export cursor. Integer.MIN_VALUE (the default) makes MySQL
+     *                  Connector/J stream rows one at a time instead of buffering the whole result set.
+     */
+    @Autowired
+    public BookingExportServiceImpl(JdbcTemplate jdbcTemplate,
+                                    @Value("${busapp.export.fetch-size:-2147483648}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public long exportBookings(LocalDate from, LocalDate to, Booking.BookingStatus status, Format format, OutputStream out)
+            throws IOException, IllegalArgumentException {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Export start date must not be after its end date.");
+        }
+        StringBuilder sql = new StringBuilder(EXPORT_SQL);
+        List<Object> args = new ArrayList<>();
+        args.add(from.atStartOfDay());
+        args.add(to.plusDays(1).atStartOfDay());
+        if (status != null) {
+            sql.append(" AND b.status = ?");
+            args.add(status.name());
+        }
+        sql.append(" ORDER BY b.booking_time, b.id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowWriter rowWriter = format == Format.NDJSON ? new NdjsonRowWriter(writer) : new CsvRowWriter(writer);
+        long[] rows = {0};
+        long started = System.currentTimeMillis();
+        try {
+            rowWriter.start();
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < args.size(); i++) {
+                    ps.setObject(i + 1, args.get(i));
+                }
+                return ps;
+            }, rs -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // Client went away; abort the cursor
+                }
+                rows[0]++;
+            });
+            rowWriter.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        logger.info("Exported {} bookings ({} to {}, status={}, format={}) in {} ms.",
+                rows[0], from, to, status != null ? status : "ANY", format, System.currentTimeMillis() - started);
+        return rows[0];
+    }
+
+    // --- Row writers: one row in, one line out; nothing is retained between rows ---
+
+    interface RowWriter {
+        void start() throws IOException;
+        void write(ResultSet rs) throws SQLException, IOException;
+        void finish() throws IOException;
+    }
+
+    static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            Object[] values = values(rs);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) writer.write(',');
+                writer.write(escape(values[i]));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        // RFC 4180: quote fields containing separators, quotes or line breaks; double embedded quotes.
+        // Text a spreadsheet would run as a formula (=, +, -, @, tab, CR first) is prefixed with '
+        // and quoted, so a customer's name or email can't execute in finance's spreadsheet.
+        static String escape(Object value) {
+            if (value == null) return "";
+            String text = value.toString();
+            if (value instanceof CharSequence && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+                return "\"'" + text.replace("\"", "\"\"") + '"';
+            }
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void start() throws IOException {
+            generator = jsonFactory.createGenerator(writer);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null); // Lines are separated explicitly below, not by the default space
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            Object[] values = values(rs);
+            generator.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                Object value = values[i];
+                generator.writeFieldName(COLUMNS[i]);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Long) {
+                    generator.writeNumber((Long) value);
+                } else if (value instanceof Integer) {
+                    generator.writeNumber((Integer) value);
+                } else if (value instanceof BigDecimal) {
+                    generator.writeNumber((BigDecimal) value);
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close(); // Flushes; the target stays open (AUTO_CLOSE_TARGET disabled)
+        }
+    }
+
+    // Column order matches COLUMNS
+    static Object[] values(ResultSet rs) throws SQLException {
+        String firstName = rs.getString("first_name");
+        String lastName = rs.getString("last_name");
+        return new Object[]{
+                rs.getLong("id"),
+                rs.getObject("booking_time", LocalDateTime.class),
+                rs.getString("status"),
+                rs.getInt("number_of_seats"),
+                rs.getBigDecimal("total_fare"),
+                rs.getString("email"),
+                ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim(),
+                rs.getLong("trip_id"),
+                rs.getObject("departure_date", LocalDate.class),
+                rs.getObject("departure_time", LocalTime.class),
+                rs.getString("origin"),
+                rs.getString("destination"),
+                rs.getString("bus_number"),
+                rs.getString("operator_name")
+        };
+    }
+}
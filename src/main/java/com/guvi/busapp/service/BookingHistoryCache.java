@@ -0,0 +1,210 @@
+// src/main/java/com/guvi/busapp/service/BookingHistoryCache.java
+package com.guvi.busapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.guvi.busapp.dto.BookingPageDto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-user cache of booking history pages, so a customer refreshing the history page while
+ * a payment settles is served from memory. BookingViewProjector evicts a user's pages after
+ * every commit that changes one of their bookings (created, confirmed, failed, expired,
+ * cancelled), and evicts everything after trip, route or bus edits. Each page carries an
+ * ETag computed from its content, so an unchanged page can be answered with 304.
+ *
+ * Eviction is local to this instance. On a multi-instance deployment another node's cached
+ * page can stay stale until the TTL expires.
+ * Exposed as busapp.booking.history.cache{result=hit|miss} and busapp.booking.history.cache.users.
+ */
+@Component
+public class BookingHistoryCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingHistoryCache.class);
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules().build();
+    private static final int STRIPES = 1024;
+    private static final int MAX_PAGES_PER_USER = 8;
+
+    public record CachedPage(BookingPageDto page, String etag, long expiresAtMillis) {
+
+        // If-None-Match per RFC 9110: "*" or any listed tag equal to ours under weak comparison
+        public boolean isMatchedBy(String ifNoneMatch) {
+            return matchesAny(ifNoneMatch, etag);
+        }
+    }
+
+    private final long ttlMillis;
+    private final int maxUsers;
+    private final Map<String, Map<String, CachedPage>> pagesByUser = new ConcurrentHashMap<>();
+    // Bumped on every eviction; a load only fills the cache if its user's stripe didn't move meanwhile
+    private final AtomicLongArray userVersions = new AtomicLongArray(STRIPES);
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public BookingHistoryCache(@Value("${busapp.booking.history-cache.ttl-seconds:30}") long ttlSeconds,
+                               @Value("${busapp.booking.history-cache.max-users:10000}") int maxUsers) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxUsers = maxUsers;
+    }
+
+    public CachedPage getPage(String userEmail, String cursor, int size, Supplier<BookingPageDto> loader) {
+        String user = userKey(userEmail);
+        String pageKey = (cursor != null ? cursor : "") + "|" + size;
+        long now = System.currentTimeMillis();
+
+        Map<String, CachedPage> pages = pagesByUser.get(user);
+        CachedPage cached = pages != null ? pages.get(pageKey) : null;
+        if (cached != null && cached.expiresAtMillis() > now) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        int stripe = stripe(user);
+        long userVersion = userVersions.get(stripe);
+        long global = globalVersion.get();
+        BookingPageDto page = loader.get(); // Exceptions propagate and nothing is cached
+        CachedPage loaded = new CachedPage(page, etag(page), now + ttlMillis);
+
+        if (ttlMillis > 0 && (pagesByUser.containsKey(user) || pagesByUser.size() < maxUsers || purgeExpired(now))) {
+            // The version check runs under the map's lock for this user, so an eviction can't slip between check and insert
+            pagesByUser.compute(user, (key, existing) -> {
+                if (userVersions.get(stripe) != userVersion || globalVersion.get() != global) {
+                    return existing; // The user's bookings changed while loading: don't cache what may be stale
+                }
+                Map<String, CachedPage> userPages = existing != null ? existing : new ConcurrentHashMap<>();
+                if (userPages.size() >= MAX_PAGES_PER_USER && !userPages.containsKey(pageKey)) {
+                    userPages.clear();
+                }
+                userPages.put(pageKey, loaded);
+                return userPages;
+            });
+        }
+        return loaded;
+    }
+
+    // Drops the user's pages once the current transaction commits (immediately when there is none)
+    public void evictAfterCommit(String userEmail) {
+        if (userEmail == null) return;
+        runAfterCommit(() -> evict(userKey(userEmail)));
+    }
+
+    public void evictAllAfterCommit() {
+        runAfterCommit(this::evictAll);
+    }
+
+    void evict(String user) {
+        userVersions.incrementAndGet(stripe(user)); // Bump first: a load that finishes after this won't be stored
+        pagesByUser.remove(user);
+    }
+
+    void evictAll() {
+        globalVersion.incrementAndGet();
+        pagesByUser.clear();
+        logger.debug("Booking history cache cleared.");
+    }
+
+    private void runAfterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        // Evicting before commit would let a concurrent reader cache the pre-commit rows again
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+
+    private boolean purgeExpired(long now) {
+        pagesByUser.entrySet().removeIf(entry -> entry.getValue().values().stream().allMatch(p -> p.expiresAtMillis() <= now));
+        return pagesByUser.size() < maxUsers;
+    }
+
+    // Hash of what the client would receive, so the tag stays valid across restarts and instances
+    static String etag(BookingPageDto page) {
+        try {
+            return "\"" + DigestUtils.md5DigestAsHex(MAPPER.writeValueAsBytes(page)) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize booking history page for its ETag.", e);
+        }
+    }
+
+    // Walks the comma-separated entity-tags; W/ prefixes are ignored, as weak comparison requires.
+    // Stops at anything malformed, which then matches nothing and gets a full response.
+    static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        if (ifNoneMatch.trim().equals("*")) return true;
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        int i = 0;
+        int length = ifNoneMatch.length();
+        while (i < length) {
+            char c = ifNoneMatch.charAt(i);
+            if (c == ',' || c == ' ' || c == '\t') {
+                i++;
+                continue;
+            }
+            if (ifNoneMatch.startsWith("W/", i)) i += 2;
+            if (i >= length || ifNoneMatch.charAt(i) != '"') return false;
+            int end = ifNoneMatch.indexOf('"', i + 1);
+            if (end < 0) return false;
+            if (ifNoneMatch.regionMatches(i, opaque, 0, opaque.length()) && end + 1 - i == opaque.length()) return true;
+            i = end + 1;
+        }
+        return false;
+    }
+
+    private static String userKey(String userEmail) {
+        return userEmail.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int stripe(String user) {
+        return Math.floorMod(user.hashCode(), STRIPES);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("busapp.booking.history.cache", hits, LongAdder::sum)
+                .description("Booking history pages served from the cache")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("busapp.booking.history.cache", misses, LongAdder::sum)
+                .description("Booking history pages loaded from booking_view")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("busapp.booking.history.cache.users", pagesByUser, Map::size)
+                .description("Users with cached booking history pages")
+                .register(registry);
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,58 @@
+// src/main/java/com/guvi/busapp/service/BookingOutbox.java
+package com.guvi.busapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guvi.busapp.event.BookingLifecycleEvent;
+import com.guvi.busapp.model.Booking;
+import com.guvi.busapp.model.BookingOutboxEvent;
+import com.guvi.busapp.repository.BookingOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes booking state changes to the booking_outbox table and re-projects the booking's
+ * booking_view row. Must be called inside the transaction that makes the change, so both
+ * commit or roll back with it; nothing slow happens here; delivery is OutboxDispatcher's job.
+ */
+@Component
+public class BookingOutbox {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final BookingOutboxRepository outboxRepository;
+    private final BookingViewProjector viewProjector;
+
+    @Autowired
+    public BookingOutbox(BookingOutboxRepository outboxRepository, BookingViewProjector viewProjector) {
+        this.outboxRepository = outboxRepository;
+        this.viewProjector = viewProjector;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Booking booking, BookingLifecycleEvent.Type type) {
+        outboxRepository.save(new BookingOutboxEvent(booking.getId(), type, payload(booking)));
+        viewProjector.project(booking);
+    }
+
+    static String payload(Booking booking) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("bookingId", booking.getId());
+        snapshot.put("status", booking.getStatus() != null ? booking.getStatus().name() : null);
+        snapshot.put("userId", booking.getUser() != null ? booking.getUser().getId() : null);
+        snapshot.put("tripId", booking.getScheduledTrip() != null ? booking.getScheduledTrip().getId() : null);
+        snapshot.put("numberOfSeats", booking.getNumberOfSeats());
+        snapshot.put("totalFare", booking.getTotalFare() != null ? booking.getTotalFare().toPlainString() : null);
+        snapshot.put("bookingTime", booking.getBookingTime() != null ? booking.getBookingTime().toString() : null);
+        try {
+            return MAPPER.writeValueAsString(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize outbox payload for booking " + booking.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+// src/main/java/com/guvi/busapp/service/BookingReferenceGenerator.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.repository.BookingRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Short customer-facing booking references such as "7K3QX9M2B4TP", generated in memory with no
+ * database round trip. Each code packs seconds since 2024-01-01 (31 bits), a node id (10 bits)
+ * and a per-second counter (12 bits), so instances with distinct node ids never collide. The
+ * counter state lives in memory only, so on startup the generator reads back the codes of the
+ * latest bookings and continues after the newest second they used. That covers a restart within
+ * the same second, seconds borrowed ahead of the clock during a burst and a clock set back a few
+ * minutes; uk_bookings_reference_code still rejects anything that slips through. The 53-bit value is
+ * scrambled with a reversible mix so consecutive bookings don't look consecutive (this hides
+ * volume, it is not encryption), written as 11 Crockford base32 characters, and followed by
+ * a Luhn mod 32 check character so typos are rejected before any lookup.
+ */
+@Component
+public class BookingReferenceGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingReferenceGenerator.class);
+
+    static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ"; // Crockford: no I, L, O, U
+    public static final int LENGTH = 12;
+
+    private static final long EPOCH_SECONDS = 1704067200L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final int VALUE_BITS = 55; // 11 base32 characters
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+    private static final long MULTIPLIER = 0x5DEECE66DL | 1L; // Odd, so multiplication mod 2^55 is invertible
+
+    private static final long INVERSE_MULTIPLIER = inverse(MULTIPLIER);
+    // Bookings this far behind the newest one are read back at startup; bursts borrow seconds well within it
+    private static final long SEED_WINDOW_MINUTES = 10;
+
+    private final long nodeId;
+    private final BookingRepository bookingRepository;
+    private long lastSecond = -1;
+    private long sequence;
+
+    public BookingReferenceGenerator(long nodeId) {
+        this(nodeId, null);
+    }
+
+    @Autowired
+    public BookingReferenceGenerator(@Value("${busapp.booking.reference.node-id:-1}") long nodeId,
+                                     BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+        if (nodeId < 0) {
+            // Fine for a single instance; multi-instance deployments must give each node its own id
+            nodeId = ThreadLocalRandom.current().nextLong(MAX_NODE + 1);
+            logger.warn("busapp.booking.reference.node-id not set; using random node id {} for booking references.", nodeId);
+        }
+        if (nodeId > MAX_NODE) {
+            throw new IllegalArgumentException("busapp.booking.reference.node-id must be between 0 and " + MAX_NODE + ".");
+        }
+        this.nodeId = nodeId;
+    }
+
+    @PostConstruct
+    void seedFromIssuedCodes() {
+        if (bookingRepository == null) return;
+        LocalDateTime latest = bookingRepository.findLatestBookingTime();
+        if (latest == null) return;
+        List<String> issued = bookingRepository.findReferenceCodesBookedSince(latest.minusMinutes(SEED_WINDOW_MINUTES));
+        seed(issued);
+        logger.info("Booking references continue after second {} ({} recent codes read back).", lastSecond, issued.size());
+    }
+
+    // Moves the counter past every second used by the given codes, so none of them can be issued again
+    synchronized void seed(Collection<String> issuedCodes) {
+        for (String code : issuedCodes) {
+            long second = secondOf(code);
+            if (second > lastSecond || (second == lastSecond && sequence < MAX_SEQUENCE)) {
+                lastSecond = second;
+                sequence = MAX_SEQUENCE; // The next code moves on to the following second
+            }
+        }
+    }
+
+    // Seconds since the epoch packed into a well-formed code; -1 for anything else
+    static long secondOf(String code) {
+        if (code == null || code.length() != LENGTH) return -1;
+        long value = 0;
+        for (int i = 0; i < LENGTH - 1; i++) {
+            int digit = ALPHABET.indexOf(code.charAt(i));
+            if (digit < 0) return -1;
+            value = (value << 5) | digit;
+        }
+        return unscramble(value) >>> (NODE_BITS + SEQUENCE_BITS);
+    }
+
+    public String next() {
+        long raw;
+        synchronized (this) {
+            long second = Math.max(Instant.now().getEpochSecond() - EPOCH_SECONDS, lastSecond); // Never step back with the clock
+            if (second == lastSecond) {
+                if (sequence == MAX_SEQUENCE) {
+                    second = lastSecond + 1; // 4096 codes this second already: borrow the next one
+                    sequence = 0;
+                } else {
+                    sequence++;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastSecond = second;
+            raw = (second << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+        }
+        char[] code = new char[LENGTH];
+        long value = scramble(raw);
+        for (int i = LENGTH - 2; i >= 0; i--) {
+            code[i] = ALPHABET.charAt((int) (value & 31));
+            value >>>= 5;
+        }
+        code[LENGTH - 1] = ALPHABET.charAt(checkDigit(code, LENGTH - 1));
+        return new String(code);
+    }
+
+    /**
+     * Canonical form of a reference typed by a customer: upper case, separators dropped and the
+     * Crockford look-alikes (I, L -> 1, O -> 0) folded. Null when it can't be a valid reference.
+     */
+    public static String normalize(String input) {
+        if (input == null) return null;
+        StringBuilder code = new StringBuilder(LENGTH);
+        for (char c : input.toUpperCase(Locale.ROOT).toCharArray()) {
+            if (c == '-' || c == ' ') continue;
+            if (c == 'I' || c == 'L') c = '1';
+            if (c == 'O') c = '0';
+            if (ALPHABET.indexOf(c) < 0) return null;
+            code.append(c);
+        }
+        if (code.length() != LENGTH) return null;
+        char[] chars = code.toString().toCharArray();
+        return ALPHABET.charAt(checkDigit(chars, LENGTH - 1)) == chars[LENGTH - 1] ? code.toString() : null;
+    }
+
+    // Luhn mod 32 over the first `length` characters: catches every single-character error and almost every adjacent swap
+    private static int checkDigit(char[] code, int length) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = length - 1; i >= 0; i--) {
+            int addend = ALPHABET.indexOf(code[i]);
+            if (doubled) {
+                addend *= 2;
+                addend = addend / 32 + addend % 32;
+            }
+            sum += addend;
+            doubled = !doubled;
+        }
+        return (32 - sum % 32) % 32;
+    }
+
+    // Bijection on 55-bit values: odd multiply and xor-shift, twice
+    private static long scramble(long value) {
+        for (int round = 0; round < 2; round++) {
+            value = (value * MULTIPLIER) & VALUE_MASK;
+            value ^= value >>> 29;
+        }
+        return value;
+    }
+
+    // Inverse of scramble: the xor-shift by more than half the width undoes itself
+    private static long unscramble(long value) {
+        for (int round = 0; round < 2; round++) {
+            value ^= value >>> 29;
+            value = (value * INVERSE_MULTIPLIER) & VALUE_MASK;
+        }
+        return value;
+    }
+
+    // Multiplicative inverse of an odd number mod 2^64 (and so mod 2^55), by Newton's iteration
+    private static long inverse(long odd) {
+        long inverse = odd;
+        for (int i = 0; i < 5; i++) {
+            inverse *= 2 - odd * inverse;
+        }
+        return inverse;
+    }
+}
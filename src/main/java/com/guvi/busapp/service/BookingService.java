@@ -1,8 +1,11 @@
 // src/main/java/com/guvi/busapp/service/BookingService.java
 package com.guvi.busapp.service;
 
+import com.guvi.busapp.dto.BookingPageDto;
 import com.guvi.busapp.dto.BookingRequestDto;
 import com.guvi.busapp.dto.BookingResponseDto;
+import com.guvi.busapp.dto.BookingSearchCriteria;
+import com.guvi.busapp.dto.GroupBookingItemResultDto;
 import com.guvi.busapp.exception.ResourceNotFoundException;
 import com.guvi.busapp.exception.SeatUnavailableException;
 
@@ -13,9 +16,31 @@ import java.util.List;
  */
 public interface BookingService {
 
+    int DEFAULT_PAGE_SIZE = 20;
+    int MAX_PAGE_SIZE = 100;
+
     BookingResponseDto createBooking(BookingRequestDto bookingRequest, String userEmail)
             throws ResourceNotFoundException, SeatUnavailableException, IllegalArgumentException;
 
+    /**
+     * Single-call checkout: validates the request, holds the seats and creates the PENDING booking with its
+     * passengers under one trip row lock. Seats must be AVAILABLE; no prior POST /lock-seats is needed.
+     */
+    BookingResponseDto checkout(BookingRequestDto bookingRequest, String userEmail)
+            throws ResourceNotFoundException, SeatUnavailableException, IllegalArgumentException;
+
+    /**
+     * Group checkout for one trip: every request must target {@code tripId}. The trip row is locked once and
+     * each request is checked against the seats still free at that point, so later requests see seats taken
+     * by earlier ones. A request that fails validation or seat checks is reported and skipped; the others
+     * are booked together.
+     *
+     * @return one result per request, in request order (indexes are left for the caller to set).
+     * @throws ResourceNotFoundException if the user or the trip doesn't exist (nothing is booked).
+     */
+    List<GroupBookingItemResultDto> checkoutTripGroup(Long tripId, List<BookingRequestDto> bookingRequests, String userEmail)
+            throws ResourceNotFoundException;
+
     List<BookingResponseDto> getBookingsByUser(String userEmail)
             throws ResourceNotFoundException;
 
@@ -28,4 +53,47 @@ public interface BookingService {
      */
     List<BookingResponseDto> getAllBookings();
 
+    /**
+     * One page of the user's bookings, newest first, keyset-paginated on (bookingTime, id).
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page.
+     * @param size   page size, clamped to 1..{@link #MAX_PAGE_SIZE}.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    BookingPageDto getBookingsByUser(String userEmail, String cursor, int size)
+            throws ResourceNotFoundException, IllegalArgumentException;
+
+    /**
+     * One page of all bookings, newest first, keyset-paginated on (bookingTime, id). Intended for Admin use.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    BookingPageDto getAllBookings(String cursor, int size) throws IllegalArgumentException;
+
+    /**
+     * Admin search: any combination of booking id, user email, trip, route, status and booking date range,
+     * newest first and keyset-paginated like {@link #getAllBookings(String, int)}.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or the date range is inverted.
+     */
+    BookingPageDto searchBookings(BookingSearchCriteria criteria) throws IllegalArgumentException;
+
+    /**
+     * Customer cancellation of a PENDING or CONFIRMED booking, allowed until the configured cutoff before
+     * departure. The booking's seats go straight back to AVAILABLE and the trip's availableSeats is restored.
+     *
+     * @throws ResourceNotFoundException if the booking doesn't exist or belongs to another user.
+     * @throws IllegalArgumentException  if the booking isn't cancellable or the cutoff has passed.
+     */
+    BookingResponseDto cancelBooking(Long bookingId, String userEmail)
+            throws ResourceNotFoundException, IllegalArgumentException;
+
+    /**
+     * The trip a booking belongs to, read without loading the booking, so callers can route a booking
+     * mutation through that trip's {@link TripWriteQueue} shard.
+     *
+     * @throws ResourceNotFoundException if the booking doesn't exist.
+     */
+    Long findTripIdForBooking(Long bookingId) throws ResourceNotFoundException;
+
 }
\ No newline at end of file
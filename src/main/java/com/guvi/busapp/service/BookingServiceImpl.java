@@ -2,22 +2,32 @@
 package com.guvi.busapp.service;
 
 import com.guvi.busapp.dto.*;
+import com.guvi.busapp.event.BookingLifecycleEvent;
+import com.guvi.busapp.event.TripAvailabilityChangedEvent;
 import com.guvi.busapp.exception.ResourceNotFoundException;
 import com.guvi.busapp.exception.SeatUnavailableException;
 import com.guvi.busapp.model.*; // Import all models
 import com.guvi.busapp.repository.*; // Import all repositories needed
+import com.guvi.busapp.util.KeysetCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort; // **** Import Sort ****
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,26 +35,40 @@ public class BookingServiceImpl implements BookingService {
 
     private static final Logger logger = LoggerFactory.getLogger(BookingServiceImpl.class);
 
+    private static final String CURSOR_SORT_KEY = "BOOKING_TIME";
+    // First-page seek position: after every real booking (MySQL DATETIME tops out at year 9999)
+    private static final LocalDateTime FIRST_PAGE_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ScheduledTripRepository scheduledTripRepository;
     private final PassengerRepository passengerRepository;
-    private final BusService busService;
-    private final RouteService routeService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingOutbox bookingOutbox;
+    private final BookingViewRepository bookingViewRepository;
+    private final BookingReferenceGenerator referenceGenerator;
+
+    // Customers may cancel until this many minutes before departure
+    @Value("${busapp.booking.cancellation-cutoff-minutes:120}")
+    private long cancellationCutoffMinutes;
 
     @Autowired
     public BookingServiceImpl(BookingRepository bookingRepository,
                               UserRepository userRepository,
                               ScheduledTripRepository scheduledTripRepository,
                               PassengerRepository passengerRepository,
-                              BusService busService,
-                              RouteService routeService) {
+                              ApplicationEventPublisher eventPublisher,
+                              BookingOutbox bookingOutbox,
+                              BookingViewRepository bookingViewRepository,
+                              BookingReferenceGenerator referenceGenerator) {
         this.bookingRepository = bookingRepository;
         this.userRepository = userRepository;
         this.scheduledTripRepository = scheduledTripRepository;
         this.passengerRepository = passengerRepository;
-        this.busService = busService;
-        this.routeService = routeService;
+        this.eventPublisher = eventPublisher;
+        this.bookingOutbox = bookingOutbox;
+        this.bookingViewRepository = bookingViewRepository;
+        this.referenceGenerator = referenceGenerator;
     }
 
     // --- Helper Mapping Methods --- (Keep existing mappers)
@@ -59,11 +83,33 @@ public class BookingServiceImpl implements BookingService {
         return dto;
     }
 
+    // Bus/Route are mapped from the already-loaded entities; no extra service calls or queries
+    private BusDto mapBusToDto(Bus bus) {
+        BusDto dto = new BusDto();
+        dto.setId(bus.getId());
+        dto.setBusNumber(bus.getBusNumber());
+        dto.setOperatorName(bus.getOperatorName());
+        dto.setBusType(bus.getBusType());
+        dto.setTotalSeats(bus.getTotalSeats());
+        dto.setAmenities(bus.getAmenities() != null ? new HashSet<>(bus.getAmenities()) : null);
+        dto.setSeatLayout(bus.getSeatLayout());
+        return dto;
+    }
+
+    private RouteDto mapRouteToDto(Route route) {
+        RouteDto dto = new RouteDto();
+        dto.setId(route.getId());
+        dto.setOrigin(route.getOrigin());
+        dto.setDestination(route.getDestination());
+        return dto;
+    }
+
     private BookingResponseDto mapBookingToResponseDto(Booking booking) {
         if (booking == null) return null;
 
         BookingResponseDto responseDto = new BookingResponseDto();
         responseDto.setBookingId(booking.getId());
+        responseDto.setBookingReference(booking.getReferenceCode());
         responseDto.setStatus(booking.getStatus());
         responseDto.setTotalFare(booking.getTotalFare());
         responseDto.setBookingTime(booking.getBookingTime());
@@ -80,15 +126,8 @@ public class BookingServiceImpl implements BookingService {
         if (trip != null) {
             ScheduledTripResponseDto tripDto = new ScheduledTripResponseDto();
             tripDto.setId(trip.getId());
-            try {
-                // Ensure Bus and Route are loaded before mapping their DTOs
-                Bus bus = trip.getBus();
-                Route route = trip.getRoute();
-                if (bus != null) tripDto.setBus(busService.getBusById(bus.getId())); // Assuming getBusById returns BusDto
-                if (route!= null) tripDto.setRoute(routeService.getRouteById(route.getId())); // Assuming getRouteById returns RouteDto
-            } catch (ResourceNotFoundException e) {
-                logger.error("Error mapping nested Bus/Route for Booking ID {}: {}", booking.getId(), e.getMessage());
-            }
+            if (trip.getBus() != null) tripDto.setBus(mapBusToDto(trip.getBus()));
+            if (trip.getRoute() != null) tripDto.setRoute(mapRouteToDto(trip.getRoute()));
             tripDto.setDepartureDate(trip.getDepartureDate());
             tripDto.setDepartureTime(trip.getDepartureTime());
             tripDto.setArrivalTime(trip.getArrivalTime());
@@ -112,6 +151,46 @@ public class BookingServiceImpl implements BookingService {
     }
 
 
+    // History rows carry the trip summary only; amenities, seat layout and live availability aren't copied
+    private BookingResponseDto mapViewToResponseDto(BookingView view) {
+        BookingResponseDto responseDto = new BookingResponseDto();
+        responseDto.setBookingId(view.getBookingId());
+        responseDto.setBookingReference(view.getBookingReference());
+        responseDto.setStatus(view.getStatus());
+        responseDto.setTotalFare(view.getTotalFare());
+        responseDto.setBookingTime(view.getBookingTime());
+        responseDto.setUserEmail(view.getUserEmail());
+        responseDto.setUserFullName(view.getUserFullName());
+
+        if (view.getTripId() != null) {
+            ScheduledTripResponseDto tripDto = new ScheduledTripResponseDto();
+            tripDto.setId(view.getTripId());
+            if (view.getBusId() != null) {
+                BusDto busDto = new BusDto();
+                busDto.setId(view.getBusId());
+                busDto.setBusNumber(view.getBusNumber());
+                busDto.setOperatorName(view.getOperatorName());
+                busDto.setBusType(view.getBusType());
+                tripDto.setBus(busDto);
+            }
+            if (view.getRouteId() != null) {
+                RouteDto routeDto = new RouteDto();
+                routeDto.setId(view.getRouteId());
+                routeDto.setOrigin(view.getOrigin());
+                routeDto.setDestination(view.getDestination());
+                tripDto.setRoute(routeDto);
+            }
+            tripDto.setDepartureDate(view.getDepartureDate());
+            tripDto.setDepartureTime(view.getDepartureTime());
+            tripDto.setArrivalTime(view.getArrivalTime());
+            tripDto.setFare(view.getTripFare());
+            responseDto.setTripDetails(tripDto);
+        }
+
+        responseDto.setPassengers(BookingViewProjector.passengersOf(view));
+        return responseDto;
+    }
+
     // --- Existing Service Methods (createBooking, getBookingsByUser) ---
 
     @Override
@@ -121,14 +200,7 @@ public class BookingServiceImpl implements BookingService {
         // ... (Keep existing implementation) ...
         logger.info("Attempting to create PENDING booking for user {} on trip {}", userEmail, bookingRequest.getTripId());
 
-        if (bookingRequest.getPassengers() == null || bookingRequest.getSelectedSeats() == null ||
-                bookingRequest.getPassengers().size() != bookingRequest.getSelectedSeats().size()) {
-            throw new IllegalArgumentException("Number of passengers (" + (bookingRequest.getPassengers() != null ? bookingRequest.getPassengers().size() : 0) +
-                    ") must match the number of selected seats (" + (bookingRequest.getSelectedSeats() != null ? bookingRequest.getSelectedSeats().size() : 0) + ").");
-        }
-        if (bookingRequest.getSelectedSeats().isEmpty()) {
-            throw new IllegalArgumentException("At least one seat must be selected for booking.");
-        }
+        validateSeatsAndPassengers(bookingRequest);
 
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", userEmail));
@@ -156,13 +228,242 @@ public class BookingServiceImpl implements BookingService {
             throw new SeatUnavailableException(message);
         }
 
+        Booking booking = newPendingBooking(user, trip, bookingRequest);
+
+        Booking savedBooking = bookingRepository.save(booking);
+        bookingOutbox.record(savedBooking, BookingLifecycleEvent.Type.CREATED);
+
+        logger.info("PENDING Booking created successfully with ID {} for user {} on trip {}", savedBooking.getId(), userEmail, trip.getId());
+
+        // Fetch required data for response DTO
+        Booking finalBooking = bookingRepository.findById(savedBooking.getId()).orElseThrow();
+        // Trigger loading - might not be strictly necessary if mappings handle it, but safe
+        finalBooking.getUser().getEmail();
+        if(finalBooking.getScheduledTrip() != null) {
+            if(finalBooking.getScheduledTrip().getBus() != null) finalBooking.getScheduledTrip().getBus().getId();
+            if(finalBooking.getScheduledTrip().getRoute() != null) finalBooking.getScheduledTrip().getRoute().getId();
+        }
+        finalBooking.getPassengers().size();
+
+        return mapBookingToResponseDto(finalBooking);
+    }
+
+
+    // Lock and book in one transaction: the trip row lock is taken once, instead of once for
+    // POST /lock-seats and again for POST /booking
+    @Override
+    @Transactional
+    public BookingResponseDto checkout(BookingRequestDto bookingRequest, String userEmail)
+            throws ResourceNotFoundException, SeatUnavailableException, IllegalArgumentException {
+        logger.info("Checkout for user {} on trip {} seats {}", userEmail, bookingRequest.getTripId(), bookingRequest.getSelectedSeats());
+        validateSeatsAndPassengers(bookingRequest);
+        if (new HashSet<>(bookingRequest.getSelectedSeats()).size() != bookingRequest.getSelectedSeats().size()) {
+            throw new IllegalArgumentException("Each seat can only be selected once.");
+        }
+
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "email", userEmail));
+        ScheduledTrip trip = scheduledTripRepository.findByIdForUpdate(bookingRequest.getTripId())
+                .orElseThrow(() -> new ResourceNotFoundException("ScheduledTrip", "ID", bookingRequest.getTripId()));
+
+        Map<String, ScheduledTrip.SeatStatus> seatStatusMap = trip.getSeatStatus();
+        if (seatStatusMap == null) {
+            throw new IllegalStateException("Seat status map not initialized for this trip.");
+        }
+        // Nothing is held yet, so only AVAILABLE seats qualify
+        List<String> unavailableSeats = new ArrayList<>();
+        for (String seatNum : bookingRequest.getSelectedSeats()) {
+            ScheduledTrip.SeatStatus status = seatStatusMap.get(seatNum);
+            if (status != ScheduledTrip.SeatStatus.AVAILABLE) {
+                unavailableSeats.add(seatNum + (status != null ? " (" + status + ")" : " (Invalid)"));
+            }
+        }
+        if (!unavailableSeats.isEmpty()) {
+            String message = "Checkout failed. Seats unavailable: " + String.join(", ", unavailableSeats);
+            logger.warn(message);
+            throw new SeatUnavailableException(message);
+        }
+
+        // Hold the seats exactly as POST /lock-seats would; payment or the lock-expiry job settles them
+        for (String seatNum : bookingRequest.getSelectedSeats()) {
+            seatStatusMap.put(seatNum, ScheduledTrip.SeatStatus.LOCKED);
+        }
+        int previousAvailable = trip.getAvailableSeats() != null ? trip.getAvailableSeats() : 0;
+        trip.setAvailableSeats(Math.max(0, previousAvailable - bookingRequest.getSelectedSeats().size()));
+        scheduledTripRepository.save(trip);
+
+        Booking savedBooking = bookingRepository.save(newPendingBooking(user, trip, bookingRequest));
+        bookingOutbox.record(savedBooking, BookingLifecycleEvent.Type.CREATED);
+        eventPublisher.publishEvent(TripAvailabilityChangedEvent.seatsChanged(trip, previousAvailable));
+        logger.info("Checkout created PENDING booking {} for user {} on trip {}", savedBooking.getId(), userEmail, trip.getId());
+
+        // User, trip, bus, route and passengers are all loaded in this transaction already
+        return mapBookingToResponseDto(savedBooking);
+    }
+
+    @Override
+    @Transactional
+    public List<GroupBookingItemResultDto> checkoutTripGroup(Long tripId, List<BookingRequestDto> bookingRequests, String userEmail)
+            throws ResourceNotFoundException {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "email", userEmail));
+        ScheduledTrip trip = scheduledTripRepository.findByIdForUpdate(tripId)
+                .orElseThrow(() -> new ResourceNotFoundException("ScheduledTrip", "ID", tripId));
+        Map<String, ScheduledTrip.SeatStatus> seatStatusMap = trip.getSeatStatus();
+        if (seatStatusMap == null) {
+            throw new IllegalStateException("Seat status map not initialized for this trip.");
+        }
+
+        List<GroupBookingItemResultDto> results = new ArrayList<>(bookingRequests.size());
+        List<Booking> accepted = new ArrayList<>();
+        List<Integer> acceptedPositions = new ArrayList<>();
+        int heldSeats = 0;
+        for (BookingRequestDto request : bookingRequests) {
+            String error = groupItemError(tripId, request, seatStatusMap);
+            if (error != null) {
+                results.add(GroupBookingItemResultDto.failed(tripId, error));
+                continue;
+            }
+            // Held immediately, so later requests in the group can't take the same seats
+            for (String seatNum : request.getSelectedSeats()) {
+                seatStatusMap.put(seatNum, ScheduledTrip.SeatStatus.LOCKED);
+            }
+            heldSeats += request.getSelectedSeats().size();
+            accepted.add(newPendingBooking(user, trip, request));
+            acceptedPositions.add(results.size());
+            results.add(null); // Filled once saved
+        }
+        if (accepted.isEmpty()) {
+            logger.warn("Group checkout on trip {} for user {}: none of {} requests could be booked.", tripId, userEmail, bookingRequests.size());
+            return results;
+        }
+
+        int previousAvailable = trip.getAvailableSeats() != null ? trip.getAvailableSeats() : 0;
+        trip.setAvailableSeats(Math.max(0, previousAvailable - heldSeats));
+        scheduledTripRepository.save(trip);
+        List<Booking> saved = bookingRepository.saveAll(accepted);
+        for (int i = 0; i < saved.size(); i++) {
+            bookingOutbox.record(saved.get(i), BookingLifecycleEvent.Type.CREATED);
+            results.set(acceptedPositions.get(i), GroupBookingItemResultDto.succeeded(tripId, mapBookingToResponseDto(saved.get(i))));
+        }
+        eventPublisher.publishEvent(TripAvailabilityChangedEvent.seatsChanged(trip, previousAvailable));
+        logger.info("Group checkout on trip {} for user {}: {} of {} bookings created, {} seats held.",
+                tripId, userEmail, saved.size(), bookingRequests.size(), heldSeats);
+        return results;
+    }
+
+    // Null when the request can be booked against the seats currently free
+    private String groupItemError(Long tripId, BookingRequestDto request, Map<String, ScheduledTrip.SeatStatus> seatStatusMap) {
+        if (!tripId.equals(request.getTripId())) {
+            return "Request targets trip " + request.getTripId() + ", not " + tripId + ".";
+        }
+        try {
+            validateSeatsAndPassengers(request);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        if (new HashSet<>(request.getSelectedSeats()).size() != request.getSelectedSeats().size()) {
+            return "Each seat can only be selected once.";
+        }
+        List<String> unavailableSeats = new ArrayList<>();
+        for (String seatNum : request.getSelectedSeats()) {
+            ScheduledTrip.SeatStatus status = seatStatusMap.get(seatNum);
+            if (status != ScheduledTrip.SeatStatus.AVAILABLE) {
+                unavailableSeats.add(seatNum + (status != null ? " (" + status + ")" : " (Invalid)"));
+            }
+        }
+        return unavailableSeats.isEmpty() ? null : "Seats unavailable: " + String.join(", ", unavailableSeats);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Long findTripIdForBooking(Long bookingId) throws ResourceNotFoundException {
+        return bookingRepository.findTripIdById(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking", "ID", bookingId));
+    }
+
+    @Override
+    @Transactional
+    public BookingResponseDto cancelBooking(Long bookingId, String userEmail)
+            throws ResourceNotFoundException, IllegalArgumentException {
+        // Lock the trip first, as every other seat mutation does, and only then read the booking.
+        // A payment confirmation that committed while we waited for the lock is then seen, so its
+        // BOOKED seats are released instead of the booking being cancelled over them.
+        Long tripId = bookingRepository.findTripIdById(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking", "ID", bookingId));
+        ScheduledTrip trip = scheduledTripRepository.findByIdForUpdate(tripId)
+                .orElseThrow(() -> new ResourceNotFoundException("ScheduledTrip", "ID", tripId));
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId)
+                .filter(b -> b.getUser() != null && userEmail.equalsIgnoreCase(b.getUser().getEmail()))
+                .orElseThrow(() -> new ResourceNotFoundException("Booking", "ID", bookingId)); // Other users' bookings look absent
+
+        if (booking.getStatus() != Booking.BookingStatus.PENDING && booking.getStatus() != Booking.BookingStatus.CONFIRMED) {
+            throw new IllegalArgumentException("Booking " + bookingId + " is " + booking.getStatus() + " and cannot be cancelled.");
+        }
+        if (booking.getStatus() == Booking.BookingStatus.PENDING && booking.getPaymentStartedAt() != null) {
+            // A live PaymentIntent could still be paid, and handlePaymentSuccess ignores non-PENDING bookings
+            throw new IllegalArgumentException("Payment for booking " + bookingId
+                    + " is in progress. It can be cancelled once the payment completes; unpaid bookings expire on their own.");
+        }
+
+        LocalDateTime departure = trip.getDepartureDate().atTime(trip.getDepartureTime());
+        if (!LocalDateTime.now().isBefore(departure.minusMinutes(cancellationCutoffMinutes))) {
+            throw new IllegalArgumentException("Bookings can only be cancelled up to " + cancellationCutoffMinutes
+                    + " minutes before departure.");
+        }
+
+        // Only seats this booking still holds go back on sale; the status was read under the trip lock
+        ScheduledTrip.SeatStatus held = booking.getStatus() == Booking.BookingStatus.CONFIRMED
+                ? ScheduledTrip.SeatStatus.BOOKED : ScheduledTrip.SeatStatus.LOCKED;
+        Map<String, ScheduledTrip.SeatStatus> seatStatusMap = trip.getSeatStatus();
+        int releasedCount = 0;
+        if (seatStatusMap != null) {
+            for (Passenger passenger : booking.getPassengers()) {
+                if (seatStatusMap.get(passenger.getSeatNumber()) == held) {
+                    seatStatusMap.put(passenger.getSeatNumber(), ScheduledTrip.SeatStatus.AVAILABLE);
+                    releasedCount++;
+                } else {
+                    logger.warn("Seat {} of cancelled booking {} on trip {} was {}, expected {}. Left unchanged.",
+                            passenger.getSeatNumber(), bookingId, trip.getId(), seatStatusMap.get(passenger.getSeatNumber()), held);
+                }
+            }
+        } else {
+            logger.error("Seat status map is null for trip ID {} while cancelling booking {}.", trip.getId(), bookingId);
+        }
+        if (releasedCount > 0) {
+            int previousAvailable = trip.getAvailableSeats() != null ? trip.getAvailableSeats() : 0;
+            trip.setAvailableSeats(previousAvailable + releasedCount);
+            scheduledTripRepository.save(trip);
+            eventPublisher.publishEvent(TripAvailabilityChangedEvent.seatsChanged(trip, previousAvailable));
+        }
+
+        booking.setStatus(Booking.BookingStatus.CANCELLED);
+        Booking savedBooking = bookingRepository.save(booking);
+        bookingOutbox.record(savedBooking, BookingLifecycleEvent.Type.CANCELLED);
+        logger.info("Booking {} cancelled by {}: {} seats released on trip {}.", bookingId, userEmail, releasedCount, trip.getId());
+        return mapBookingToResponseDto(savedBooking);
+    }
+
+    private void validateSeatsAndPassengers(BookingRequestDto bookingRequest) {
+        if (bookingRequest.getPassengers() == null || bookingRequest.getSelectedSeats() == null ||
+                bookingRequest.getPassengers().size() != bookingRequest.getSelectedSeats().size()) {
+            throw new IllegalArgumentException("Number of passengers (" + (bookingRequest.getPassengers() != null ? bookingRequest.getPassengers().size() : 0) +
+                    ") must match the number of selected seats (" + (bookingRequest.getSelectedSeats() != null ? bookingRequest.getSelectedSeats().size() : 0) + ").");
+        }
+        if (bookingRequest.getSelectedSeats().isEmpty()) {
+            throw new IllegalArgumentException("At least one seat must be selected for booking.");
+        }
+    }
+
+    // PENDING booking with one passenger per selected seat; status and bookingTime come from @PrePersist
+    private Booking newPendingBooking(User user, ScheduledTrip trip, BookingRequestDto bookingRequest) {
         Booking booking = new Booking();
+        booking.setReferenceCode(referenceGenerator.next());
         booking.setUser(user);
         booking.setScheduledTrip(trip);
         booking.setNumberOfSeats(bookingRequest.getSelectedSeats().size());
         BigDecimal totalFare = trip.getFare().multiply(BigDecimal.valueOf(booking.getNumberOfSeats()));
         booking.setTotalFare(totalFare);
-        // Status defaults to PENDING via @PrePersist
 
         List<PassengerDto> passengerDtos = bookingRequest.getPassengers();
         List<String> selectedSeats = bookingRequest.getSelectedSeats();
@@ -177,43 +478,17 @@ public class BookingServiceImpl implements BookingService {
             passengersToSave.add(passenger);
         }
         booking.setPassengers(new HashSet<>(passengersToSave));
-
-
-        Booking savedBooking = bookingRepository.save(booking);
-
-        logger.info("PENDING Booking created successfully with ID {} for user {} on trip {}", savedBooking.getId(), userEmail, trip.getId());
-
-        // Fetch required data for response DTO
-        Booking finalBooking = bookingRepository.findById(savedBooking.getId()).orElseThrow();
-        // Trigger loading - might not be strictly necessary if mappings handle it, but safe
-        finalBooking.getUser().getEmail();
-        if(finalBooking.getScheduledTrip() != null) {
-            if(finalBooking.getScheduledTrip().getBus() != null) finalBooking.getScheduledTrip().getBus().getId();
-            if(finalBooking.getScheduledTrip().getRoute() != null) finalBooking.getScheduledTrip().getRoute().getId();
-        }
-        finalBooking.getPassengers().size();
-
-        return mapBookingToResponseDto(finalBooking);
+        return booking;
     }
 
-
     @Override
     @Transactional(readOnly = true)
     public List<BookingResponseDto> getBookingsByUser(String userEmail) throws ResourceNotFoundException {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", userEmail));
+        // Entity graph fetches trip/bus/route with the bookings; passengers and amenities are batch-loaded
         List<Booking> bookings = bookingRepository.findByUserOrderByBookingTimeDesc(user);
 
-        // Trigger necessary lazy loads before mapping
-        bookings.forEach(b -> {
-            if (b.getUser() != null) b.getUser().getEmail(); // Load user email for mapping
-            if (b.getScheduledTrip() != null) {
-                if (b.getScheduledTrip().getBus() != null) b.getScheduledTrip().getBus().getId();
-                if (b.getScheduledTrip().getRoute()!= null) b.getScheduledTrip().getRoute().getId();
-            }
-            b.getPassengers().size(); // Load passengers
-        });
-
         return bookings.stream()
                 .map(this::mapBookingToResponseDto)
                 .collect(Collectors.toList());
@@ -225,21 +500,125 @@ public class BookingServiceImpl implements BookingService {
     public List<BookingResponseDto> getAllBookings() {
         logger.info("Admin request: Fetching all bookings.");
         // Fetch all bookings, sort by booking time descending
+        // Same fetch plan as getBookingsByUser (see BookingRepository.findAll(Sort))
         List<Booking> allBookings = bookingRepository.findAll(Sort.by(Sort.Direction.DESC, "bookingTime"));
 
-        // Trigger necessary lazy loads before mapping (similar to getBookingsByUser)
-        allBookings.forEach(b -> {
-            if (b.getUser() != null) b.getUser().getEmail();
-            if (b.getScheduledTrip() != null) {
-                if (b.getScheduledTrip().getBus() != null) b.getScheduledTrip().getBus().getId();
-                if (b.getScheduledTrip().getRoute()!= null) b.getScheduledTrip().getRoute().getId();
-            }
-            b.getPassengers().size();
-        });
-
         logger.info("Mapping {} bookings to DTOs.", allBookings.size());
         return allBookings.stream()
                 .map(this::mapBookingToResponseDto)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingPageDto getBookingsByUser(String userEmail, String cursor, int size)
+            throws ResourceNotFoundException, IllegalArgumentException {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "email", userEmail));
+        KeysetCursor after = decodeCursor(cursor);
+        int pageSize = clampPageSize(size);
+        // Served from booking_view: one single-table query per page. One extra row tells us whether another page exists
+        List<BookingView> rows = bookingViewRepository.findUserPage(user.getId(), afterTime(after),
+                after != null ? after.getId() : Long.MAX_VALUE, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<BookingView> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            BookingView last = page.get(page.size() - 1);
+            nextCursor = KeysetCursor.encode(CURSOR_SORT_KEY, last.getBookingTime(), last.getBookingId());
+        }
+        List<BookingResponseDto> bookings = page.stream()
+                .map(this::mapViewToResponseDto)
+                .collect(Collectors.toList());
+        return new BookingPageDto(bookings, nextCursor, hasMore);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingPageDto getAllBookings(String cursor, int size) throws IllegalArgumentException {
+        KeysetCursor after = decodeCursor(cursor);
+        int pageSize = clampPageSize(size);
+        logger.info("Admin request: Fetching bookings page (size={}, cursor={}).", pageSize, after != null ? "yes" : "first");
+        List<Booking> rows = bookingRepository.findBookingsPage(afterTime(after),
+                after != null ? after.getId() : Long.MAX_VALUE, PageRequest.of(0, pageSize + 1));
+        return toPage(rows, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingPageDto searchBookings(BookingSearchCriteria criteria) throws IllegalArgumentException {
+        if (criteria.getFromDate() != null && criteria.getToDate() != null && criteria.getFromDate().isAfter(criteria.getToDate())) {
+            throw new IllegalArgumentException("Search start date must not be after its end date.");
+        }
+        KeysetCursor after = decodeCursor(criteria.getCursor());
+        int pageSize = clampPageSize(criteria.getSize());
+
+        Specification<Booking> spec = Specification.where(BookingSpecifications.fetchListingGraph())
+                .and(BookingSpecifications.seekBefore(afterTime(after), after != null ? after.getId() : Long.MAX_VALUE));
+        if (criteria.getUserEmail() != null && !criteria.getUserEmail().isBlank()) {
+            // Resolve the email via the unique index first so the bookings scan uses (user_id, booking_time)
+            Optional<User> user = userRepository.findByEmail(criteria.getUserEmail().trim());
+            if (user.isEmpty()) {
+                return new BookingPageDto(new ArrayList<>(), null, false);
+            }
+            spec = spec.and(BookingSpecifications.belongsTo(user.get()));
+        }
+        if (criteria.getBookingId() != null) spec = spec.and(BookingSpecifications.hasId(criteria.getBookingId()));
+        if (criteria.getReference() != null && !criteria.getReference().isBlank()) {
+            // Typos fail the check character here, without a query
+            String reference = BookingReferenceGenerator.normalize(criteria.getReference());
+            if (reference == null) {
+                throw new IllegalArgumentException("Invalid booking reference: " + criteria.getReference().trim());
+            }
+            spec = spec.and(BookingSpecifications.hasReference(reference));
+        }
+        if (criteria.getTripId() != null) spec = spec.and(BookingSpecifications.forTrip(criteria.getTripId()));
+        if (criteria.getRouteId() != null) spec = spec.and(BookingSpecifications.onRoute(criteria.getRouteId()));
+        if (criteria.getStatus() != null) spec = spec.and(BookingSpecifications.hasStatus(criteria.getStatus()));
+        if (criteria.getFromDate() != null) {
+            spec = spec.and(BookingSpecifications.bookedAtOrAfter(criteria.getFromDate().atStartOfDay()));
+        }
+        if (criteria.getToDate() != null) {
+            spec = spec.and(BookingSpecifications.bookedBefore(criteria.getToDate().plusDays(1).atStartOfDay()));
+        }
+
+        logger.info("Admin booking search: {}", criteria);
+        Sort newestFirst = Sort.by(Sort.Direction.DESC, "bookingTime").and(Sort.by(Sort.Direction.DESC, "id"));
+        // LIMIT only, no count query: one extra row tells us whether another page exists
+        List<Booking> rows = bookingRepository.findBy(spec, q -> q.sortBy(newestFirst).limit(pageSize + 1).all());
+        return toPage(rows, pageSize);
+    }
+
+    // --- Keyset helpers ---
+
+    private KeysetCursor decodeCursor(String cursor) {
+        return cursor != null && !cursor.isBlank() ? KeysetCursor.decode(cursor, CURSOR_SORT_KEY) : null;
+    }
+
+    private LocalDateTime afterTime(KeysetCursor after) {
+        if (after == null) return FIRST_PAGE_TIME;
+        try {
+            return LocalDateTime.parse(after.getValue());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor.");
+        }
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private BookingPageDto toPage(List<Booking> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<Booking> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Booking last = page.get(page.size() - 1);
+            nextCursor = KeysetCursor.encode(CURSOR_SORT_KEY, last.getBookingTime(), last.getId());
+        }
+        List<BookingResponseDto> bookings = page.stream()
+                .map(this::mapBookingToResponseDto)
+                .collect(Collectors.toList());
+        return new BookingPageDto(bookings, nextCursor, hasMore);
+    }
+}
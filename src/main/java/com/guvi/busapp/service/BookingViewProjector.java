@@ -0,0 +1,205 @@
+// src/main/java/com/guvi/busapp/service/BookingViewProjector.java
+package com.guvi.busapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guvi.busapp.dto.PassengerDto;
+import com.guvi.busapp.model.*;
+import com.guvi.busapp.repository.BookingRepository;
+import com.guvi.busapp.repository.BookingViewRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps booking_view in step with bookings. Booking rows are re-projected in the same
+ * transaction as each state change (via BookingOutbox.record), so history never shows a
+ * status the booking doesn't have. Trip, route and bus edits are copied across with one
+ * bulk UPDATE each; bookings that predate the view are backfilled at startup. Every write
+ * also evicts the affected history pages from BookingHistoryCache once it commits.
+ */
+@Component
+public class BookingViewProjector {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingViewProjector.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<PassengerDto>> PASSENGER_LIST = new TypeReference<>() {};
+    static final int BACKFILL_CHUNK = 500;
+
+    private final BookingViewRepository viewRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingHistoryCache historyCache;
+    private final TransactionTemplate newTransaction;
+
+    @Autowired
+    public BookingViewProjector(BookingViewRepository viewRepository,
+                                BookingRepository bookingRepository,
+                                BookingHistoryCache historyCache,
+                                PlatformTransactionManager transactionManager) {
+        this.viewRepository = viewRepository;
+        this.bookingRepository = bookingRepository;
+        this.historyCache = historyCache;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void project(Booking booking) {
+        BookingView view = toView(booking);
+        viewRepository.save(view);
+        historyCache.evictAfterCommit(view.getUserEmail());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshTrip(ScheduledTrip trip) {
+        int updated = viewRepository.refreshTrip(trip.getId(), trip.getDepartureDate(), trip.getDepartureTime(),
+                trip.getArrivalTime(), trip.getFare(), LocalDateTime.now());
+        logger.debug("Refreshed {} booking view rows for trip ID {}.", updated, trip.getId());
+        if (updated > 0) historyCache.evictAllAfterCommit();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshRoute(Route route) {
+        int updated = viewRepository.refreshRoute(route.getId(), route.getOrigin(), route.getDestination(), LocalDateTime.now());
+        logger.debug("Refreshed {} booking view rows for route ID {}.", updated, route.getId());
+        if (updated > 0) historyCache.evictAllAfterCommit();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshBus(Bus bus) {
+        int updated = viewRepository.refreshBus(bus.getId(), bus.getBusNumber(), bus.getOperatorName(), bus.getBusType(), LocalDateTime.now());
+        logger.debug("Refreshed {} booking view rows for bus ID {}.", updated, bus.getId());
+        if (updated > 0) historyCache.evictAllAfterCommit();
+    }
+
+    // --- Backfill ---
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        long afterId = 0;
+        int total = 0;
+        try {
+            while (true) {
+                final long from = afterId;
+                List<Long> done = newTransaction.execute(status -> projectMissing(from, BACKFILL_CHUNK));
+                if (done == null || done.isEmpty()) break;
+                total += done.size();
+                afterId = done.get(done.size() - 1);
+            }
+        } catch (Exception e) {
+            logger.error("Booking view backfill stopped after {} rows: {}", total, e.getMessage(), e);
+            return;
+        }
+        if (total > 0) logger.info("Booking view backfilled for {} bookings.", total);
+    }
+
+    // Projects up to `limit` bookings above afterId that have no view row; returns their ids in order
+    @Transactional
+    public List<Long> projectMissing(long afterId, int limit) {
+        List<Long> ids = viewRepository.findUnprojectedBookingIds(afterId, PageRequest.of(0, limit));
+        if (ids.isEmpty()) return ids;
+        projectBookings(ids);
+        return ids;
+    }
+
+    // (Re-)projects the given bookings with one fetch-joined load
+    @Transactional
+    public void projectBookings(List<Long> bookingIds) {
+        if (bookingIds.isEmpty()) return;
+        List<Booking> bookings = new ArrayList<>(bookingRepository.findByIdIn(bookingIds));
+        bookings.sort(Comparator.comparing(Booking::getId));
+        List<BookingView> views = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            BookingView view = toView(booking);
+            views.add(view);
+            historyCache.evictAfterCommit(view.getUserEmail());
+        }
+        viewRepository.saveAll(views);
+    }
+
+    // --- Mapping ---
+
+    static BookingView toView(Booking booking) {
+        BookingView view = new BookingView();
+        view.setBookingId(booking.getId());
+        view.setBookingReference(booking.getReferenceCode());
+        view.setStatus(booking.getStatus());
+        view.setTotalFare(booking.getTotalFare());
+        view.setBookingTime(booking.getBookingTime());
+
+        User user = booking.getUser();
+        if (user != null) {
+            view.setUserId(user.getId());
+            view.setUserEmail(user.getEmail());
+            view.setUserFullName(user.getFirstName() + " " + user.getLastName());
+        }
+
+        ScheduledTrip trip = booking.getScheduledTrip();
+        if (trip != null) {
+            view.setTripId(trip.getId());
+            view.setDepartureDate(trip.getDepartureDate());
+            view.setDepartureTime(trip.getDepartureTime());
+            view.setArrivalTime(trip.getArrivalTime());
+            view.setTripFare(trip.getFare());
+            Route route = trip.getRoute();
+            if (route != null) {
+                view.setRouteId(route.getId());
+                view.setOrigin(route.getOrigin());
+                view.setDestination(route.getDestination());
+            }
+            Bus bus = trip.getBus();
+            if (bus != null) {
+                view.setBusId(bus.getId());
+                view.setBusNumber(bus.getBusNumber());
+                view.setOperatorName(bus.getOperatorName());
+                view.setBusType(bus.getBusType());
+            }
+        }
+
+        List<PassengerDto> passengers = new ArrayList<>();
+        if (booking.getPassengers() != null) {
+            for (Passenger passenger : booking.getPassengers()) {
+                PassengerDto dto = new PassengerDto();
+                dto.setName(passenger.getName());
+                dto.setAge(passenger.getAge());
+                dto.setGender(passenger.getGender());
+                dto.setSeatNumber(passenger.getSeatNumber());
+                passengers.add(dto);
+            }
+        }
+        passengers.sort(Comparator.comparing(PassengerDto::getSeatNumber, Comparator.nullsLast(Comparator.naturalOrder())));
+        try {
+            view.setPassengersJson(MAPPER.writeValueAsString(passengers));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize passengers for booking " + booking.getId(), e);
+        }
+        view.setUpdatedAt(LocalDateTime.now());
+        return view;
+    }
+
+    static List<PassengerDto> passengersOf(BookingView view) {
+        if (view.getPassengersJson() == null || view.getPassengersJson().isBlank()) return new ArrayList<>();
+        try {
+            return MAPPER.readValue(view.getPassengersJson(), PASSENGER_LIST);
+        } catch (JsonProcessingException e) {
+            logger.error("Unreadable passengers JSON in booking view {}: {}", view.getBookingId(), e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+}
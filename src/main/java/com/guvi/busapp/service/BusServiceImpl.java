@@ -3,9 +3,14 @@ package com.guvi.busapp.service;
 
 import com.guvi.busapp.dto.BusDto;
 import com.guvi.busapp.exception.ResourceNotFoundException; // Import custom exception
+import com.guvi.busapp.model.Amenity;
 import com.guvi.busapp.model.Bus;
 import com.guvi.busapp.repository.BusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,11 +22,15 @@ import java.util.stream.Collectors;
 @Service
 public class BusServiceImpl implements BusService {
 
+    private static final Logger logger = LoggerFactory.getLogger(BusServiceImpl.class);
+
     private final BusRepository busRepository;
+    private final BookingViewProjector bookingViewProjector;
 
     @Autowired
-    public BusServiceImpl(BusRepository busRepository) {
+    public BusServiceImpl(BusRepository busRepository, BookingViewProjector bookingViewProjector) {
         this.busRepository = busRepository;
+        this.bookingViewProjector = bookingViewProjector;
     }
 
     // --- Helper Methods for Mapping ---
@@ -102,11 +111,26 @@ public class BusServiceImpl implements BusService {
         existingBus.setTotalSeats(busDto.getTotalSeats());
         existingBus.setAmenities(busDto.getAmenities() != null ? new HashSet<>(busDto.getAmenities()) : new HashSet<>());
         existingBus.setSeatLayout(busDto.getSeatLayout());
+        existingBus.refreshAmenityMask(); // Collection-only edits don't dirty the row, so @PreUpdate alone can miss them
 
         Bus updatedBus = busRepository.save(existingBus);
+        bookingViewProjector.refreshBus(updatedBus); // Booking history copies bus number, operator and type
         return mapToDto(updatedBus);
     }
 
+    // Buses saved before amenity_mask existed start at 0; recompute once the app is up
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillAmenityMasks() {
+        List<Bus> stale = busRepository.findAll().stream()
+                .filter(bus -> bus.getAmenityMask() != Amenity.maskOf(bus.getAmenities(), bus.getBusType()))
+                .collect(Collectors.toList());
+        if (stale.isEmpty()) return;
+        stale.forEach(Bus::refreshAmenityMask);
+        busRepository.saveAll(stale);
+        logger.info("Recomputed amenity masks for {} buses.", stale.size());
+    }
+
     @Override
     @Transactional
     public void deleteBus(Long id) {
@@ -0,0 +1,22 @@
+// src/main/java/com/guvi/busapp/service/CorridorSummaryService.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.dto.CorridorAvailabilityDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface CorridorSummaryService {
+
+    // Single-row read; a corridor-day with no summary row reports zero availability
+    CorridorAvailabilityDto getAvailability(String origin, String destination, LocalDate date);
+
+    // One entry per day from 'from', including days with nothing available
+    List<CorridorAvailabilityDto> getCalendar(String origin, String destination, LocalDate from, int days);
+
+    // Re-derive one corridor-day from scheduled_trips
+    void recompute(String origin, String destination, LocalDate date);
+
+    // Re-derive every corridor-day from today onward
+    void rebuildUpcoming();
+}
@@ -0,0 +1,197 @@
+// src/main/java/com/guvi/busapp/service/CorridorSummaryServiceImpl.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.dto.CorridorAvailabilityDto;
+import com.guvi.busapp.event.RouteChangedEvent;
+import com.guvi.busapp.event.TripAvailabilityChangedEvent;
+import com.guvi.busapp.model.CorridorDaySummary;
+import com.guvi.busapp.repository.CorridorDaySummaryRepository;
+import com.guvi.busapp.repository.ScheduledTripRepository;
+import com.guvi.busapp.repository.projection.CorridorAggregate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class CorridorSummaryServiceImpl implements CorridorSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorridorSummaryServiceImpl.class);
+
+    public static final int MAX_CALENDAR_DAYS = 60;
+
+    private final CorridorDaySummaryRepository summaryRepository;
+    private final ScheduledTripRepository scheduledTripRepository;
+    private final TransactionTemplate newTransaction;
+
+    @Autowired
+    public CorridorSummaryServiceImpl(CorridorDaySummaryRepository summaryRepository,
+                                      ScheduledTripRepository scheduledTripRepository,
+                                      PlatformTransactionManager transactionManager) {
+        this.summaryRepository = summaryRepository;
+        this.scheduledTripRepository = scheduledTripRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // --- Reads: one indexed row per corridor-day, no aggregation over scheduled_trips ---
+
+    @Override
+    @Transactional(readOnly = true)
+    public CorridorAvailabilityDto getAvailability(String origin, String destination, LocalDate date) {
+        return summaryRepository.findByOriginAndDestinationAndTravelDate(origin, destination, date)
+                .map(this::mapToDto)
+                .orElseGet(() -> emptyDay(origin, destination, date));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CorridorAvailabilityDto> getCalendar(String origin, String destination, LocalDate from, int days) {
+        int span = Math.max(1, Math.min(days, MAX_CALENDAR_DAYS));
+        LocalDate to = from.plusDays(span - 1L);
+        Map<LocalDate, CorridorDaySummary> byDate = summaryRepository
+                .findByOriginAndDestinationAndTravelDateBetweenOrderByTravelDateAsc(origin, destination, from, to)
+                .stream()
+                .collect(Collectors.toMap(CorridorDaySummary::getTravelDate, Function.identity()));
+        List<CorridorAvailabilityDto> calendar = new ArrayList<>(span);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            CorridorDaySummary summary = byDate.get(day);
+            calendar.add(summary != null ? mapToDto(summary) : emptyDay(origin, destination, day));
+        }
+        return calendar;
+    }
+
+    // --- Maintenance ---
+
+    // One upsert from the aggregate, so two listeners building the same missing row can't collide on uk_corridor_day
+    @Override
+    @Transactional
+    public void recompute(String origin, String destination, LocalDate date) {
+        summaryRepository.upsertFromTrips(origin, destination, date, LocalDateTime.now());
+        logger.debug("Recomputed corridor summary {} -> {} on {}.", origin, destination, date);
+    }
+
+    @Override
+    @Transactional
+    public void rebuildUpcoming() {
+        LocalDate today = LocalDate.now();
+        Map<String, CorridorDaySummary> existing = new HashMap<>();
+        for (CorridorDaySummary summary : summaryRepository.findByTravelDateGreaterThanEqual(today)) {
+            existing.put(key(summary.getOrigin(), summary.getDestination(), summary.getTravelDate()), summary);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int written = 0;
+        for (CorridorAggregate aggregate : scheduledTripRepository.aggregateCorridorDaysFrom(today)) {
+            existing.remove(key(aggregate.getOrigin(), aggregate.getDestination(), aggregate.getTravelDate()));
+            // Upsert rather than save: a listener may have created the row since the read above
+            summaryRepository.upsert(aggregate.getOrigin(), aggregate.getDestination(), aggregate.getTravelDate(),
+                    aggregate.getTripCount() != null ? aggregate.getTripCount().intValue() : 0,
+                    aggregate.getMinFare(),
+                    aggregate.getTotalAvailableSeats() != null ? aggregate.getTotalAvailableSeats().intValue() : 0,
+                    now);
+            written++;
+        }
+        // Rows left over no longer have any bookable trip
+        List<CorridorDaySummary> cleared = new ArrayList<>();
+        for (CorridorDaySummary stale : existing.values()) {
+            if (stale.getTripCount() != 0 || stale.getTotalAvailableSeats() != 0) {
+                clear(stale);
+                cleared.add(stale);
+            }
+        }
+        summaryRepository.saveAll(cleared);
+        logger.info("Corridor summary rebuilt from {}: {} corridor-days written.", today, written + cleared.size());
+    }
+
+    // Runs after the seat change commits, in its own short transaction, so bookings never queue
+    // behind the summary row lock and a summary failure can't fail an already-committed booking.
+    // A lost update is repaired by the periodic rebuild.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripAvailabilityChanged(TripAvailabilityChangedEvent event) {
+        try {
+            newTransaction.executeWithoutResult(status -> apply(event));
+        } catch (Exception e) {
+            logger.error("Failed to apply corridor summary change {}: {}", event, e.getMessage(), e);
+        }
+    }
+
+    private void apply(TripAvailabilityChangedEvent event) {
+        if (!event.isRecompute()) {
+            if (event.getSeatDelta() == 0) return;
+            int updated = summaryRepository.applySeatDelta(event.getOrigin(), event.getDestination(), event.getDate(),
+                    event.getSeatDelta(), LocalDateTime.now());
+            if (updated > 0) return;
+            // No row yet for this corridor-day: fall through and build it. The upsert reads the committed
+            // trips, this change included, and a row another listener created meanwhile is overwritten
+            // with the same aggregate instead of failing on the unique key.
+        }
+        recompute(event.getOrigin(), event.getDestination(), event.getDate());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        // A renamed or removed route moves every one of its corridor-days
+        if (event.getChangeType() != RouteChangedEvent.ChangeType.CREATED) {
+            rebuildInNewTransaction();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildInNewTransaction();
+    }
+
+    // Safety net for deltas lost to a failed listener or a crash between commit and listener
+    @Scheduled(cron = "${busapp.corridor-summary.reconcile-cron:0 15 * * * *}")
+    public void scheduledReconcile() {
+        rebuildInNewTransaction();
+    }
+
+    private void rebuildInNewTransaction() {
+        try {
+            newTransaction.executeWithoutResult(status -> rebuildUpcoming());
+        } catch (Exception e) {
+            logger.error("Corridor summary rebuild failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // --- Helpers ---
+
+    private void clear(CorridorDaySummary summary) {
+        summary.setTripCount(0);
+        summary.setMinFare(null);
+        summary.setTotalAvailableSeats(0);
+        summary.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private String key(String origin, String destination, LocalDate date) {
+        return origin + "|" + destination + "|" + date;
+    }
+
+    private CorridorAvailabilityDto mapToDto(CorridorDaySummary summary) {
+        return new CorridorAvailabilityDto(summary.getOrigin(), summary.getDestination(), summary.getTravelDate(),
+                summary.getTripCount(), summary.getMinFare(), summary.getTotalAvailableSeats());
+    }
+
+    private CorridorAvailabilityDto emptyDay(String origin, String destination, LocalDate date) {
+        return new CorridorAvailabilityDto(origin, destination, date, 0, null, 0);
+    }
+}
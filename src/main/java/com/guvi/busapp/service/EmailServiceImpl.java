@@ -75,7 +75,9 @@ public class EmailServiceImpl implements EmailService {
             String htmlContent = templateEngine.process("ticket-email", context); // Removed "email/" prefix
 
             helper.setTo(recipientEmail); // Use pre-fetched email
-            helper.setSubject("Your Bus Ticket Confirmation - Booking ID: " + bookingId); // Use pre-fetched ID
+            helper.setSubject(booking.getReferenceCode() != null
+                    ? "Your Bus Ticket Confirmation - Booking Reference: " + booking.getReferenceCode()
+                    : "Your Bus Ticket Confirmation - Booking ID: " + bookingId); // Use pre-fetched ID
             helper.setText(htmlContent, true);
 
             mailSender.send(message);
@@ -0,0 +1,50 @@
+// src/main/java/com/guvi/busapp/service/FileOutboxSink.java
+package com.guvi.busapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guvi.busapp.event.BookingLifecycleEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Appends each lifecycle event as one NDJSON line. A local stand-in for a broker, enabled
+ * by setting busapp.outbox.file-sink.path.
+ */
+@Component
+@ConditionalOnProperty(name = "busapp.outbox.file-sink.path")
+public class FileOutboxSink implements OutboxSink {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path path;
+
+    public FileOutboxSink(@Value("${busapp.outbox.file-sink.path}") String path) {
+        this.path = Path.of(path);
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void deliver(BookingLifecycleEvent event) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("outboxId", event.getOutboxId());
+        line.put("bookingId", event.getBookingId());
+        line.put("type", event.getType().name());
+        line.put("occurredAt", event.getOccurredAt().toString());
+        line.put("payload", MAPPER.readTree(event.getPayload()));
+        Files.writeString(path, MAPPER.writeValueAsString(line) + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,21 @@
+// src/main/java/com/guvi/busapp/service/GroupBookingService.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.dto.GroupBookingRequestDto;
+import com.guvi.busapp.dto.GroupBookingResultDto;
+
+/**
+ * Bulk checkout for tour operators: many bookings, possibly across several trips, in one call.
+ */
+public interface GroupBookingService {
+
+    /**
+     * Creates a PENDING booking per request entry. Entries are grouped by trip and each trip's group is
+     * booked under a single trip lock (see {@link BookingService#checkoutTripGroup}); groups succeed or fail
+     * independently, and so do entries within a group.
+     *
+     * @return a per-entry report in request order.
+     * @throws IllegalArgumentException if the request exceeds the configured entry or seat limits.
+     */
+    GroupBookingResultDto checkoutGroup(GroupBookingRequestDto request, String userEmail) throws IllegalArgumentException;
+}
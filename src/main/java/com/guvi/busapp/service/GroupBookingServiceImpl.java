@@ -0,0 +1,96 @@
+// src/main/java/com/guvi/busapp/service/GroupBookingServiceImpl.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.dto.BookingRequestDto;
+import com.guvi.busapp.dto.GroupBookingItemResultDto;
+import com.guvi.busapp.dto.GroupBookingRequestDto;
+import com.guvi.busapp.dto.GroupBookingResultDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class GroupBookingServiceImpl implements GroupBookingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupBookingServiceImpl.class);
+
+    private final BookingService bookingService;
+    private final TripWriteQueue tripWriteQueue;
+    private final int maxBookings;
+    private final int maxSeats;
+
+    @Autowired
+    public GroupBookingServiceImpl(BookingService bookingService,
+                                   TripWriteQueue tripWriteQueue,
+                                   @Value("${busapp.booking.group.max-bookings:50}") int maxBookings,
+                                   @Value("${busapp.booking.group.max-seats:200}") int maxSeats) {
+        this.bookingService = bookingService;
+        this.tripWriteQueue = tripWriteQueue;
+        this.maxBookings = maxBookings;
+        this.maxSeats = maxSeats;
+    }
+
+    @Override
+    public GroupBookingResultDto checkoutGroup(GroupBookingRequestDto request, String userEmail) throws IllegalArgumentException {
+        List<BookingRequestDto> entries = request.getBookings();
+        if (entries == null || entries.isEmpty()) {
+            throw new IllegalArgumentException("At least one booking must be requested.");
+        }
+        if (entries.size() > maxBookings) {
+            throw new IllegalArgumentException("A group can contain at most " + maxBookings + " bookings.");
+        }
+        int seats = entries.stream().mapToInt(e -> e.getSelectedSeats() != null ? e.getSelectedSeats().size() : 0).sum();
+        if (seats > maxSeats) {
+            throw new IllegalArgumentException("A group can hold at most " + maxSeats + " seats.");
+        }
+
+        // Positions of the entries per trip, trips in first-seen order
+        GroupBookingItemResultDto[] results = new GroupBookingItemResultDto[entries.size()];
+        Map<Long, List<Integer>> positionsByTrip = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Long tripId = entries.get(i).getTripId();
+            if (tripId == null) {
+                results[i] = GroupBookingItemResultDto.failed(null, "Trip ID cannot be null");
+                continue;
+            }
+            positionsByTrip.computeIfAbsent(tripId, id -> new ArrayList<>()).add(i);
+        }
+
+        for (Map.Entry<Long, List<Integer>> trip : positionsByTrip.entrySet()) {
+            Long tripId = trip.getKey();
+            List<Integer> positions = trip.getValue();
+            List<BookingRequestDto> tripEntries = positions.stream().map(entries::get).toList();
+            try {
+                // One trip lock (and one write-queue slot) per trip, however many bookings it gets
+                List<GroupBookingItemResultDto> tripResults = tripWriteQueue.execute(tripId,
+                        () -> bookingService.checkoutTripGroup(tripId, tripEntries, userEmail));
+                for (int i = 0; i < positions.size(); i++) {
+                    results[positions.get(i)] = tripResults.get(i);
+                }
+            } catch (RuntimeException e) {
+                // Trip missing, queue full, or the trip's transaction failed: none of its entries were booked
+                logger.warn("Group checkout for user {} failed on trip {}: {}", userEmail, tripId, e.getMessage());
+                for (Integer position : positions) {
+                    results[position] = GroupBookingItemResultDto.failed(tripId, e.getMessage());
+                }
+            }
+        }
+
+        int succeeded = 0;
+        for (int i = 0; i < results.length; i++) {
+            results[i].setIndex(i);
+            if (results[i].isSuccess()) succeeded++;
+        }
+        logger.info("Group checkout for user {}: {} of {} bookings created across {} trips.",
+                userEmail, succeeded, results.length, positionsByTrip.size());
+        return new GroupBookingResultDto(results.length, succeeded, results.length - succeeded, Arrays.asList(results));
+    }
+}
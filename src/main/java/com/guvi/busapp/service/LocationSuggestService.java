@@ -0,0 +1,25 @@
+// src/main/java/com/guvi/busapp/service/LocationSuggestService.java
+package com.guvi.busapp.service;
+
+import java.util.List;
+
+/**
+ * Service interface for origin/destination autocomplete.
+ */
+public interface LocationSuggestService {
+
+    /**
+     * Suggests served locations starting with the given prefix (case-insensitive),
+     * most popular first. Answered from memory, never hits the database.
+     *
+     * @param prefix The text typed so far.
+     * @param limit  Maximum number of suggestions to return.
+     * @return Location names, ranked by route popularity. Empty if nothing matches.
+     */
+    List<String> suggest(String prefix, int limit);
+
+    /**
+     * Rebuilds the in-memory index from the current routes and trip counts.
+     */
+    void refresh();
+}
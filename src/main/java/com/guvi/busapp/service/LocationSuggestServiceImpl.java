@@ -0,0 +1,153 @@
+// src/main/java/com/guvi/busapp/service/LocationSuggestServiceImpl.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.event.RouteChangedEvent;
+import com.guvi.busapp.repository.RouteRepository;
+import com.guvi.busapp.repository.projection.RouteEndpointCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+public class LocationSuggestServiceImpl implements LocationSuggestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationSuggestServiceImpl.class);
+
+    private final RouteRepository routeRepository;
+
+    // Immutable snapshot, swapped atomically on refresh so readers never lock
+    private volatile LocationIndex index = LocationIndex.EMPTY;
+
+    @Autowired
+    public LocationSuggestServiceImpl(RouteRepository routeRepository) {
+        this.routeRepository = routeRepository;
+    }
+
+    @Override
+    public List<String> suggest(String prefix, int limit) {
+        if (prefix == null || limit <= 0) return Collections.emptyList();
+        String key = normalize(prefix);
+        if (key.isEmpty()) return Collections.emptyList();
+        return index.lookup(key, limit);
+    }
+
+    @Override
+    public synchronized void refresh() {
+        List<RouteEndpointCount> endpoints = routeRepository.findRouteEndpointCounts();
+
+        // Popularity of a location = 1 per route it appears on + trips scheduled on those routes
+        Map<String, Long> scores = new HashMap<>();
+        Map<String, String> displayNames = new HashMap<>();
+        for (RouteEndpointCount endpoint : endpoints) {
+            long weight = 1 + (endpoint.getTripCount() != null ? endpoint.getTripCount() : 0);
+            addLocation(endpoint.getOrigin(), weight, scores, displayNames);
+            addLocation(endpoint.getDestination(), weight, scores, displayNames);
+        }
+
+        index = LocationIndex.build(scores, displayNames);
+        logger.info("Location suggestion index rebuilt: {} locations from {} routes.", scores.size(), endpoints.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true) // AFTER_COMMIT, so the rebuild sees the change
+    public void onRouteChanged(RouteChangedEvent event) {
+        logger.debug("Route change {} received, refreshing location suggestions.", event);
+        refresh();
+    }
+
+    // Trip counts drift as trips are scheduled; re-rank periodically instead of on every trip change
+    @Scheduled(initialDelayString = "${busapp.locations.refresh-interval-ms:600000}",
+            fixedDelayString = "${busapp.locations.refresh-interval-ms:600000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.error("Scheduled refresh of location suggestions failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void addLocation(String name, long weight, Map<String, Long> scores, Map<String, String> displayNames) {
+        if (name == null || name.isBlank()) return;
+        String key = normalize(name);
+        scores.merge(key, weight, Long::sum);
+        displayNames.putIfAbsent(key, name.trim());
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Sorted array of normalized names; a prefix maps to one contiguous slice found by binary search.
+     */
+    static final class LocationIndex {
+
+        static final LocationIndex EMPTY = new LocationIndex(new String[0], new String[0], new long[0]);
+
+        private final String[] keys;
+        private final String[] names;
+        private final long[] scores;
+
+        private LocationIndex(String[] keys, String[] names, long[] scores) {
+            this.keys = keys;
+            this.names = names;
+            this.scores = scores;
+        }
+
+        static LocationIndex build(Map<String, Long> scoreByKey, Map<String, String> displayNames) {
+            String[] keys = scoreByKey.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            String[] names = new String[keys.length];
+            long[] scores = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                names[i] = displayNames.get(keys[i]);
+                scores[i] = scoreByKey.get(keys[i]);
+            }
+            return new LocationIndex(keys, names, scores);
+        }
+
+        List<String> lookup(String prefix, int limit) {
+            int from = lowerBound(prefix);
+            List<Integer> matches = new ArrayList<>();
+            for (int i = from; i < keys.length && keys[i].startsWith(prefix); i++) {
+                matches.add(i);
+            }
+            // Most popular first; alphabetical (array order) breaks ties
+            matches.sort(Comparator.comparingLong((Integer i) -> scores[i]).reversed().thenComparingInt(i -> i));
+            List<String> result = new ArrayList<>(Math.min(limit, matches.size()));
+            for (int i = 0; i < matches.size() && result.size() < limit; i++) {
+                result.add(names[matches.get(i)]);
+            }
+            return result;
+        }
+
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+}
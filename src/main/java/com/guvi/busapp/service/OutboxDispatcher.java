@@ -0,0 +1,196 @@
+// src/main/java/com/guvi/busapp/service/OutboxDispatcher.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.event.BookingLifecycleEvent;
+import com.guvi.busapp.model.BookingOutboxEvent;
+import com.guvi.busapp.repository.BookingOutboxRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Polls the booking outbox and delivers each due event, oldest first, to in-process
+ * {@code @EventListener}s and then to every {@link OutboxSink}. Nothing here runs inside a
+ * booking transaction, so a slow consumer only delays delivery, never a booking.
+ *
+ * Delivery is at-least-once and tracked per consumer: each consumer that accepts an event is
+ * recorded on the row, and a retry only goes to the ones that haven't, so a failing sink never
+ * makes the email listener send its confirmation again. A failed event is retried with
+ * exponential backoff; after max-attempts it is dead-lettered (status DEAD). Ordering is kept
+ * per booking: a pending earlier event holds back the booking's later ones until it is
+ * dispatched or dead.
+ * Assumes a single application instance; several pollers would need row claiming first.
+ * Exposed as busapp.outbox.events{outcome=dispatched|failed|dead|deferred} and busapp.outbox.pending.
+ */
+@Component
+public class OutboxDispatcher implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    static final String LISTENERS = "listeners"; // All in-process @EventListeners, delivered as one consumer
+
+    private final BookingOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final List<OutboxSink> sinks;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+
+    @Autowired
+    public OutboxDispatcher(BookingOutboxRepository outboxRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            ObjectProvider<OutboxSink> sinks,
+                            @Value("${busapp.outbox.batch-size:100}") int batchSize,
+                            @Value("${busapp.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${busapp.outbox.backoff-ms:2000}") long backoffMillis) {
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.sinks = sinks.orderedStream().toList();
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(0, backoffMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${busapp.outbox.poll-interval-ms:1000}")
+    public void dispatchPending() {
+        List<BookingOutboxEvent> batch;
+        do {
+            batch = outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    BookingOutboxEvent.Status.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+            if (!dispatchBatch(batch)) return; // Something failed: back off until the next poll
+        } while (batch.size() == batchSize);
+    }
+
+    // True when every event in the batch reached a final status; false also when any was deferred,
+    // since deferred rows stay due and the next fetch would return them again
+    boolean dispatchBatch(List<BookingOutboxEvent> batch) {
+        Set<Long> blockedBookings = new HashSet<>();
+        for (BookingOutboxEvent row : batch) {
+            if (!blockedBookings.contains(row.getBookingId()) && outboxRepository.existsByBookingIdAndStatusAndIdLessThan(
+                    row.getBookingId(), BookingOutboxEvent.Status.PENDING, row.getId())) {
+                blockedBookings.add(row.getBookingId()); // An earlier event is waiting out its backoff
+            }
+            if (blockedBookings.contains(row.getBookingId())) {
+                deferred.increment(); // An earlier event of this booking is still undelivered
+                continue;
+            }
+            if (!dispatch(row)) {
+                blockedBookings.add(row.getBookingId());
+            }
+        }
+        return blockedBookings.isEmpty();
+    }
+
+    // True when the row reached a final status (dispatched or dead-lettered)
+    private boolean dispatch(BookingOutboxEvent row) {
+        BookingLifecycleEvent event = row.toEvent();
+        Set<String> delivered = row.deliveredConsumers();
+        String consumer = LISTENERS;
+        try {
+            if (!delivered.contains(LISTENERS)) {
+                eventPublisher.publishEvent(event);
+                accepted(row, delivered, LISTENERS);
+            }
+            for (OutboxSink sink : sinks) {
+                consumer = sink.name();
+                if (!delivered.contains(consumer)) {
+                    sink.deliver(event);
+                    accepted(row, delivered, consumer);
+                }
+            }
+        } catch (Exception e) {
+            int attempt = row.getAttempts() + 1;
+            String error = truncate(consumer + ": " + e.getMessage());
+            if (attempt >= maxAttempts) {
+                logger.error("Outbox event {} ({} for booking {}) dead-lettered after {} attempts; {} never got it: {}",
+                        row.getId(), row.getEventType(), row.getBookingId(), attempt, consumer, e.getMessage(), e);
+                outboxRepository.recordFailure(row.getId(), BookingOutboxEvent.Status.DEAD, error, LocalDateTime.now());
+                dead.increment();
+                return true; // Final: later events of the booking may proceed
+            }
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoff(attempt)));
+            logger.warn("Outbox event {} ({} for booking {}) failed in {} on attempt {}, retrying at {}: {}",
+                    row.getId(), row.getEventType(), row.getBookingId(), consumer, attempt, nextAttemptAt, e.getMessage());
+            outboxRepository.recordFailure(row.getId(), BookingOutboxEvent.Status.PENDING, error, nextAttemptAt);
+            failed.increment();
+            return false;
+        }
+        outboxRepository.markDispatched(row.getId(), LocalDateTime.now());
+        dispatched.increment();
+        return true;
+    }
+
+    // Recorded straight away, so a later consumer's failure can't make this one see the event twice
+    private void accepted(BookingOutboxEvent row, Set<String> delivered, String consumer) {
+        delivered.add(consumer);
+        outboxRepository.markDelivered(row.getId(), String.join(",", delivered));
+    }
+
+    // backoff, 2x backoff, 4x backoff... capped at ten minutes
+    long backoff(int attempt) {
+        return Math.min(MAX_BACKOFF_MILLIS, backoffMillis << Math.min(attempt - 1, 20));
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("busapp.outbox.events", dispatched, LongAdder::sum)
+                .description("Booking outbox events delivered to every consumer")
+                .tag("outcome", "dispatched")
+                .register(registry);
+        FunctionCounter.builder("busapp.outbox.events", failed, LongAdder::sum)
+                .description("Booking outbox delivery attempts that failed and will be retried")
+                .tag("outcome", "failed")
+                .register(registry);
+        FunctionCounter.builder("busapp.outbox.events", dead, LongAdder::sum)
+                .description("Booking outbox events dead-lettered after max-attempts")
+                .tag("outcome", "dead")
+                .register(registry);
+        FunctionCounter.builder("busapp.outbox.events", deferred, LongAdder::sum)
+                .description("Booking outbox events held back behind an earlier failed event of the same booking")
+                .tag("outcome", "deferred")
+                .register(registry);
+        Gauge.builder("busapp.outbox.pending", outboxRepository, repository -> repository.countByStatus(BookingOutboxEvent.Status.PENDING))
+                .description("Booking outbox events not yet dispatched")
+                .register(registry);
+    }
+
+    long getDispatchedCount() {
+        return dispatched.sum();
+    }
+
+    long getDeadCount() {
+        return dead.sum();
+    }
+
+    long getDeferredCount() {
+        return deferred.sum();
+    }
+}
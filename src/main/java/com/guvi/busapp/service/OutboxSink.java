@@ -0,0 +1,16 @@
+// src/main/java/com/guvi/busapp/service/OutboxSink.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.event.BookingLifecycleEvent;
+
+/**
+ * External consumer of booking lifecycle events (a message broker, a file, a queue).
+ * Called by OutboxDispatcher outside any booking transaction; throwing leaves the event
+ * undispatched so it is retried, so implementations must accept repeats.
+ */
+public interface OutboxSink {
+
+    String name();
+
+    void deliver(BookingLifecycleEvent event) throws Exception;
+}
@@ -0,0 +1,23 @@
+// src/main/java/com/guvi/busapp/service/PaymentGateway.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.exception.PaymentGatewayException;
+
+/**
+ * Payment provider calls made by the application. Selected with busapp.payment.gateway:
+ * "stripe" (default) or "simulator" for offline load tests. Either way the outcome of a payment
+ * arrives later as a signed webhook on /api/stripe/webhook.
+ */
+public interface PaymentGateway {
+
+    /** A created payment intent: the provider's id and the secret the browser confirms it with. */
+    record CreatedIntent(String id, String clientSecret) {
+    }
+
+    String name();
+
+    /**
+     * @param amount amount in the currency's smallest unit (paise for INR)
+     */
+    CreatedIntent createPaymentIntent(Long bookingId, long amount, String currency, String userEmail) throws PaymentGatewayException;
+}
@@ -0,0 +1,252 @@
+// src/main/java/com/guvi/busapp/service/PaymentGatewayGuard.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.exception.PaymentGatewayException;
+import com.guvi.busapp.exception.PaymentNotAttemptedException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulkhead, timeout and circuit breaker around payment provider calls, so a slow Stripe can
+ * only tie up its own small pool instead of every Tomcat request thread.
+ *
+ * - Calls run on a bounded pool (max-concurrent threads, queue-capacity waiting). When both
+ *   are full the call is rejected straight away.
+ * - The caller waits at most timeout-ms, queue time included. A call that overruns is
+ *   cancelled and counted as a failure.
+ * - After failure-threshold consecutive provider faults (timeouts, connection errors, 5xx and
+ *   429, see PaymentGatewayException.isProviderFault) the circuit opens and calls fail fast for
+ *   open-ms. Then a single trial call is let through (half-open): success closes the circuit,
+ *   a fault opens it again. Errors about the request itself, such as a 400 or a declined
+ *   card, neither count nor reset the count.
+ *
+ * Every refusal is a RejectedExecutionException, which the controllers already answer with 503.
+ * The circuit-open and bulkhead-full ones are PaymentNotAttemptedException: the provider was
+ * never called. A timeout is not, since the request may already have reached the provider.
+ * Exposed as busapp.payment.gateway.calls{outcome=success|failure|timeout} (timer),
+ * busapp.payment.gateway.rejected{reason=circuit_open|bulkhead_full} and
+ * busapp.payment.gateway.circuit{state=closed|open|half_open} (1 for the current state).
+ */
+@Component
+public class PaymentGatewayGuard implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentGatewayGuard.class);
+
+    // A gateway call that may throw the provider's checked exception
+    @FunctionalInterface
+    public interface GatewayCall<T> {
+        T call() throws PaymentGatewayException;
+    }
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final long timeoutMillis;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final ThreadPoolExecutor executor;
+
+    // Breaker state, guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMillis;
+    private boolean trialInFlight;
+
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder bulkheadRejected = new LongAdder();
+    private volatile Timer successTimer;
+    private volatile Timer failureTimer;
+    private volatile Timer timeoutTimer;
+
+    @Autowired
+    public PaymentGatewayGuard(@Value("${busapp.payment.gateway.max-concurrent:10}") int maxConcurrent,
+                               @Value("${busapp.payment.gateway.queue-capacity:20}") int queueCapacity,
+                               @Value("${busapp.payment.gateway.timeout-ms:5000}") long timeoutMillis,
+                               @Value("${busapp.payment.gateway.failure-threshold:5}") int failureThreshold,
+                               @Value("${busapp.payment.gateway.open-ms:30000}") long openMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        int threads = Math.max(1, maxConcurrent);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-gateway-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs {@code call} on the gateway pool and waits for it. The provider's own exceptions are
+     * rethrown unchanged; refusals and timeouts surface as RejectedExecutionException, with refusals
+     * that never reached the provider as its PaymentNotAttemptedException subclass.
+     */
+    public <T> T call(GatewayCall<T> call) throws PaymentGatewayException {
+        if (!tryAcquire()) {
+            shortCircuited.increment();
+            throw new PaymentNotAttemptedException("Payment provider is unavailable, please retry shortly.");
+        }
+        long start = System.nanoTime();
+        Callable<T> task = call::call;
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            release(); // Says nothing about the provider's health
+            bulkheadRejected.increment();
+            throw new PaymentNotAttemptedException("Too many payments in progress, please retry.");
+        }
+        try {
+            T result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            onSuccess();
+            record(successTimer, start);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true); // Dropped if still queued; the SDK read timeout bounds one already on the wire
+            onFailure();
+            record(timeoutTimer, start);
+            throw new RejectedExecutionException("Payment provider did not respond within " + timeoutMillis + " ms, please retry.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            release();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the payment provider.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof PaymentGatewayException gatewayError && gatewayError.isProviderFault()) {
+                onFailure();
+            } else {
+                release(); // A declined card or a bad request says nothing about the provider's health
+            }
+            record(failureTimer, start);
+            if (cause instanceof PaymentGatewayException) throw (PaymentGatewayException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new PaymentGatewayException("Payment provider call failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAtMillis < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                logger.info("Payment gateway circuit half-open: letting a trial call through.");
+                trialInFlight = true;
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false; // Only one trial at a time
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    // The call never reached the provider; lets the next caller take the trial
+    private synchronized void release() {
+        trialInFlight = false;
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("Payment gateway circuit closed.");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    private synchronized void onFailure() {
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                logger.warn("Payment gateway circuit opened; failing fast for {} ms.", openMillis);
+            }
+            state = State.OPEN;
+            openedAtMillis = System.currentTimeMillis();
+            consecutiveFailures = 0;
+        }
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    long getShortCircuitedCount() {
+        return shortCircuited.sum();
+    }
+
+    long getBulkheadRejectedCount() {
+        return bulkheadRejected.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        successTimer = callTimer(registry, "success", "Payment provider calls that succeeded");
+        failureTimer = callTimer(registry, "failure", "Payment provider calls that returned an error");
+        timeoutTimer = callTimer(registry, "timeout", "Payment provider calls abandoned after timeout-ms");
+        FunctionCounter.builder("busapp.payment.gateway.rejected", shortCircuited, LongAdder::sum)
+                .description("Payment provider calls refused while the circuit was open")
+                .tag("reason", "circuit_open")
+                .register(registry);
+        FunctionCounter.builder("busapp.payment.gateway.rejected", bulkheadRejected, LongAdder::sum)
+                .description("Payment provider calls refused because the gateway pool was full")
+                .tag("reason", "bulkhead_full")
+                .register(registry);
+        for (State each : State.values()) {
+            Gauge.builder("busapp.payment.gateway.circuit", this, guard -> guard.getState() == each ? 1 : 0)
+                    .description("1 for the payment gateway circuit's current state")
+                    .tag("state", each.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        Gauge.builder("busapp.payment.gateway.in-flight", executor, pool -> pool.getActiveCount() + pool.getQueue().size())
+                .description("Payment provider calls running or waiting for a gateway thread")
+                .register(registry);
+    }
+
+    private static Timer callTimer(MeterRegistry registry, String outcome, String description) {
+        return Timer.builder("busapp.payment.gateway.calls")
+                .description(description)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+}
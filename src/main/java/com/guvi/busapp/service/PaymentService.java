@@ -1,15 +1,15 @@
 // src/main/java/com/guvi/busapp/service/PaymentService.java
 package com.guvi.busapp.service;
 
-import com.stripe.exception.StripeException;
-import com.stripe.model.PaymentIntent;
+import com.guvi.busapp.exception.PaymentGatewayException;
 
 /**
  * Service interface for handling payment gateway interactions.
  */
 public interface PaymentService {
 
-    PaymentIntent createPaymentIntent(Long bookingId, Long amount, String currency, String userEmail) throws StripeException;
+    // Goes through the configured PaymentGateway; the outcome arrives later as a webhook
+    PaymentGateway.CreatedIntent createPaymentIntent(Long bookingId, Long amount, String currency, String userEmail) throws PaymentGatewayException;
 
     boolean verifyWebhookSignature(String payload, String sigHeader);
 
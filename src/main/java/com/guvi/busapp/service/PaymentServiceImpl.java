@@ -1,27 +1,29 @@
 // src/main/java/com/guvi/busapp/service/PaymentServiceImpl.java
 package com.guvi.busapp.service;
 
+import com.guvi.busapp.event.BookingLifecycleEvent;
+import com.guvi.busapp.event.TripAvailabilityChangedEvent;
+import com.guvi.busapp.exception.PaymentGatewayException;
+import com.guvi.busapp.exception.PaymentNotAttemptedException;
 import com.guvi.busapp.exception.ResourceNotFoundException;
 import com.guvi.busapp.model.Booking;
 import com.guvi.busapp.model.Passenger;
 import com.guvi.busapp.model.ScheduledTrip;
 import com.guvi.busapp.repository.BookingRepository;
 import com.guvi.busapp.repository.ScheduledTripRepository;
-import com.stripe.Stripe;
 import com.stripe.exception.SignatureVerificationException;
-import com.stripe.exception.StripeException;
-import com.stripe.model.PaymentIntent; // Keep for createPaymentIntent return type
 import com.stripe.net.Webhook;
-import com.stripe.param.PaymentIntentCreateParams;
-import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -31,9 +33,6 @@ public class PaymentServiceImpl implements PaymentService {
 
     private static final Logger logger = LoggerFactory.getLogger(PaymentServiceImpl.class);
 
-    @Value("${stripe.secret.key}")
-    private String stripeSecretKey;
-
     // Use @Value now that property loading should be fixed
     @Value("${stripe.webhook.secret}")
     private String stripeWebhookSecret;
@@ -42,32 +41,39 @@ public class PaymentServiceImpl implements PaymentService {
     private BookingRepository bookingRepository;
     @Autowired
     private ScheduledTripRepository scheduledTripRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
-    @Autowired(required = false)
-    private EmailService emailService;
+    @Autowired
+    private BookingOutbox bookingOutbox;
 
-    @PostConstruct
-    public void init() {
-        Stripe.apiKey = stripeSecretKey;
-        logger.info("Stripe API Key initialized.");
-    }
+    @Autowired
+    private PaymentGateway paymentGateway; // Stripe, or the offline simulator (busapp.payment.gateway)
+
+    @Autowired
+    private PaymentGatewayGuard paymentGatewayGuard;
 
     @Override
-    public PaymentIntent createPaymentIntent(Long bookingId, Long amount, String currency, String userEmail) throws StripeException {
-        // ... (no changes needed here) ...
-        logger.info("Creating Stripe Payment Intent for booking ID: {}, Amount: {}, Currency: {}", bookingId, amount, currency);
-        PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
-                .setAmount(amount)
-                .setCurrency(currency.toLowerCase())
-                .setAutomaticPaymentMethods(
-                        PaymentIntentCreateParams.AutomaticPaymentMethods.builder().setEnabled(true).build()
-                )
-                .putMetadata("booking_id", String.valueOf(bookingId))
-                .putMetadata("user_email", userEmail)
-                .setDescription("Bus Ticket Booking #" + bookingId)
-                .build();
-        PaymentIntent paymentIntent = PaymentIntent.create(params);
-        logger.info("Stripe Payment Intent created successfully: {}", paymentIntent.getId());
+    public PaymentGateway.CreatedIntent createPaymentIntent(Long bookingId, Long amount, String currency, String userEmail)
+            throws PaymentGatewayException {
+        logger.info("Creating {} payment intent for booking ID: {}, Amount: {}, Currency: {}", paymentGateway.name(), bookingId, amount, currency);
+        // From here on the customer may pay, so cancelBooking refuses the booking until the payment settles.
+        // Millisecond precision so clearPaymentStarted can match the stored value on any DATETIME scale.
+        LocalDateTime startedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        if (bookingRepository.markPaymentStarted(bookingId, startedAt) == 0) {
+            throw new IllegalStateException("Booking " + bookingId + " is no longer awaiting payment.");
+        }
+        PaymentGateway.CreatedIntent paymentIntent;
+        try {
+            paymentIntent = paymentGatewayGuard.call(
+                    () -> paymentGateway.createPaymentIntent(bookingId, amount, currency, userEmail));
+        } catch (PaymentNotAttemptedException e) {
+            // Nothing reached the provider, so the booking may be cancelled again. Not done after a timeout:
+            // that intent may still exist, and a retry gets it back through the idempotency key.
+            bookingRepository.clearPaymentStarted(bookingId, startedAt);
+            throw e;
+        }
+        logger.info("Payment intent created successfully: {}", paymentIntent.id());
         return paymentIntent;
     }
 
@@ -93,7 +99,7 @@ public class PaymentServiceImpl implements PaymentService {
     @Transactional // Ensure atomicity
     public void handlePaymentSuccess(String paymentIntentId, Long bookingId, Long amount, String currency) {
         logger.info("Handling PaymentIntent Succeeded: PI_ID={}, Booking_ID={}", paymentIntentId, bookingId);
-        // bookingId is already extracted and validated in the controller
+        // bookingId is already extracted and validated by WebhookInboxProcessor
 
         try {
             // Retrieve the booking using the validated bookingId
@@ -146,30 +152,14 @@ public class PaymentServiceImpl implements PaymentService {
                 logger.info("Updated status to BOOKED for {} seats on trip ID {}.", updatedCount, trip.getId());
             }
 
-            // Trigger Email Notification
-            Booking confirmedBookingForEmail = bookingRepository.findById(bookingId).orElse(null); // Re-fetch fresh data if needed
-            if (emailService != null && confirmedBookingForEmail != null) {
-                try {
-                    if (confirmedBookingForEmail.getUser() != null) confirmedBookingForEmail.getUser().getEmail();
-                    if (confirmedBookingForEmail.getScheduledTrip() != null) {
-                        if (confirmedBookingForEmail.getScheduledTrip().getBus() != null) confirmedBookingForEmail.getScheduledTrip().getBus().getId();
-                        if (confirmedBookingForEmail.getScheduledTrip().getRoute() != null) confirmedBookingForEmail.getScheduledTrip().getRoute().getId();
-                    }
-                    confirmedBookingForEmail.getPassengers().size();
-
-                    logger.info("Attempting to send confirmation email for booking ID: {}", confirmedBookingForEmail.getId());
-                    emailService.sendBookingConfirmation(confirmedBookingForEmail);
-                } catch (Exception emailEx) {
-                    logger.error("Error triggering confirmation email for booking ID {}: {}", bookingId, emailEx.getMessage(), emailEx);
-                }
-            } else if (emailService == null) {
-                logger.warn("EmailService not available. Skipping confirmation email for booking ID: {}", bookingId);
-            }
+            // Confirmation email and any other consumers are driven from the outbox after commit
+            bookingOutbox.record(booking, BookingLifecycleEvent.Type.CONFIRMED);
 
         } catch (ResourceNotFoundException e) {
             logger.error("Webhook Error: Resource not found while processing success for PI ID: {}. Message: {}", paymentIntentId, e.getMessage());
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             logger.error("Webhook Error: Unexpected error handling payment success for PI ID: {}. Error: {}", paymentIntentId, e.getMessage(), e);
+            throw e; // Rolls back and leaves the inbox event pending for a retry
         }
     }
 
@@ -177,7 +167,7 @@ public class PaymentServiceImpl implements PaymentService {
     @Transactional // Ensure atomicity
     public void handlePaymentFailure(String paymentIntentId, Long bookingId) {
         logger.warn("Handling PaymentIntent Failed: PI_ID={}, Booking_ID={}", paymentIntentId, bookingId);
-        // bookingId is already extracted and validated in the controller
+        // bookingId is already extracted and validated by WebhookInboxProcessor
 
         try {
             Booking booking = bookingRepository.findById(bookingId)
@@ -191,6 +181,7 @@ public class PaymentServiceImpl implements PaymentService {
             // Update Booking Status
             booking.setStatus(Booking.BookingStatus.FAILED);
             bookingRepository.save(booking);
+            bookingOutbox.record(booking, BookingLifecycleEvent.Type.FAILED);
             logger.info("Booking ID {} status updated to FAILED.", bookingId);
 
             // Update Scheduled Trip Seats - Revert Lock to Available
@@ -218,6 +209,7 @@ public class PaymentServiceImpl implements PaymentService {
                     int currentAvailable = trip.getAvailableSeats() != null ? trip.getAvailableSeats() : 0;
                     trip.setAvailableSeats(currentAvailable + releasedCount);
                     scheduledTripRepository.save(trip);
+                    eventPublisher.publishEvent(TripAvailabilityChangedEvent.seatsChanged(trip, currentAvailable));
                     logger.info("Reverted status to AVAILABLE for {} seats and updated available count for trip ID {}.", releasedCount, trip.getId());
                 } else {
                     logger.warn("No seats found in LOCKED state to release for failed booking ID {} on trip {}.", bookingId, trip.getId());
@@ -226,8 +218,9 @@ public class PaymentServiceImpl implements PaymentService {
             // TODO: Notify user of payment failure?
         } catch (ResourceNotFoundException e) {
             logger.error("Webhook Error: Resource not found while processing failure for PI ID: {}. Message: {}", paymentIntentId, e.getMessage());
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             logger.error("Webhook Error: Unexpected error handling payment failure for PI ID: {}. Error: {}", paymentIntentId, e.getMessage(), e);
+            throw e; // Rolls back and leaves the inbox event pending for a retry
         }
     }
 }
\ No newline at end of file
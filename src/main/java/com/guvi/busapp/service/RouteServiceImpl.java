@@ -2,10 +2,12 @@
 package com.guvi.busapp.service;
 
 import com.guvi.busapp.dto.RouteDto;
+import com.guvi.busapp.event.RouteChangedEvent;
 import com.guvi.busapp.exception.ResourceNotFoundException;
 import com.guvi.busapp.model.Route;
 import com.guvi.busapp.repository.RouteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,10 +18,15 @@ import java.util.stream.Collectors;
 public class RouteServiceImpl implements RouteService {
 
     private final RouteRepository routeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingViewProjector bookingViewProjector;
 
     @Autowired
-    public RouteServiceImpl(RouteRepository routeRepository) {
+    public RouteServiceImpl(RouteRepository routeRepository, ApplicationEventPublisher eventPublisher,
+                            BookingViewProjector bookingViewProjector) {
         this.routeRepository = routeRepository;
+        this.eventPublisher = eventPublisher;
+        this.bookingViewProjector = bookingViewProjector;
     }
 
     // --- Helper Mapping Methods ---
@@ -54,6 +61,7 @@ public class RouteServiceImpl implements RouteService {
 
         Route route = mapToEntity(routeDto);
         Route savedRoute = routeRepository.save(route);
+        eventPublisher.publishEvent(new RouteChangedEvent(savedRoute.getId(), RouteChangedEvent.ChangeType.CREATED));
         return mapToDto(savedRoute);
     }
 
@@ -102,6 +110,8 @@ public class RouteServiceImpl implements RouteService {
 
         // 4. Save updated route
         Route updatedRoute = routeRepository.save(existingRoute);
+        bookingViewProjector.refreshRoute(updatedRoute); // Booking history copies route names
+        eventPublisher.publishEvent(new RouteChangedEvent(updatedRoute.getId(), RouteChangedEvent.ChangeType.UPDATED));
         return mapToDto(updatedRoute);
     }
 
@@ -113,6 +123,7 @@ public class RouteServiceImpl implements RouteService {
                 .orElseThrow(() -> new ResourceNotFoundException("Route", "ID", id));
 
         routeRepository.delete(route);
+        eventPublisher.publishEvent(new RouteChangedEvent(id, RouteChangedEvent.ChangeType.DELETED));
     }
 
     @Override
@@ -1,23 +1,27 @@
 package com.guvi.busapp.service;
 
+import com.guvi.busapp.event.BookingLifecycleEvent;
+import com.guvi.busapp.event.TripAvailabilityChangedEvent;
 import com.guvi.busapp.model.Booking;
 import com.guvi.busapp.model.Passenger;
 import com.guvi.busapp.model.ScheduledTrip;
 import com.guvi.busapp.repository.BookingRepository;
 import com.guvi.busapp.repository.ScheduledTripRepository;
 import org.slf4j.Logger;
-import com.guvi.busapp.exception.ResourceNotFoundException;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.EnableScheduling; // Import EnableScheduling
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional; // Import Transactional
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Component
@@ -35,10 +39,21 @@ public class ScheduledTasks {
     @Autowired
     private ScheduledTripRepository scheduledTripRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BookingOutbox bookingOutbox;
+
+    @Autowired
+    private TripWriteQueue tripWriteQueue;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     // Scheduled task to run periodically (e.g., every minute)
     // cron = "0 * * * * ?" means run at the start of every minute
     @Scheduled(cron = "0 * * * * ?")
-    @Transactional // Make the entire cleanup process atomic
     public void releaseExpiredLockedSeats() {
         LocalDateTime expiryTime = LocalDateTime.now().minusMinutes(LOCK_EXPIRY_MINUTES);
         logger.debug("Running expired seat lock cleanup task. Checking for bookings older than {}", expiryTime);
@@ -54,67 +69,89 @@ public class ScheduledTasks {
 
         logger.info("Found {} expired PENDING bookings to process.", expiredPendingBookings.size());
 
+        // Each expiry releases seats, so like every other seat mutation it runs on the trip's write
+        // queue (inline when the queue is off), in its own transaction or its shard's group commit
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
         for (Booking booking : expiredPendingBookings) {
-            logger.warn("Processing expired PENDING booking ID: {}", booking.getId());
+            Long bookingId = booking.getId();
+            Long tripId = booking.getScheduledTrip().getId();
+            logger.warn("Processing expired PENDING booking ID: {}", bookingId);
             try {
-                // Fetch the associated trip with a lock
-                ScheduledTrip trip = scheduledTripRepository.findByIdForUpdate(booking.getScheduledTrip().getId())
-                        .orElseThrow(() -> new ResourceNotFoundException("ScheduledTrip", "ID", booking.getScheduledTrip().getId()));
-
-                Map<String, ScheduledTrip.SeatStatus> seatStatusMap = trip.getSeatStatus();
-                if (seatStatusMap == null) {
-                    logger.error("Seat status map is null for trip ID {} during cleanup! Skipping booking ID {}.", trip.getId(), booking.getId());
-                    // Mark booking as failed anyway?
-                    booking.setStatus(Booking.BookingStatus.FAILED);
-                    bookingRepository.save(booking);
-                    logger.error("Marked booking ID {} as FAILED due to missing seat map on trip.", booking.getId());
-                    continue; // Skip to next booking
-                }
-
-                // Get seats associated with this expired booking
-                Set<String> seatsToRelease = booking.getPassengers().stream()
-                        .map(Passenger::getSeatNumber)
-                        .collect(Collectors.toSet());
-
-                int releasedCount = 0;
-                for (String seatNum : seatsToRelease) {
-                    // Only release if the seat is currently LOCKED
-                    if (seatStatusMap.get(seatNum) == ScheduledTrip.SeatStatus.LOCKED) {
-                        seatStatusMap.put(seatNum, ScheduledTrip.SeatStatus.AVAILABLE);
-                        releasedCount++;
-                    } else {
-                        // If it's already BOOKED or AVAILABLE, something else happened (e.g., webhook processed, another cleanup ran?)
-                        // Or maybe it failed payment and was already reverted. Log this inconsistency.
-                        logger.warn("Seat {} for expired booking ID {} on trip {} was not in LOCKED state (Actual: {}). Still marking booking as FAILED.",
-                                seatNum, booking.getId(), trip.getId(), seatStatusMap.get(seatNum));
-                    }
-                }
-
-                // Update available seats count only if seats were actually released
-                if (releasedCount > 0) {
-                    int currentAvailable = trip.getAvailableSeats() != null ? trip.getAvailableSeats() : 0;
-                    trip.setAvailableSeats(currentAvailable + releasedCount);
-                    scheduledTripRepository.save(trip);
-                    logger.info("Released {} seats and updated available count for trip ID {} due to expired booking ID {}.", releasedCount, trip.getId(), booking.getId());
-                } else {
-                    logger.warn("No seats found in LOCKED state to release for expired booking ID {} on trip {}.", booking.getId(), trip.getId());
-                }
-
-                // Update the booking status to FAILED (or CANCELLED_BY_SYSTEM)
-                booking.setStatus(Booking.BookingStatus.FAILED); // Or a more specific status
-                bookingRepository.save(booking);
-                logger.info("Marked expired booking ID {} as {}.", booking.getId(), booking.getStatus());
-
-            } catch (ResourceNotFoundException e) {
-                logger.error("ScheduledTrip not found for expired booking ID {} during cleanup. Marking booking as FAILED.", booking.getId(), e);
-                booking.setStatus(Booking.BookingStatus.FAILED);
-                bookingRepository.save(booking);
+                tripWriteQueue.execute(tripId, () -> transaction.execute(status -> {
+                    expire(bookingId, tripId);
+                    return null;
+                }));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Trip {} write queue busy; expired booking ID {} will be retried on the next run.", tripId, bookingId);
             } catch (Exception e) {
                 // Catch unexpected errors during processing of a single booking
-                logger.error("Error processing expired booking ID {}: {}", booking.getId(), e.getMessage(), e);
+                logger.error("Error processing expired booking ID {}: {}", bookingId, e.getMessage(), e);
                 // Continue to the next booking
             }
         }
         logger.debug("Finished expired seat lock cleanup task.");
     }
-}
\ No newline at end of file
+
+    // Trip lock first, then the booking re-read under it, as cancelBooking does
+    private void expire(Long bookingId, Long tripId) {
+        ScheduledTrip trip = scheduledTripRepository.findByIdForUpdate(tripId).orElse(null);
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId).orElse(null);
+        if (booking == null || booking.getStatus() != Booking.BookingStatus.PENDING) {
+            logger.info("Expired booking ID {} is no longer PENDING ({}); nothing to release.",
+                    bookingId, booking != null ? booking.getStatus() : "deleted");
+            return;
+        }
+        if (trip == null) {
+            logger.error("ScheduledTrip not found for expired booking ID {} during cleanup. Marking booking as FAILED.", bookingId);
+            booking.setStatus(Booking.BookingStatus.FAILED);
+            bookingRepository.save(booking);
+            return;
+        }
+
+        Map<String, ScheduledTrip.SeatStatus> seatStatusMap = trip.getSeatStatus();
+        if (seatStatusMap == null) {
+            logger.error("Seat status map is null for trip ID {} during cleanup! Skipping booking ID {}.", trip.getId(), bookingId);
+            // Mark booking as failed anyway?
+            booking.setStatus(Booking.BookingStatus.FAILED);
+            bookingRepository.save(booking);
+            logger.error("Marked booking ID {} as FAILED due to missing seat map on trip.", bookingId);
+            return;
+        }
+
+        // Get seats associated with this expired booking
+        Set<String> seatsToRelease = booking.getPassengers().stream()
+                .map(Passenger::getSeatNumber)
+                .collect(Collectors.toSet());
+
+        int releasedCount = 0;
+        for (String seatNum : seatsToRelease) {
+            // Only release if the seat is currently LOCKED
+            if (seatStatusMap.get(seatNum) == ScheduledTrip.SeatStatus.LOCKED) {
+                seatStatusMap.put(seatNum, ScheduledTrip.SeatStatus.AVAILABLE);
+                releasedCount++;
+            } else {
+                // If it's already BOOKED or AVAILABLE, something else happened (e.g., webhook processed, another cleanup ran?)
+                // Or maybe it failed payment and was already reverted. Log this inconsistency.
+                logger.warn("Seat {} for expired booking ID {} on trip {} was not in LOCKED state (Actual: {}). Still marking booking as FAILED.",
+                        seatNum, bookingId, trip.getId(), seatStatusMap.get(seatNum));
+            }
+        }
+
+        // Update available seats count only if seats were actually released
+        if (releasedCount > 0) {
+            int currentAvailable = trip.getAvailableSeats() != null ? trip.getAvailableSeats() : 0;
+            trip.setAvailableSeats(currentAvailable + releasedCount);
+            scheduledTripRepository.save(trip);
+            eventPublisher.publishEvent(TripAvailabilityChangedEvent.seatsChanged(trip, currentAvailable));
+            logger.info("Released {} seats and updated available count for trip ID {} due to expired booking ID {}.", releasedCount, trip.getId(), bookingId);
+        } else {
+            logger.warn("No seats found in LOCKED state to release for expired booking ID {} on trip {}.", bookingId, trip.getId());
+        }
+
+        // Update the booking status to FAILED (or CANCELLED_BY_SYSTEM)
+        booking.setStatus(Booking.BookingStatus.FAILED); // Or a more specific status
+        bookingRepository.save(booking);
+        bookingOutbox.record(booking, BookingLifecycleEvent.Type.EXPIRED);
+        logger.info("Marked expired booking ID {} as {}.", bookingId, booking.getStatus());
+    }
+}
@@ -4,6 +4,8 @@ package com.guvi.busapp.service;
 import com.guvi.busapp.dto.ScheduledTripRequestDto;
 import com.guvi.busapp.dto.ScheduledTripResponseDto;
 import com.guvi.busapp.dto.SeatLayoutDto;
+import com.guvi.busapp.dto.TripSearchCriteria;
+import com.guvi.busapp.dto.TripSearchPageDto;
 import com.guvi.busapp.exception.ResourceNotFoundException;
 import com.guvi.busapp.exception.SeatUnavailableException; // **** ADDED Import ****
 
@@ -22,6 +24,17 @@ public interface ScheduledTripService {
     ScheduledTripResponseDto updateScheduledTrip(Long id, ScheduledTripRequestDto requestDto);
     void deleteScheduledTrip(Long id);
     List<ScheduledTripResponseDto> findAvailableTrips(String origin, String destination, LocalDate date);
+
+    /**
+     * Searches available trips for a corridor and day, one sorted page at a time.
+     * Pages are keyset-based: the cursor carries the last row's sort value and id,
+     * so deep pages cost the same as the first and stay stable while seats change.
+     *
+     * @param criteria Origin, destination, date, sort order, optional cursor and page size.
+     * @return The page of trips plus the cursor for the next page (null when there is none).
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort order.
+     */
+    TripSearchPageDto findAvailableTrips(TripSearchCriteria criteria);
     SeatLayoutDto getSeatLayoutForTrip(Long tripId);
 
     //  Method Signature for Seat Locking
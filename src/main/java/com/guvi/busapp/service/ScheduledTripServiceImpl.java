@@ -2,27 +2,40 @@
 package com.guvi.busapp.service;
 
 import com.guvi.busapp.dto.*;
+import com.guvi.busapp.event.TripAvailabilityChangedEvent;
 import com.guvi.busapp.exception.ResourceNotFoundException;
 import com.guvi.busapp.exception.SeatUnavailableException;
+import com.guvi.busapp.model.Amenity;
 import com.guvi.busapp.model.Bus;
 import com.guvi.busapp.model.Route;
 import com.guvi.busapp.model.ScheduledTrip;
 import com.guvi.busapp.repository.BusRepository;
 import com.guvi.busapp.repository.RouteRepository;
 import com.guvi.busapp.repository.ScheduledTripRepository;
+import com.guvi.busapp.repository.projection.BusAmenityRow;
+import com.guvi.busapp.repository.projection.TripRow;
+import com.guvi.busapp.util.KeysetCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import java.util.stream.Collectors;
 
@@ -31,17 +44,33 @@ public class ScheduledTripServiceImpl implements ScheduledTripService {
 
     private static final Logger logger = LoggerFactory.getLogger(ScheduledTripServiceImpl.class);
 
+    // Filtered searches read FILTER_BATCH_FACTOR x page rows per seek and give up after MAX_FILTER_SCAN_ROWS
+    private static final int FILTER_BATCH_FACTOR = 4;
+    private static final int MAX_FILTER_SCAN_ROWS = 1000;
+
     private final ScheduledTripRepository scheduledTripRepository;
     private final BusRepository busRepository;
     private final RouteRepository routeRepository;
+    private final TripSearchCoalescer searchCoalescer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ServedCorridorIndex servedCorridorIndex;
+    private final BookingViewProjector bookingViewProjector;
 
     @Autowired
     public ScheduledTripServiceImpl(ScheduledTripRepository scheduledTripRepository,
                                     BusRepository busRepository,
-                                    RouteRepository routeRepository) {
+                                    RouteRepository routeRepository,
+                                    TripSearchCoalescer searchCoalescer,
+                                    ApplicationEventPublisher eventPublisher,
+                                    ServedCorridorIndex servedCorridorIndex,
+                                    BookingViewProjector bookingViewProjector) {
         this.scheduledTripRepository = scheduledTripRepository;
         this.busRepository = busRepository;
         this.routeRepository = routeRepository;
+        this.searchCoalescer = searchCoalescer;
+        this.eventPublisher = eventPublisher;
+        this.servedCorridorIndex = servedCorridorIndex;
+        this.bookingViewProjector = bookingViewProjector;
     }
 
     // --- Helper Mapping Methods ---
@@ -84,6 +113,46 @@ public class ScheduledTripServiceImpl implements ScheduledTripService {
         return dto;
     }
 
+    // Read-side mapping from projections; amenities come from one batched query for all buses
+    private List<ScheduledTripResponseDto> mapRowsToResponseDtos(List<TripRow> rows) {
+        if (rows.isEmpty()) return new ArrayList<>();
+        Set<Long> busIds = rows.stream().map(TripRow::getBusId).collect(Collectors.toSet());
+        Map<Long, Set<String>> amenitiesByBus = new HashMap<>();
+        for (BusAmenityRow amenityRow : busRepository.findAmenitiesByBusIds(busIds)) {
+            amenitiesByBus.computeIfAbsent(amenityRow.getBusId(), id -> new HashSet<>()).add(amenityRow.getAmenity());
+        }
+        return rows.stream()
+                .map(row -> mapRowToResponseDto(row, amenitiesByBus.getOrDefault(row.getBusId(), Collections.emptySet())))
+                .collect(Collectors.toList());
+    }
+
+    private ScheduledTripResponseDto mapRowToResponseDto(TripRow row, Set<String> amenities) {
+        BusDto busDto = new BusDto();
+        busDto.setId(row.getBusId());
+        busDto.setBusNumber(row.getBusNumber());
+        busDto.setOperatorName(row.getOperatorName());
+        busDto.setBusType(row.getBusType());
+        busDto.setTotalSeats(row.getTotalSeats());
+        busDto.setAmenities(new HashSet<>(amenities));
+        busDto.setSeatLayout(row.getSeatLayout());
+
+        RouteDto routeDto = new RouteDto();
+        routeDto.setId(row.getRouteId());
+        routeDto.setOrigin(row.getOrigin());
+        routeDto.setDestination(row.getDestination());
+
+        ScheduledTripResponseDto dto = new ScheduledTripResponseDto();
+        dto.setId(row.getId());
+        dto.setBus(busDto);
+        dto.setRoute(routeDto);
+        dto.setDepartureDate(row.getDepartureDate());
+        dto.setDepartureTime(row.getDepartureTime());
+        dto.setArrivalTime(row.getArrivalTime());
+        dto.setFare(row.getFare());
+        dto.setAvailableSeats(row.getAvailableSeats());
+        return dto;
+    }
+
     private Map<String, ScheduledTrip.SeatStatus> initializeSeats(Bus bus) {
         Map<String, ScheduledTrip.SeatStatus> seatStatusMap = new HashMap<>();
         String layout = bus.getSeatLayout();
@@ -148,6 +217,7 @@ public class ScheduledTripServiceImpl implements ScheduledTripService {
 
         savedTrip.getBus().getBusNumber();
         savedTrip.getRoute().getOrigin();
+        eventPublisher.publishEvent(TripAvailabilityChangedEvent.scheduleChanged(savedTrip));
 
         return mapEntityToResponseDto(savedTrip);
     }
@@ -156,18 +226,15 @@ public class ScheduledTripServiceImpl implements ScheduledTripService {
     @Override
     @Transactional(readOnly = true)
     public List<ScheduledTripResponseDto> getAllScheduledTrips() {
-        List<ScheduledTrip> trips = scheduledTripRepository.findAll();
-        trips.forEach(trip -> { trip.getBus().getBusNumber(); trip.getRoute().getOrigin(); });
-        return trips.stream().map(this::mapEntityToResponseDto).collect(Collectors.toList());
+        return mapRowsToResponseDtos(scheduledTripRepository.findAllTripRows());
     }
 
     @Override
     @Transactional(readOnly = true)
     public ScheduledTripResponseDto getScheduledTripById(Long id) {
-        ScheduledTrip trip = scheduledTripRepository.findById(id)
+        TripRow row = scheduledTripRepository.findTripRowById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("ScheduledTrip", "ID", id));
-        trip.getBus().getBusNumber(); trip.getRoute().getOrigin();
-        return mapEntityToResponseDto(trip);
+        return mapRowsToResponseDtos(List.of(row)).get(0);
     }
 
     @Override
@@ -178,12 +245,20 @@ public class ScheduledTripServiceImpl implements ScheduledTripService {
         if (requestDto.getArrivalTime().isBefore(requestDto.getDepartureTime())) {
             throw new IllegalArgumentException("Arrival time must be after departure time.");
         }
+        LocalDate previousDate = existingTrip.getDepartureDate();
         existingTrip.setDepartureDate(requestDto.getDepartureDate());
         existingTrip.setDepartureTime(requestDto.getDepartureTime());
         existingTrip.setArrivalTime(requestDto.getArrivalTime());
         existingTrip.setFare(requestDto.getFare());
         ScheduledTrip updatedTrip = scheduledTripRepository.save(existingTrip);
         updatedTrip.getBus().getBusNumber(); updatedTrip.getRoute().getOrigin();
+        bookingViewProjector.refreshTrip(updatedTrip); // Booking history copies the schedule
+        // Fare or date changed: both the old and the new corridor-day may need recomputing
+        if (previousDate != null && !previousDate.equals(updatedTrip.getDepartureDate())) {
+            eventPublisher.publishEvent(TripAvailabilityChangedEvent.scheduleChanged(
+                    updatedTrip.getRoute().getOrigin(), updatedTrip.getRoute().getDestination(), previousDate));
+        }
+        eventPublisher.publishEvent(TripAvailabilityChangedEvent.scheduleChanged(updatedTrip));
         return mapEntityToResponseDto(updatedTrip);
     }
 
@@ -192,15 +267,134 @@ public class ScheduledTripServiceImpl implements ScheduledTripService {
     public void deleteScheduledTrip(Long id) {
         ScheduledTrip trip = scheduledTripRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("ScheduledTrip", "ID", id));
+        TripAvailabilityChangedEvent removed = TripAvailabilityChangedEvent.scheduleChanged(trip);
         scheduledTripRepository.delete(trip);
+        eventPublisher.publishEvent(removed);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ScheduledTripResponseDto> findAvailableTrips(String origin, String destination, LocalDate date) {
-        List<ScheduledTrip> trips = scheduledTripRepository.findAvailableTripsByLocationAndDate(origin, destination, date);
-        trips.forEach(trip -> { trip.getBus().getBusNumber(); trip.getRoute().getOrigin(); });
-        return trips.stream().map(this::mapEntityToResponseDto).collect(Collectors.toList());
+        if (!servedCorridorIndex.mightServe(origin, destination)) return new ArrayList<>();
+        return mapRowsToResponseDtos(scheduledTripRepository.findAvailableTripRowsByLocationAndDate(origin, destination, date));
+    }
+
+
+    // Not @Transactional: callers waiting on a coalesced search must not each hold a connection.
+    // The projection queries run in the repository's own read-only transactions.
+    @Override
+    public TripSearchPageDto findAvailableTrips(TripSearchCriteria criteria) {
+        if (!servedCorridorIndex.mightServe(criteria.getOrigin(), criteria.getDestination())) {
+            return new TripSearchPageDto(new ArrayList<>(), null, false); // No route, so no trips: skip the query
+        }
+        return searchCoalescer.search(criteria, () -> searchPage(criteria));
+    }
+
+    private TripSearchPageDto searchPage(TripSearchCriteria criteria) {
+        TripSearchCriteria.SortBy sortBy = criteria.getSortBy() != null ? criteria.getSortBy() : TripSearchCriteria.SortBy.DEPARTURE_TIME;
+        int size = criteria.getEffectiveSize();
+        if (criteria.getDepartureFrom() != null && criteria.getDepartureTo() != null
+                && criteria.getDepartureFrom().isAfter(criteria.getDepartureTo())) {
+            throw new IllegalArgumentException("Departure window start must not be after its end.");
+        }
+        KeysetCursor after = criteria.getCursor() != null && !criteria.getCursor().isBlank()
+                ? KeysetCursor.decode(criteria.getCursor(), sortBy.name()) : null;
+        String afterValue = after != null ? after.getValue() : null;
+        long afterId = after != null ? after.getId() : 0L;
+
+        // Without filters one batch of size+1 is exact. With filters, keep seeking in larger batches
+        // until the page (plus one look-ahead row) is full, the rows run out, or the scan budget is spent.
+        boolean filtered = criteria.hasFilters();
+        int batchSize = filtered ? Math.min((size + 1) * FILTER_BATCH_FACTOR, MAX_FILTER_SCAN_ROWS) : size + 1;
+        int requiredMask = criteria.getAmenities() != null ? Amenity.maskOf(criteria.getAmenities()) : 0;
+
+        List<TripRow> matched = new ArrayList<>();
+        TripRow lastScanned = null;
+        int scanned = 0;
+        boolean exhausted = false;
+        while (matched.size() <= size && !exhausted && scanned < MAX_FILTER_SCAN_ROWS) {
+            List<TripRow> batch = fetchSearchBatch(criteria, sortBy, afterValue, afterId, batchSize);
+            exhausted = batch.size() < batchSize;
+            for (TripRow row : batch) {
+                scanned++;
+                lastScanned = row;
+                if (!filtered || matchesFilters(row, criteria, requiredMask)) {
+                    matched.add(row);
+                    if (matched.size() > size) break;
+                }
+            }
+            if (lastScanned != null) {
+                afterValue = String.valueOf(sortValue(lastScanned, sortBy));
+                afterId = lastScanned.getId();
+            }
+        }
+
+        boolean hasMore;
+        TripRow resumeAfter;
+        if (matched.size() > size) {
+            hasMore = true;
+            resumeAfter = matched.get(size - 1);
+        } else if (!exhausted) {
+            // Scan budget spent before the page filled: hand back what matched and resume past the scanned rows
+            hasMore = true;
+            resumeAfter = lastScanned;
+        } else {
+            hasMore = false;
+            resumeAfter = null;
+        }
+        List<TripRow> pageTrips = matched.size() > size ? matched.subList(0, size) : matched;
+        List<ScheduledTripResponseDto> dtos = mapRowsToResponseDtos(pageTrips);
+        String nextCursor = resumeAfter != null ? KeysetCursor.encode(sortBy.name(), sortValue(resumeAfter, sortBy), resumeAfter.getId()) : null;
+
+        logger.debug("Trip search page: sort={}, size={}, filtered={}, scanned={}, returned={}, hasMore={}",
+                sortBy, size, filtered, scanned, dtos.size(), hasMore);
+        return new TripSearchPageDto(dtos, nextCursor, hasMore);
+    }
+
+    // One keyset batch strictly after (afterValue, afterId); afterValue null means the first page
+    private List<TripRow> fetchSearchBatch(TripSearchCriteria criteria, TripSearchCriteria.SortBy sortBy,
+                                           String afterValue, long afterId, int limit) {
+        PageRequest page = PageRequest.of(0, limit); // Used only as a LIMIT
+        try {
+            switch (sortBy) {
+                case FARE:
+                    return scheduledTripRepository.findAvailableTripsPageByFare(criteria.getOrigin(), criteria.getDestination(), criteria.getDate(),
+                            afterValue != null ? new BigDecimal(afterValue) : BigDecimal.valueOf(-1), afterId, page);
+                case AVAILABLE_SEATS:
+                    return scheduledTripRepository.findAvailableTripsPageByAvailableSeats(criteria.getOrigin(), criteria.getDestination(), criteria.getDate(),
+                            afterValue != null ? Integer.valueOf(afterValue) : Integer.MAX_VALUE, afterId, page);
+                case DEPARTURE_TIME:
+                default:
+                    // LocalTime.MIN with id 0 sorts before every real row, so the first page needs no special query
+                    return scheduledTripRepository.findAvailableTripsPageByDepartureTime(criteria.getOrigin(), criteria.getDestination(), criteria.getDate(),
+                            afterValue != null ? LocalTime.parse(afterValue) : LocalTime.MIN, afterId, page);
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor.");
+        }
+    }
+
+    // Amenities are a single AND against the bus bitmask; no join on bus_amenities
+    private boolean matchesFilters(TripRow row, TripSearchCriteria criteria, int requiredMask) {
+        if ((row.getAmenityMask() & requiredMask) != requiredMask) return false;
+        if (!containsIgnoreCase(row.getBusType(), criteria.getBusType())) return false;
+        if (!containsIgnoreCase(row.getOperatorName(), criteria.getOperatorName())) return false;
+        if (criteria.getDepartureFrom() != null && row.getDepartureTime().isBefore(criteria.getDepartureFrom())) return false;
+        return criteria.getDepartureTo() == null || !row.getDepartureTime().isAfter(criteria.getDepartureTo());
+    }
+
+    private boolean containsIgnoreCase(String value, String filter) {
+        if (filter == null || filter.isBlank()) return true;
+        return value != null && value.toLowerCase(Locale.ROOT).contains(filter.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private Object sortValue(TripRow trip, TripSearchCriteria.SortBy sortBy) {
+        switch (sortBy) {
+            case FARE: return trip.getFare().toPlainString();
+            case AVAILABLE_SEATS: return trip.getAvailableSeats();
+            case DEPARTURE_TIME:
+            default: return trip.getDepartureTime();
+        }
     }
 
 
@@ -267,6 +461,7 @@ public class ScheduledTripServiceImpl implements ScheduledTripService {
         trip.setAvailableSeats(Math.max(0, currentAvailable - lockedCount));
 
         scheduledTripRepository.save(trip);
+        eventPublisher.publishEvent(TripAvailabilityChangedEvent.seatsChanged(trip, currentAvailable));
         logger.info("Successfully locked {} seats for trip ID {} by user ID {}", lockedCount, tripId, userId);
         return true;
     }
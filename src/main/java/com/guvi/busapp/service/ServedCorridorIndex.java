@@ -0,0 +1,133 @@
+// src/main/java/com/guvi/busapp/service/ServedCorridorIndex.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.event.RouteChangedEvent;
+import com.guvi.busapp.model.Route;
+import com.guvi.busapp.repository.RouteRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Exact in-memory set of served (origin, destination) pairs, so searches for city pairs
+ * with no route return immediately instead of running the trip join. Routes are few, so
+ * a hash set costs little and, unlike a Bloom filter, has no false positives.
+ *
+ * Keys are folded the way MySQL's utf8mb4_0900_ai_ci compares: accents and case are
+ * ignored, but it is a NO PAD collation, so leading and trailing spaces count. The folding
+ * only reproduces the collation for printable ASCII after accents are stripped. A search
+ * outside that is let through, and while any route name is outside it a miss is let
+ * through too, so only searches the database would provably not match are rejected.
+ * Exposed as busapp.trip.search.corridor.checks{result=served|unserved}.
+ */
+@Component
+public class ServedCorridorIndex implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServedCorridorIndex.class);
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final RouteRepository routeRepository;
+    private final LongAdder served = new LongAdder();
+    private final LongAdder unserved = new LongAdder();
+
+    // Null until the first load; replaced wholesale on rebuild so readers never lock
+    private volatile Set<String> corridors;
+    // Set when some route's key can't be folded exactly; misses then prove nothing
+    private volatile boolean unfoldedRoutes;
+
+    @Autowired
+    public ServedCorridorIndex(RouteRepository routeRepository) {
+        this.routeRepository = routeRepository;
+    }
+
+    // False only when the pair is known to have no route; true while the index is still loading
+    public boolean mightServe(String origin, String destination) {
+        Set<String> snapshot = corridors;
+        if (snapshot == null || origin == null || destination == null) return true;
+        String key = key(origin, destination);
+        if (!isExact(key)) return true;
+        boolean found = snapshot.contains(key) || unfoldedRoutes;
+        (found ? served : unserved).increment();
+        return found;
+    }
+
+    public synchronized void rebuild() {
+        List<Route> routes = routeRepository.findAll();
+        Set<String> next = new HashSet<>(routes.size() * 2);
+        boolean unfolded = false;
+        for (Route route : routes) {
+            String key = key(route.getOrigin(), route.getDestination());
+            next.add(key);
+            unfolded |= !isExact(key);
+        }
+        unfoldedRoutes = unfolded; // Written before corridors, which readers check first
+        corridors = next;
+        if (unfolded) {
+            logger.warn("Served corridor index rebuilt: {} corridors, some with names it can't fold exactly; unmatched searches go to the database.", next.size());
+        } else {
+            logger.info("Served corridor index rebuilt: {} corridors.", next.size());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true) // AFTER_COMMIT, so the rebuild sees the change
+    public void onRouteChanged(RouteChangedEvent event) {
+        logger.debug("Route change {} received, rebuilding served corridor index.", event);
+        rebuild();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("busapp.trip.search.corridor.checks", served, LongAdder::sum)
+                .description("Trip searches for a served corridor")
+                .tag("result", "served")
+                .register(registry);
+        FunctionCounter.builder("busapp.trip.search.corridor.checks", unserved, LongAdder::sum)
+                .description("Trip searches rejected because no route serves the corridor")
+                .tag("result", "unserved")
+                .register(registry);
+    }
+
+    private static String key(String origin, String destination) {
+        return fold(origin) + "|" + fold(destination);
+    }
+
+    // Accent- and case-insensitive like utf8mb4_0900_ai_ci; spaces are kept, as that collation is NO PAD.
+    // Upper-casing first turns ß into SS, which the collation also treats as equal.
+    static String fold(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFKD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    // Printable ASCII is where fold() and the collation provably agree
+    private static boolean isExact(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x20 || c > 0x7e) return false;
+        }
+        return true;
+    }
+
+    long getUnservedCount() {
+        return unserved.sum();
+    }
+}
@@ -0,0 +1,214 @@
+// src/main/java/com/guvi/busapp/service/SimulatedPaymentGateway.java
+package com.guvi.busapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for Stripe, so the whole checkout can be load-tested offline
+ * (busapp.payment.gateway=simulator). Creating an intent costs no network round trip. After
+ * the configured latency the simulator "pays" it and posts a payment_intent.succeeded or
+ * payment_intent.payment_failed event to the webhook endpoint. The event is signed with
+ * stripe.webhook.secret exactly as Stripe signs it, so it runs through the real signature
+ * check, dedup and inbox path.
+ *
+ * Stripe's delivery quirks are reproduced at configurable rates:
+ * - redelivery of the same event id (duplicate-rate);
+ * - a stale payment_intent.created arriving after the outcome (out-of-order-rate).
+ *
+ * The client secrets are not valid for Stripe.js; load-test scripts call the APIs directly.
+ * Exposed as busapp.payment.simulator.webhooks{outcome=delivered|failed}.
+ */
+@Component
+@ConditionalOnProperty(name = "busapp.payment.gateway", havingValue = "simulator")
+public class SimulatedPaymentGateway implements PaymentGateway, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedPaymentGateway.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final URI webhookUrl;
+    private final String webhookSecret;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double failureRate;
+    private final double duplicateRate;
+    private final double outOfOrderRate;
+    private final Random random;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failedDeliveries = new LongAdder();
+
+    public SimulatedPaymentGateway(@Value("${busapp.payment.simulator.webhook-url:http://localhost:${server.port:8080}/api/stripe/webhook}") String webhookUrl,
+                                   @Value("${stripe.webhook.secret:}") String webhookSecret,
+                                   @Value("${busapp.payment.simulator.latency-ms:500}") long latencyMillis,
+                                   @Value("${busapp.payment.simulator.latency-jitter-ms:500}") long jitterMillis,
+                                   @Value("${busapp.payment.simulator.failure-rate:0.1}") double failureRate,
+                                   @Value("${busapp.payment.simulator.duplicate-rate:0.05}") double duplicateRate,
+                                   @Value("${busapp.payment.simulator.out-of-order-rate:0.05}") double outOfOrderRate,
+                                   @Value("${busapp.payment.simulator.seed:0}") long seed,
+                                   @Value("${busapp.payment.simulator.threads:4}") int threads) {
+        this.webhookUrl = URI.create(webhookUrl);
+        this.webhookSecret = webhookSecret;
+        this.latencyMillis = Math.max(0, latencyMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+        this.failureRate = failureRate;
+        this.duplicateRate = duplicateRate;
+        this.outOfOrderRate = outOfOrderRate;
+        this.random = seed != 0 ? new Random(seed) : new Random(); // Fixed seed: same outcome sequence every run
+        AtomicInteger threadNumber = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "payment-simulator-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+        if (webhookSecret == null || webhookSecret.isBlank()) {
+            logger.warn("stripe.webhook.secret is not set; simulated webhooks will fail signature verification.");
+        }
+        logger.warn("Payment gateway SIMULATOR active: no real payments. Webhooks go to {} after ~{} ms, failure rate {}.",
+                webhookUrl, latencyMillis, failureRate);
+    }
+
+    @Override
+    public String name() {
+        return "simulator";
+    }
+
+    @Override
+    public CreatedIntent createPaymentIntent(Long bookingId, long amount, String currency, String userEmail) {
+        String intentId = "pi_sim_" + UUID.randomUUID().toString().replace("-", "");
+        boolean succeeds = random.nextDouble() >= failureRate;
+        String outcome = succeeds ? "payment_intent.succeeded" : "payment_intent.payment_failed";
+        Map<String, Object> intent = intent(intentId, bookingId, amount, currency, userEmail, succeeds ? "succeeded" : "requires_payment_method");
+
+        String outcomeEvent = event(outcome, intent);
+        long delay = latencyMillis + (jitterMillis > 0 ? (long) (random.nextDouble() * jitterMillis) : 0);
+        schedule(outcomeEvent, delay);
+        if (random.nextDouble() < duplicateRate) {
+            schedule(outcomeEvent, delay + 1 + (long) (random.nextDouble() * Math.max(1, latencyMillis))); // Same event id again
+        }
+        if (random.nextDouble() < outOfOrderRate) {
+            // Created before the outcome, delivered after it
+            schedule(event("payment_intent.created", intent(intentId, bookingId, amount, currency, userEmail, "requires_payment_method")),
+                    delay + 1 + (long) (random.nextDouble() * Math.max(1, latencyMillis)));
+        }
+        logger.debug("Simulated payment intent {} for booking {}: {} in {} ms.", intentId, bookingId, outcome, delay);
+        return new CreatedIntent(intentId, intentId + "_secret_" + UUID.randomUUID().toString().substring(0, 8));
+    }
+
+    private void schedule(String payload, long delayMillis) {
+        scheduler.schedule(() -> deliver(payload), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void deliver(String payload) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(webhookUrl)
+                    .timeout(Duration.ofSeconds(10))
+                    .header("Content-Type", "application/json")
+                    .header("Stripe-Signature", signatureHeader(payload, Instant.now().getEpochSecond()))
+                    .POST(HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 == 2) {
+                delivered.increment();
+            } else {
+                failedDeliveries.increment();
+                logger.warn("Simulated webhook rejected with HTTP {}: {}", response.statusCode(), response.body());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failedDeliveries.increment();
+            logger.warn("Simulated webhook delivery to {} failed: {}", webhookUrl, e.getMessage());
+        }
+    }
+
+    // Stripe's scheme: t=<unix seconds>,v1=hex(HMAC-SHA256(secret, "<t>.<payload>"))
+    String signatureHeader(String payload, long timestamp) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] signature = mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+        return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(signature);
+    }
+
+    static Map<String, Object> intent(String intentId, Long bookingId, long amount, String currency,
+                                      String userEmail, String status) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("booking_id", String.valueOf(bookingId));
+        metadata.put("user_email", userEmail);
+        Map<String, Object> intent = new LinkedHashMap<>();
+        intent.put("id", intentId);
+        intent.put("object", "payment_intent");
+        intent.put("amount", amount);
+        intent.put("currency", currency.toLowerCase());
+        intent.put("status", status);
+        intent.put("metadata", metadata);
+        return intent;
+    }
+
+    static String event(String type, Map<String, Object> intent) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("id", "evt_sim_" + UUID.randomUUID().toString().replace("-", ""));
+        event.put("object", "event");
+        event.put("type", type);
+        event.put("created", Instant.now().getEpochSecond());
+        event.put("livemode", false);
+        event.put("data", Map.of("object", intent));
+        try {
+            return MAPPER.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize simulated webhook event.", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow(); // Undelivered callbacks are dropped with the simulated payments
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("busapp.payment.simulator.webhooks", delivered, LongAdder::sum)
+                .description("Simulated webhooks accepted by the webhook endpoint")
+                .tag("outcome", "delivered")
+                .register(registry);
+        FunctionCounter.builder("busapp.payment.simulator.webhooks", failedDeliveries, LongAdder::sum)
+                .description("Simulated webhooks rejected or undeliverable")
+                .tag("outcome", "failed")
+                .register(registry);
+    }
+}
@@ -0,0 +1,86 @@
+// src/main/java/com/guvi/busapp/service/StripePaymentGateway.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.exception.PaymentGatewayException;
+import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCreateParams;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+@Component
+@ConditionalOnProperty(name = "busapp.payment.gateway", havingValue = "stripe", matchIfMissing = true)
+public class StripePaymentGateway implements PaymentGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripePaymentGateway.class);
+
+    @Value("${stripe.secret.key}")
+    private String stripeSecretKey;
+
+    // The SDK defaults (30s connect, 80s read) would hold a gateway thread long after PaymentGatewayGuard gave up
+    @Value("${busapp.payment.gateway.connect-timeout-ms:2000}")
+    private int connectTimeoutMillis;
+
+    @Value("${busapp.payment.gateway.timeout-ms:5000}")
+    private int readTimeoutMillis;
+
+    @PostConstruct
+    public void init() {
+        Stripe.apiKey = stripeSecretKey;
+        Stripe.setConnectTimeout(connectTimeoutMillis);
+        Stripe.setReadTimeout(readTimeoutMillis);
+        logger.info("Stripe API Key initialized.");
+    }
+
+    @Override
+    public String name() {
+        return "stripe";
+    }
+
+    @Override
+    public CreatedIntent createPaymentIntent(Long bookingId, long amount, String currency, String userEmail) throws PaymentGatewayException {
+        PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
+                .setAmount(amount)
+                .setCurrency(currency.toLowerCase())
+                .setAutomaticPaymentMethods(
+                        PaymentIntentCreateParams.AutomaticPaymentMethods.builder().setEnabled(true).build()
+                )
+                .putMetadata("booking_id", String.valueOf(bookingId))
+                .putMetadata("user_email", userEmail)
+                .setDescription("Bus Ticket Booking #" + bookingId)
+                .build();
+        try {
+            RequestOptions options = RequestOptions.builder()
+                    .setIdempotencyKey(idempotencyKey(bookingId, amount, currency))
+                    .build();
+            PaymentIntent paymentIntent = PaymentIntent.create(params, options);
+            return new CreatedIntent(paymentIntent.getId(), paymentIntent.getClientSecret());
+        } catch (StripeException e) {
+            throw new PaymentGatewayException("Stripe could not create a payment intent: " + e.getMessage(), e, isProviderFault(e));
+        }
+    }
+
+    // A retry after PaymentGatewayGuard timed out gets back the intent Stripe may already have created instead of a
+    // second payable one. Amount and currency are part of the key, since Stripe rejects a reused key with other params.
+    static String idempotencyKey(Long bookingId, long amount, String currency) {
+        return "booking-" + bookingId + "-" + amount + "-" + currency.toLowerCase(Locale.ROOT);
+    }
+
+    // Network errors, 5xx and 429 say Stripe is unhealthy; other 4xx are about this request only
+    static boolean isProviderFault(StripeException e) {
+        if (e instanceof ApiConnectionException) {
+            return true;
+        }
+        Integer status = e.getStatusCode();
+        return status != null && (status >= 500 || status == 429);
+    }
+}
@@ -0,0 +1,205 @@
+// src/main/java/com/guvi/busapp/service/TripArchiver.java
+package com.guvi.busapp.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSetMetaData;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves departed trips out of the hot tables. The trip, its seat rows, its bookings and their
+ * passengers are copied into archived_* tables and then deleted from the hot tables. This is done in chunks of trips, one short transaction per chunk, so
+ * findByIdForUpdate, search and the booking indexes only cover live data.
+ *
+ * Booking history is unaffected: it reads booking_view, which keeps a self-contained row per
+ * booking, and every booking in a chunk is projected before it is archived. Admin listings,
+ * search and export cover hot bookings only. Opt-in via busapp.archive.enabled.
+ *
+ * The hot tables keep evolving (bookings.reference_code arrived after the first archives), so
+ * each run first adds any hot column the archive table lacks, and rows are copied by explicit
+ * column list. Columns dropped from a hot table stay in the archive and are left NULL.
+ * Exposed as busapp.archive.rows{table=trips|bookings}.
+ */
+@Component
+public class TripArchiver implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripArchiver.class);
+
+    // Children before parents for deletes; archive copies go in the reverse order
+    static final String[] HOT_TABLES = {"passengers", "bookings", "trip_seat_status", "scheduled_trips"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingViewProjector bookingViewProjector;
+    private final TransactionTemplate newTransaction;
+    private final boolean enabled;
+    private final int retentionDays;
+    private final int chunkSize;
+
+    private final LongAdder archivedTrips = new LongAdder();
+    private final LongAdder archivedBookings = new LongAdder();
+
+    @Autowired
+    public TripArchiver(JdbcTemplate jdbcTemplate,
+                        BookingViewProjector bookingViewProjector,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${busapp.archive.enabled:false}") boolean enabled,
+                        @Value("${busapp.archive.retention-days:90}") int retentionDays,
+                        @Value("${busapp.archive.chunk-size:200}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookingViewProjector = bookingViewProjector;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.retentionDays = Math.max(1, retentionDays);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @Scheduled(cron = "${busapp.archive.cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        if (!enabled) return;
+        try {
+            archiveDepartedBefore(LocalDate.now().minusDays(retentionDays));
+        } catch (Exception e) {
+            logger.error("Trip archival failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Archives every trip departing before cutoff; returns the number of trips moved
+    public int archiveDepartedBefore(LocalDate cutoff) {
+        Map<String, List<String>> columns = ensureArchiveTables();
+        int total = 0;
+        while (true) {
+            Integer moved = newTransaction.execute(status -> archiveChunk(cutoff, columns));
+            if (moved == null || moved == 0) break;
+            total += moved;
+            if (moved < chunkSize) break;
+        }
+        if (total > 0) logger.info("Archived {} trips departing before {}.", total, cutoff);
+        return total;
+    }
+
+    // columns: hot table -> the columns to copy, all present in its archive table
+    int archiveChunk(LocalDate cutoff, Map<String, List<String>> columns) {
+        List<Long> tripIds = jdbcTemplate.queryForList(
+                "SELECT id FROM scheduled_trips WHERE departure_date < ? ORDER BY id LIMIT ?", Long.class, cutoff, chunkSize);
+        if (tripIds.isEmpty()) return 0;
+        String in = placeholders(tripIds.size());
+        Object[] ids = tripIds.toArray();
+
+        // History must survive the move: make sure every booking has its booking_view row first
+        List<Long> unprojected = jdbcTemplate.queryForList(
+                "SELECT b.id FROM bookings b WHERE b.trip_id IN (" + in + ") " +
+                "AND NOT EXISTS (SELECT 1 FROM booking_view v WHERE v.booking_id = b.id)", Long.class, ids);
+        bookingViewProjector.projectBookings(unprojected);
+
+        jdbcTemplate.update(copy(columns, "scheduled_trips", "t", "WHERE t.id IN (" + in + ")"), ids);
+        jdbcTemplate.update(copy(columns, "trip_seat_status", "s", "WHERE s.trip_id IN (" + in + ")"), ids);
+        int bookings = jdbcTemplate.update(copy(columns, "bookings", "b", "WHERE b.trip_id IN (" + in + ")"), ids);
+        jdbcTemplate.update(copy(columns, "passengers", "p", "JOIN bookings b ON b.id = p.booking_id WHERE b.trip_id IN (" + in + ")"), ids);
+
+        jdbcTemplate.update("DELETE FROM passengers WHERE booking_id IN (SELECT id FROM bookings WHERE trip_id IN (" + in + "))", ids);
+        jdbcTemplate.update("DELETE FROM bookings WHERE trip_id IN (" + in + ")", ids);
+        jdbcTemplate.update("DELETE FROM trip_seat_status WHERE trip_id IN (" + in + ")", ids);
+        jdbcTemplate.update("DELETE FROM scheduled_trips WHERE id IN (" + in + ")", ids);
+
+        archivedTrips.add(tripIds.size());
+        archivedBookings.add(bookings);
+        logger.debug("Archived trips {}..{} ({} trips, {} bookings).", tripIds.get(0), tripIds.get(tripIds.size() - 1), tripIds.size(), bookings);
+        return tripIds.size();
+    }
+
+    // INSERT INTO archived_<table> (c1, c2...) SELECT a.c1, a.c2... FROM <table> a <rest>
+    private static String copy(Map<String, List<String>> columns, String table, String alias, String rest) {
+        List<String> names = columns.get(table);
+        return "INSERT INTO archived_" + table + " (" + String.join(", ", names) + ") SELECT "
+                + alias + "." + String.join(", " + alias + ".", names) + " FROM " + table + " " + alias + " " + rest;
+    }
+
+    // Creates missing archive tables and adds hot columns they lack; returns each hot table's columns
+    Map<String, List<String>> ensureArchiveTables() {
+        Map<String, List<String>> copyColumns = new LinkedHashMap<>();
+        for (String table : HOT_TABLES) {
+            String archive = "archived_" + table;
+            Map<String, String> hot = columns(table);
+            List<String> definitions = hot.entrySet().stream().map(c -> c.getKey() + " " + c.getValue()).toList();
+            // Plain nullable columns, no keys: rows are only appended, and enum columns won't reject values added later
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + archive + " (" + String.join(", ", definitions) + ")");
+            Map<String, String> archived = columns(archive);
+            hot.forEach((column, type) -> {
+                if (!archived.containsKey(column)) {
+                    jdbcTemplate.execute("ALTER TABLE " + archive + " ADD COLUMN " + column + " " + type);
+                    logger.info("Added column {} ({}) to {} to match {}.", column, type, archive, table);
+                }
+            });
+            copyColumns.put(table, List.copyOf(hot.keySet()));
+        }
+        return copyColumns;
+    }
+
+    // Column name (lower case) -> nullable column type, in table order
+    private Map<String, String> columns(String table) {
+        return jdbcTemplate.query("SELECT * FROM " + table + " WHERE 1 = 0", resultSet -> {
+            ResultSetMetaData meta = resultSet.getMetaData();
+            Map<String, String> columns = new LinkedHashMap<>();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                columns.put(meta.getColumnName(i).toLowerCase(Locale.ROOT),
+                        columnType(meta.getColumnTypeName(i), meta.getPrecision(i), meta.getScale(i)));
+            }
+            return columns;
+        });
+    }
+
+    // Rebuilds a column type from JDBC metadata, widened where the driver doesn't report enough to copy it exactly
+    static String columnType(String typeName, int precision, int scale) {
+        String type = typeName.toUpperCase(Locale.ROOT);
+        if (type.startsWith("ENUM")) {
+            return "VARCHAR(255)"; // Values aren't reported; the archive only needs to hold the names
+        }
+        switch (type) {
+            case "CHAR", "CHARACTER", "VARCHAR", "CHARACTER VARYING":
+                return precision > 0 && precision <= 4000 ? type + "(" + precision + ")" : "TEXT";
+            case "BINARY", "VARBINARY":
+                return precision > 0 && precision <= 4000 ? type + "(" + precision + ")" : "BLOB";
+            case "DECIMAL", "NUMERIC":
+                return type + "(" + precision + ", " + scale + ")";
+            case "DATETIME", "TIMESTAMP", "TIME":
+                return scale > 0 ? type + "(" + scale + ")" : type;
+            default:
+                return type;
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("busapp.archive.rows", archivedTrips, LongAdder::sum)
+                .description("Departed trips moved to the archive tables")
+                .tag("table", "trips")
+                .register(registry);
+        FunctionCounter.builder("busapp.archive.rows", archivedBookings, LongAdder::sum)
+                .description("Bookings moved to the archive tables")
+                .tag("table", "bookings")
+                .register(registry);
+    }
+}
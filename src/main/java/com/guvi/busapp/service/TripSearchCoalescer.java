@@ -0,0 +1,109 @@
+// src/main/java/com/guvi/busapp/service/TripSearchCoalescer.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.dto.BusDto;
+import com.guvi.busapp.dto.RouteDto;
+import com.guvi.busapp.dto.ScheduledTripResponseDto;
+import com.guvi.busapp.dto.TripSearchCriteria;
+import com.guvi.busapp.dto.TripSearchPageDto;
+import com.guvi.busapp.util.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight wrapper for trip search: identical searches that arrive while one is
+ * running share its result instead of each hitting the database.
+ *
+ * The DTOs are mutable, so every caller, the leader included, gets its own deep copy of
+ * the page. The shared original is only read, and a caller that edits its page can't
+ * change what the others serialize.
+ * Exposed as busapp.trip.search.flights{outcome=leader|coalesced} and busapp.trip.search.inflight.
+ */
+@Component
+public class TripSearchCoalescer implements MeterBinder {
+
+    private final SingleFlight<List<Object>, TripSearchPageDto> flights = new SingleFlight<>();
+
+    public TripSearchPageDto search(TripSearchCriteria criteria, Supplier<TripSearchPageDto> loader) {
+        return copy(flights.execute(criteria.searchKey(), loader));
+    }
+
+    private static TripSearchPageDto copy(TripSearchPageDto page) {
+        if (page == null) return null;
+        List<ScheduledTripResponseDto> trips = null;
+        if (page.getTrips() != null) {
+            trips = new ArrayList<>(page.getTrips().size());
+            for (ScheduledTripResponseDto trip : page.getTrips()) {
+                trips.add(copy(trip));
+            }
+        }
+        return new TripSearchPageDto(trips, page.getNextCursor(), page.isHasMore());
+    }
+
+    private static ScheduledTripResponseDto copy(ScheduledTripResponseDto trip) {
+        if (trip == null) return null;
+        ScheduledTripResponseDto copy = new ScheduledTripResponseDto();
+        copy.setId(trip.getId());
+        copy.setBus(copy(trip.getBus()));
+        copy.setRoute(copy(trip.getRoute()));
+        copy.setDepartureDate(trip.getDepartureDate());
+        copy.setDepartureTime(trip.getDepartureTime());
+        copy.setArrivalTime(trip.getArrivalTime());
+        copy.setFare(trip.getFare());
+        copy.setAvailableSeats(trip.getAvailableSeats());
+        return copy;
+    }
+
+    private static BusDto copy(BusDto bus) {
+        if (bus == null) return null;
+        BusDto copy = new BusDto();
+        copy.setId(bus.getId());
+        copy.setBusNumber(bus.getBusNumber());
+        copy.setOperatorName(bus.getOperatorName());
+        copy.setBusType(bus.getBusType());
+        copy.setTotalSeats(bus.getTotalSeats());
+        copy.setAmenities(bus.getAmenities() != null ? new HashSet<>(bus.getAmenities()) : null);
+        copy.setSeatLayout(bus.getSeatLayout());
+        return copy;
+    }
+
+    private static RouteDto copy(RouteDto route) {
+        if (route == null) return null;
+        RouteDto copy = new RouteDto();
+        copy.setId(route.getId());
+        copy.setOrigin(route.getOrigin());
+        copy.setDestination(route.getDestination());
+        return copy;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("busapp.trip.search.flights", flights, SingleFlight::getLeaderCount)
+                .description("Trip searches that ran the query")
+                .tag("outcome", "leader")
+                .register(registry);
+        FunctionCounter.builder("busapp.trip.search.flights", flights, SingleFlight::getCoalescedCount)
+                .description("Trip searches served by an identical in-flight search")
+                .tag("outcome", "coalesced")
+                .register(registry);
+        Gauge.builder("busapp.trip.search.inflight", flights, SingleFlight::getInFlightCount)
+                .description("Distinct trip searches currently running")
+                .register(registry);
+    }
+
+    long getLeaderCount() {
+        return flights.getLeaderCount();
+    }
+
+    long getCoalescedCount() {
+        return flights.getCoalescedCount();
+    }
+}
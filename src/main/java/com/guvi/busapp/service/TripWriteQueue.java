@@ -0,0 +1,274 @@
+// src/main/java/com/guvi/busapp/service/TripWriteQueue.java
+package com.guvi.busapp.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Optional single-writer path for trip mutations (lock, book, checkout, cancel, expire,
+ * payment confirm/fail). Commands for one trip always run on the same single-threaded shard, so at
+ * most one transaction per trip is waiting on its row lock and request threads no longer pile
+ * up behind findByIdForUpdate.
+ *
+ * Each command still commits its own transaction. Group commit was tried and dropped: with
+ * Hibernate, any failed write or failed @Transactional call marks the whole JPA transaction
+ * rollback-only (HibernateJpaDialect offers no savepoints), so one rejected seat on a hot
+ * trip would undo and re-run every command batched with it.
+ *
+ * A caller that gives up after timeout-ms only cancels a command that hasn't started yet
+ * (RejectedExecutionException, answered with 503). Once started, the caller waits for the
+ * command's real outcome, so it never reports a failure for a booking that was committed.
+ *
+ * Disabled by default (busapp.booking.single-writer.enabled), in which case commands run
+ * inline on the caller's thread exactly as before.
+ * Exposed as busapp.booking.writer.commands{outcome} and busapp.booking.writer.queued.
+ */
+@Component
+public class TripWriteQueue implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripWriteQueue.class);
+
+    // Set on shard threads so a command that submits another trip command runs it inline instead of deadlocking
+    private static final ThreadLocal<Boolean> ON_SHARD = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final List<BlockingQueue<Command<?>>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean closing;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    @Autowired
+    public TripWriteQueue(@Value("${busapp.booking.single-writer.enabled:false}") boolean enabled,
+                          @Value("${busapp.booking.single-writer.shards:8}") int shardCount,
+                          @Value("${busapp.booking.single-writer.queue-capacity:1000}") int queueCapacity,
+                          @Value("${busapp.booking.single-writer.timeout-ms:10000}") long timeoutMillis) {
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+        int shards = enabled ? Math.max(1, shardCount) : 0;
+        for (int i = 0; i < shards; i++) {
+            BlockingQueue<Command<?>> queue = new ArrayBlockingQueue<>(queueCapacity);
+            Thread worker = new Thread(() -> {
+                ON_SHARD.set(Boolean.TRUE);
+                drain(queue);
+            }, "trip-writer-" + i);
+            worker.setDaemon(true);
+            queues.add(queue);
+            workers.add(worker);
+            worker.start();
+        }
+        if (enabled) {
+            logger.info("Single-writer trip queue enabled: {} shards, capacity {} per shard.", shards, queueCapacity);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues {@code command} on the trip's shard. The future fails with RejectedExecutionException
+     * when the shard's queue is full. Cancelling it before the command starts skips the command.
+     */
+    public <T> CompletableFuture<T> submit(Long tripId, Supplier<T> command) {
+        if (!enabled || ON_SHARD.get() || tripId == null) {
+            try {
+                return CompletableFuture.completedFuture(command.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        try {
+            return enqueue(tripId, command).future;
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Runs {@code command} on the trip's shard and waits for it, rethrowing the command's own
+     * exception (SeatUnavailableException, ResourceNotFoundException...) unchanged.
+     * RejectedExecutionException means the command did not run: the queue was full, or it was
+     * still queued after timeout-ms.
+     */
+    public <T> T execute(Long tripId, Supplier<T> command) {
+        if (!enabled || ON_SHARD.get() || tripId == null) {
+            return command.get();
+        }
+        Command<T> queued = enqueue(tripId, command);
+        boolean interrupted = false;
+        try {
+            try {
+                return queued.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | InterruptedException e) {
+                interrupted = e instanceof InterruptedException;
+                if (queued.cancel()) {
+                    timedOut.increment();
+                    throw new RejectedExecutionException("Timed out waiting for trip " + tripId + " write queue, please retry.");
+                }
+                // Already running: it commits or fails on its own, so report what actually happened
+                while (true) {
+                    try {
+                        return queued.future.get();
+                    } catch (InterruptedException again) {
+                        interrupted = true;
+                    }
+                }
+            }
+        } catch (ExecutionException | CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> Command<T> enqueue(Long tripId, Supplier<T> action) {
+        Command<T> command = new Command<>(tripId, action);
+        if (closing || !queueFor(tripId).offer(command)) {
+            rejected.increment();
+            throw new RejectedExecutionException("Too many pending bookings for this trip, please retry.");
+        }
+        return command;
+    }
+
+    private BlockingQueue<Command<?>> queueFor(Long tripId) {
+        return queues.get((int) Math.floorMod(tripId, (long) queues.size()));
+    }
+
+    // Shard loop: one command at a time, in queue order
+    private void drain(BlockingQueue<Command<?>> queue) {
+        while (!closing || !queue.isEmpty()) {
+            Command<?> command;
+            try {
+                command = queue.poll(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (command != null && command.start()) { // Skipped when its caller gave up while it was queued
+                runAlone(command);
+            }
+        }
+        Command<?> left;
+        while ((left = queue.poll()) != null) {
+            left.future.completeExceptionally(new RejectedExecutionException("Trip write queue is shutting down."));
+        }
+    }
+
+    private void runAlone(Command<?> command) {
+        try {
+            command.complete(command.action.get());
+            completed.increment();
+        } catch (Throwable e) {
+            command.future.completeExceptionally(e);
+            failed.increment();
+        }
+    }
+
+    private int queuedCount() {
+        int queued = 0;
+        for (BlockingQueue<Command<?>> queue : queues) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closing = true; // Queued commands still run; new ones are rejected
+        for (Thread worker : workers) {
+            try {
+                worker.join(timeoutMillis);
+                if (worker.isAlive()) {
+                    logger.warn("Trip write shard {} did not drain within {} ms.", worker.getName(), timeoutMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("busapp.booking.writer.commands", completed, LongAdder::sum)
+                .description("Trip write commands completed on a shard")
+                .tag("outcome", "completed")
+                .register(registry);
+        FunctionCounter.builder("busapp.booking.writer.commands", failed, LongAdder::sum)
+                .description("Trip write commands that threw on a shard")
+                .tag("outcome", "failed")
+                .register(registry);
+        FunctionCounter.builder("busapp.booking.writer.commands", rejected, LongAdder::sum)
+                .description("Trip write commands rejected because the shard queue was full")
+                .tag("outcome", "rejected")
+                .register(registry);
+        FunctionCounter.builder("busapp.booking.writer.commands", timedOut, LongAdder::sum)
+                .description("Trip write commands dropped because their caller gave up before they started")
+                .tag("outcome", "timed_out")
+                .register(registry);
+        Gauge.builder("busapp.booking.writer.queued", this, TripWriteQueue::queuedCount)
+                .description("Trip write commands waiting across all shards")
+                .register(registry);
+    }
+
+    private static final class Command<T> {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        final Long tripId;
+        final Supplier<T> action;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        Command(Long tripId, Supplier<T> action) {
+            this.tripId = tripId;
+            this.action = action;
+        }
+
+        // Shard side: false if the caller cancelled first
+        boolean start() {
+            return !future.isDone() && state.compareAndSet(QUEUED, RUNNING);
+        }
+
+        // Caller side: false once the shard has started the command
+        boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED);
+        }
+
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            future.complete((T) result);
+        }
+    }
+}
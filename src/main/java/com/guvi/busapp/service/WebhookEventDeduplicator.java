@@ -0,0 +1,142 @@
+// src/main/java/com/guvi/busapp/service/WebhookEventDeduplicator.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.model.ProcessedWebhookEvent;
+import com.guvi.busapp.repository.ProcessedWebhookEventRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recognises redelivered webhook events by event id before anything else is touched. A bounded
+ * LRU of recently accepted ids answers most redeliveries without a query; behind it the
+ * processed_webhook_events primary key is the source of truth. A duplicate racing past both
+ * checks fails on the key at insert; the caller then confirms with isRecorded that the winner
+ * committed before treating it as a duplicate.
+ *
+ * Ids enter the LRU only after the accepting transaction commits, so a rolled-back event is
+ * never mistaken for one already processed.
+ * Exposed as busapp.webhook.duplicates{source=memory|database}.
+ */
+@Component
+public class WebhookEventDeduplicator implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookEventDeduplicator.class);
+
+    private final ProcessedWebhookEventRepository repository;
+    private final long retentionDays;
+    private final Set<String> recentIds;
+
+    private final LongAdder memoryDuplicates = new LongAdder();
+    private final LongAdder databaseDuplicates = new LongAdder();
+
+    @Autowired
+    public WebhookEventDeduplicator(ProcessedWebhookEventRepository repository,
+                                    @Value("${busapp.webhook.dedup.cache-size:10000}") int cacheSize,
+                                    @Value("${busapp.webhook.dedup.retention-days:30}") long retentionDays) {
+        this.repository = repository;
+        this.retentionDays = retentionDays;
+        int capacity = Math.max(1, cacheSize);
+        // Access-ordered, so the least recently seen id is evicted first
+        this.recentIds = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        }));
+    }
+
+    /**
+     * Records {@code eventId} as accepted in the caller's transaction. False when it was seen before;
+     * throws DataIntegrityViolationException when a concurrent delivery of the same event won.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean claim(String eventId, String eventType) {
+        if (recentIds.contains(eventId)) {
+            memoryDuplicates.increment();
+            return false;
+        }
+        if (repository.existsById(eventId)) {
+            recentIds.add(eventId);
+            databaseDuplicates.increment();
+            return false;
+        }
+        repository.saveAndFlush(new ProcessedWebhookEvent(eventId, eventType)); // Flush now so a racing duplicate fails here
+        rememberAfterCommit(eventId);
+        return true;
+    }
+
+    /**
+     * True when {@code eventId} has been committed as accepted. Used after a failed claim to tell
+     * a delivery that lost the race on the primary key from any other integrity failure.
+     */
+    @Transactional(readOnly = true)
+    public boolean isRecorded(String eventId) {
+        if (recentIds.contains(eventId) || repository.existsById(eventId)) {
+            databaseDuplicates.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private void rememberAfterCommit(String eventId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recentIds.add(eventId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentIds.add(eventId);
+            }
+        });
+    }
+
+    // Stripe stops redelivering after a few days; ids older than the retention period can go
+    @Scheduled(cron = "${busapp.webhook.dedup.purge-cron:0 45 3 * * *}")
+    public void purgeExpired() {
+        try {
+            int removed = repository.deleteReceivedBefore(LocalDateTime.now().minusDays(retentionDays));
+            if (removed > 0) logger.info("Purged {} processed webhook event ids older than {} days.", removed, retentionDays);
+        } catch (Exception e) {
+            logger.error("Processed webhook event purge failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("busapp.webhook.duplicates", memoryDuplicates, LongAdder::sum)
+                .description("Redelivered webhook events recognised from the in-memory id cache")
+                .tag("source", "memory")
+                .register(registry);
+        FunctionCounter.builder("busapp.webhook.duplicates", databaseDuplicates, LongAdder::sum)
+                .description("Redelivered webhook events recognised from processed_webhook_events")
+                .tag("source", "database")
+                .register(registry);
+    }
+
+    long getMemoryDuplicateCount() {
+        return memoryDuplicates.sum();
+    }
+
+    long getDatabaseDuplicateCount() {
+        return databaseDuplicates.sum();
+    }
+}
@@ -0,0 +1,78 @@
+// src/main/java/com/guvi/busapp/service/WebhookInbox.java
+package com.guvi.busapp.service;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.guvi.busapp.model.WebhookInboxEvent;
+import com.guvi.busapp.repository.WebhookInboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Write side of the webhook inbox: one insert per verified webhook, nothing else, so the
+ * provider gets its 2xx quickly and doesn't retry into a busy system. WebhookInboxProcessor
+ * does the booking work afterwards. Redeliveries of an event already accepted are dropped
+ * here, before any booking or trip is read.
+ */
+@Component
+public class WebhookInbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookInbox.class);
+
+    /** Fields the payment handlers need, read from a PaymentIntent event's data.object. */
+    record PaymentEventData(String paymentIntentId, Long bookingId, Long amount, String currency) {
+    }
+
+    private final WebhookInboxRepository inboxRepository;
+    private final WebhookEventDeduplicator deduplicator;
+
+    @Autowired
+    public WebhookInbox(WebhookInboxRepository inboxRepository, WebhookEventDeduplicator deduplicator) {
+        this.inboxRepository = inboxRepository;
+        this.deduplicator = deduplicator;
+    }
+
+    // False when the event was already accepted; a concurrent duplicate surfaces as DataIntegrityViolationException
+    @Transactional
+    public boolean accept(String eventId, String eventType, String payload) {
+        if (!deduplicator.claim(eventId, eventType)) {
+            logger.info("Webhook event {} ({}) already received, ignoring redelivery.", eventId, eventType);
+            return false;
+        }
+        Long bookingId = null;
+        try {
+            bookingId = parse(payload).bookingId();
+        } catch (RuntimeException e) {
+            // Stored anyway; the processor dead-letters it with the parse error for inspection
+            logger.warn("Webhook event {} ({}) payload could not be parsed: {}", eventId, eventType, e.getMessage());
+        }
+        WebhookInboxEvent saved = inboxRepository.save(new WebhookInboxEvent(eventId, eventType, bookingId, payload));
+        logger.info("Webhook event {} ({}) for booking {} stored in inbox as #{}.", eventId, eventType, bookingId, saved.getId());
+        return true;
+    }
+
+    // Whether a delivery of eventId has already been committed to the inbox
+    public boolean isAccepted(String eventId) {
+        return deduplicator.isRecorded(eventId);
+    }
+
+    // Throws on malformed JSON; missing fields come back as null
+    static PaymentEventData parse(String payload) {
+        JsonObject dataObject = JsonParser.parseString(payload).getAsJsonObject()
+                .getAsJsonObject("data").getAsJsonObject("object");
+        String paymentIntentId = dataObject.has("id") ? dataObject.get("id").getAsString() : null;
+        Long bookingId = null;
+        if (dataObject.has("metadata")) {
+            JsonObject metadata = dataObject.getAsJsonObject("metadata");
+            if (metadata.has("booking_id")) {
+                bookingId = metadata.get("booking_id").getAsLong();
+            }
+        }
+        Long amount = dataObject.has("amount") ? dataObject.get("amount").getAsLong() : null;
+        String currency = dataObject.has("currency") ? dataObject.get("currency").getAsString() : null;
+        return new PaymentEventData(paymentIntentId, bookingId, amount, currency);
+    }
+}
@@ -0,0 +1,278 @@
+// src/main/java/com/guvi/busapp/service/WebhookInboxProcessor.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.dto.WebhookInboxEventDto;
+import com.guvi.busapp.model.WebhookInboxEvent;
+import com.guvi.busapp.repository.BookingRepository;
+import com.guvi.busapp.repository.WebhookInboxRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Works through the webhook inbox: polls due events, oldest first, and hands them to a small
+ * worker pool. Events of one booking run in order on one worker; different bookings run in
+ * parallel. A failed event is retried with exponential backoff and holds back the booking's
+ * later events until it succeeds. After max-attempts it is dead-lettered (status DEAD)
+ * and waits for an admin retry.
+ *
+ * Each poll waits for its batch to finish before the next starts, so a row is never run twice
+ * at the same time. Like the outbox, this assumes a single application instance.
+ * Exposed as busapp.webhook.inbox.events{outcome=processed|ignored|retried|dead|deferred}
+ * and busapp.webhook.inbox.pending.
+ */
+@Component
+public class WebhookInboxProcessor implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookInboxProcessor.class);
+
+    static final String PAYMENT_SUCCEEDED = "payment_intent.succeeded";
+    static final String PAYMENT_FAILED = "payment_intent.payment_failed";
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final WebhookInboxRepository inboxRepository;
+    private final PaymentService paymentService;
+    private final TripWriteQueue tripWriteQueue;
+    private final BookingRepository bookingRepository;
+    private final ExecutorService workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder ignored = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+
+    @Autowired
+    public WebhookInboxProcessor(WebhookInboxRepository inboxRepository,
+                                 PaymentService paymentService,
+                                 TripWriteQueue tripWriteQueue,
+                                 BookingRepository bookingRepository,
+                                 @Value("${busapp.webhook.inbox.workers:4}") int workerCount,
+                                 @Value("${busapp.webhook.inbox.batch-size:100}") int batchSize,
+                                 @Value("${busapp.webhook.inbox.max-attempts:8}") int maxAttempts,
+                                 @Value("${busapp.webhook.inbox.backoff-ms:2000}") long backoffMillis) {
+        this.inboxRepository = inboxRepository;
+        this.paymentService = paymentService;
+        this.tripWriteQueue = tripWriteQueue;
+        this.bookingRepository = bookingRepository;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(0, backoffMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), runnable -> {
+            Thread thread = new Thread(runnable, "webhook-inbox-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${busapp.webhook.inbox.poll-interval-ms:500}")
+    public void processPending() {
+        List<WebhookInboxEvent> batch;
+        do {
+            batch = inboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    WebhookInboxEvent.Status.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+            if (!processBatch(batch)) return; // Something failed: back off until the next poll
+        } while (batch.size() == batchSize);
+    }
+
+    // True when every event in the batch reached a final status; false also when any was deferred,
+    // since deferred rows stay due and the next fetch would return them again
+    boolean processBatch(List<WebhookInboxEvent> batch) {
+        // One lane per booking, in id order; events without a booking id each get their own lane
+        Map<Object, List<WebhookInboxEvent>> lanes = new LinkedHashMap<>();
+        for (WebhookInboxEvent row : batch) {
+            Object lane = row.getBookingId() != null ? row.getBookingId() : "row-" + row.getId();
+            lanes.computeIfAbsent(lane, key -> new ArrayList<>()).add(row);
+        }
+        List<Callable<Boolean>> tasks = new ArrayList<>(lanes.size());
+        boolean allDone = true;
+        for (List<WebhookInboxEvent> lane : lanes.values()) {
+            WebhookInboxEvent first = lane.get(0);
+            if (first.getBookingId() != null && inboxRepository.existsByBookingIdAndStatusAndIdLessThan(
+                    first.getBookingId(), WebhookInboxEvent.Status.PENDING, first.getId())) {
+                deferred.add(lane.size()); // An earlier event of this booking is waiting for a retry
+                allDone = false;
+                continue;
+            }
+            tasks.add(() -> processLane(lane));
+        }
+        try {
+            for (var result : workers.invokeAll(tasks)) {
+                allDone &= result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            logger.error("Webhook inbox worker failed: {}", e.getMessage(), e);
+            return false;
+        }
+        return allDone;
+    }
+
+    private boolean processLane(List<WebhookInboxEvent> lane) {
+        for (int i = 0; i < lane.size(); i++) {
+            if (!process(lane.get(i))) {
+                deferred.add(lane.size() - i - 1L);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // True when the row reached a final status (processed, ignored or dead-lettered)
+    private boolean process(WebhookInboxEvent row) {
+        if (!PAYMENT_SUCCEEDED.equals(row.getEventType()) && !PAYMENT_FAILED.equals(row.getEventType())) {
+            logger.debug("Webhook inbox #{}: unhandled event type {}.", row.getId(), row.getEventType());
+            inboxRepository.markDone(row.getId(), WebhookInboxEvent.Status.IGNORED, LocalDateTime.now());
+            ignored.increment();
+            return true;
+        }
+
+        WebhookInbox.PaymentEventData data;
+        try {
+            data = WebhookInbox.parse(row.getPayload());
+        } catch (RuntimeException e) {
+            return deadLetter(row, "Unparseable payload: " + e.getMessage());
+        }
+        if (data.paymentIntentId() == null || data.bookingId() == null) {
+            return deadLetter(row, "Payload has no payment intent id or booking_id metadata.");
+        }
+
+        try {
+            // Confirm/fail mutate the trip's seat map, so they go through the trip's write queue like bookings do
+            Long tripId = tripWriteQueue.isEnabled() ? bookingRepository.findTripIdById(data.bookingId()).orElse(null) : null;
+            if (PAYMENT_SUCCEEDED.equals(row.getEventType())) {
+                tripWriteQueue.execute(tripId, () -> {
+                    paymentService.handlePaymentSuccess(data.paymentIntentId(), data.bookingId(), data.amount(), data.currency());
+                    return null;
+                });
+            } else {
+                tripWriteQueue.execute(tripId, () -> {
+                    paymentService.handlePaymentFailure(data.paymentIntentId(), data.bookingId());
+                    return null;
+                });
+            }
+        } catch (Exception e) {
+            int attempt = row.getAttempts() + 1;
+            if (attempt >= maxAttempts) {
+                return deadLetter(row, e.getMessage());
+            }
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoff(attempt)));
+            logger.warn("Webhook inbox #{} ({} for booking {}) failed on attempt {}, retrying at {}: {}",
+                    row.getId(), row.getEventType(), row.getBookingId(), attempt, nextAttemptAt, e.getMessage());
+            inboxRepository.recordFailure(row.getId(), WebhookInboxEvent.Status.PENDING, truncate(e.getMessage()), nextAttemptAt);
+            retried.increment();
+            return false;
+        }
+        inboxRepository.markDone(row.getId(), WebhookInboxEvent.Status.PROCESSED, LocalDateTime.now());
+        processed.increment();
+        return true;
+    }
+
+    private boolean deadLetter(WebhookInboxEvent row, String error) {
+        logger.error("Webhook inbox #{} ({} for booking {}, event {}) dead-lettered after {} attempts: {}",
+                row.getId(), row.getEventType(), row.getBookingId(), row.getEventId(), row.getAttempts() + 1, error);
+        inboxRepository.recordFailure(row.getId(), WebhookInboxEvent.Status.DEAD, truncate(error), LocalDateTime.now());
+        dead.increment();
+        return true; // Final: later events of the booking may proceed
+    }
+
+    // backoff, 2x backoff, 4x backoff... capped at ten minutes
+    long backoff(int attempt) {
+        return Math.min(MAX_BACKOFF_MILLIS, backoffMillis << Math.min(attempt - 1, 20));
+    }
+
+    /** Puts a dead-lettered event back in the queue with a fresh attempt budget. */
+    public boolean requeue(Long inboxId) {
+        boolean requeued = inboxRepository.requeueDead(inboxId, LocalDateTime.now()) > 0;
+        if (requeued) logger.info("Webhook inbox #{} requeued from the dead letters.", inboxId);
+        return requeued;
+    }
+
+    public List<WebhookInboxEventDto> getDeadLetters(int limit) {
+        return inboxRepository.findByStatusOrderByIdDesc(WebhookInboxEvent.Status.DEAD, PageRequest.of(0, Math.max(1, Math.min(limit, 200))))
+                .stream()
+                .map(row -> new WebhookInboxEventDto(row.getId(), row.getEventId(), row.getEventType(), row.getBookingId(),
+                        row.getStatus(), row.getAttempts(), row.getReceivedAt(), row.getLastError()))
+                .toList();
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return null;
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Webhook inbox workers did not finish within 10 s; pending rows will be retried on restart.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("busapp.webhook.inbox.events", processed, LongAdder::sum)
+                .description("Webhook events handled")
+                .tag("outcome", "processed")
+                .register(registry);
+        FunctionCounter.builder("busapp.webhook.inbox.events", ignored, LongAdder::sum)
+                .description("Webhook events of a type that needs no handling")
+                .tag("outcome", "ignored")
+                .register(registry);
+        FunctionCounter.builder("busapp.webhook.inbox.events", retried, LongAdder::sum)
+                .description("Webhook event attempts that failed and were scheduled for a retry")
+                .tag("outcome", "retried")
+                .register(registry);
+        FunctionCounter.builder("busapp.webhook.inbox.events", dead, LongAdder::sum)
+                .description("Webhook events dead-lettered")
+                .tag("outcome", "dead")
+                .register(registry);
+        FunctionCounter.builder("busapp.webhook.inbox.events", deferred, LongAdder::sum)
+                .description("Webhook events held back behind an earlier unfinished event of the same booking")
+                .tag("outcome", "deferred")
+                .register(registry);
+        Gauge.builder("busapp.webhook.inbox.pending", inboxRepository, r -> r.countByStatus(WebhookInboxEvent.Status.PENDING))
+                .description("Webhook events waiting to be processed")
+                .register(registry);
+    }
+
+    long getProcessedCount() {
+        return processed.sum();
+    }
+
+    long getDeadCount() {
+        return dead.sum();
+    }
+}
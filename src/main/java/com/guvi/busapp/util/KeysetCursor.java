@@ -0,0 +1,70 @@
+// src/main/java/com/guvi/busapp/util/KeysetCursor.java
+package com.guvi.busapp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset (seek) pagination: the sort key name, the last row's
+ * sort value and its id, URL-safe Base64 encoded. The next page is fetched with
+ * "WHERE (value, id) after (lastValue, lastId)" instead of an OFFSET scan.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortKey;
+    private final String value;
+    private final long id;
+
+    private KeysetCursor(String sortKey, String value, long id) {
+        this.sortKey = sortKey;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static String encode(String sortKey, Object value, long id) {
+        String raw = sortKey + SEPARATOR + value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode}.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for a different sort key.
+     */
+    public static KeysetCursor decode(String cursor, String expectedSortKey) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor.");
+        }
+        int first = raw.indexOf(SEPARATOR);
+        int last = raw.lastIndexOf(SEPARATOR);
+        if (first < 0 || first == last) {
+            throw new IllegalArgumentException("Invalid pagination cursor.");
+        }
+        String sortKey = raw.substring(0, first);
+        if (!sortKey.equals(expectedSortKey)) {
+            throw new IllegalArgumentException("Pagination cursor does not match the requested sort order.");
+        }
+        try {
+            return new KeysetCursor(sortKey, raw.substring(first + 1, last), Long.parseLong(raw.substring(last + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor.");
+        }
+    }
+
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
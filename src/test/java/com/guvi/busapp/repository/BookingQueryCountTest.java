@@ -0,0 +1,205 @@
+// src/test/java/com/guvi/busapp/repository/BookingQueryCountTest.java
+package com.guvi.busapp.repository;
+
+import com.guvi.busapp.config.JpaBatchingConfig;
+import com.guvi.busapp.dto.BookingPageDto;
+import com.guvi.busapp.dto.BookingResponseDto;
+import com.guvi.busapp.dto.BookingSearchCriteria;
+import com.guvi.busapp.model.*;
+import com.guvi.busapp.service.BookingHistoryCache;
+import com.guvi.busapp.service.BookingOutbox;
+import com.guvi.busapp.service.BookingReferenceGenerator;
+import com.guvi.busapp.service.BookingServiceImpl;
+import com.guvi.busapp.service.BookingViewProjector;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the booking listings against N+1 regressions: the number of SQL statements
+ * must not grow with the number of bookings, buses or passengers. Writes are held to
+ * the same rule through JDBC batching.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({BookingServiceImpl.class, BookingOutbox.class, BookingViewProjector.class, BookingReferenceGenerator.class,
+        BookingHistoryCache.class, JpaBatchingConfig.class})
+class BookingQueryCountTest {
+
+    private static final int BOOKINGS = 12;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private BookingServiceImpl bookingService;
+    @Autowired
+    private BookingViewProjector bookingViewProjector;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = persistUser("history@example.com", "9000000001");
+        User otherUser = persistUser("other@example.com", "9000000002");
+
+        List<ScheduledTrip> trips = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Bus bus = new Bus();
+            bus.setBusNumber("TN-QC-" + i);
+            bus.setOperatorName("Operator " + i);
+            bus.setBusType("AC Sleeper");
+            bus.setTotalSeats(40);
+            bus.setAmenities(new HashSet<>(Set.of("AC", "WiFi")));
+            entityManager.persist(bus);
+
+            Route route = new Route();
+            route.setOrigin("Origin " + i);
+            route.setDestination("Destination " + i);
+            entityManager.persist(route);
+
+            ScheduledTrip trip = new ScheduledTrip();
+            trip.setBus(bus);
+            trip.setRoute(route);
+            trip.setDepartureDate(LocalDate.now().plusDays(5));
+            trip.setDepartureTime(LocalTime.of(8 + i, 0));
+            trip.setArrivalTime(LocalTime.of(16 + i, 0));
+            trip.setFare(new BigDecimal("450.00"));
+            trip.setAvailableSeats(40);
+            entityManager.persist(trip);
+            trips.add(trip);
+        }
+
+        for (int i = 0; i < BOOKINGS; i++) {
+            persistBooking(i % 2 == 0 ? user : otherUser, trips.get(i % trips.size()), i);
+        }
+        entityManager.flush();
+        entityManager.clear(); // Listings below must hit the database, not the persistence context
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testUserHistory_FixedStatementCount() {
+        List<BookingResponseDto> history = bookingService.getBookingsByUser(user.getEmail());
+
+        assertEquals(BOOKINGS / 2, history.size());
+        assertTrue(history.stream().allMatch(b -> b.getPassengers().size() == 2));
+        assertTrue(history.stream().allMatch(b -> b.getTripDetails().getBus().getAmenities().contains("WiFi")));
+        // user lookup + bookings joined with trip/bus/route + one passenger batch + one amenity batch
+        assertTrue(statistics.getPrepareStatementCount() <= 4,
+                "Expected at most 4 statements, got " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testUserHistoryPage_ReadsOnlyTheViewTable() {
+        assertEquals(BOOKINGS, bookingViewProjector.projectMissing(0, 100).size()); // Backfill every booking
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        BookingPageDto first = bookingService.getBookingsByUser(user.getEmail(), null, 4);
+
+        assertEquals(4, first.getBookings().size());
+        assertTrue(first.isHasMore());
+        assertTrue(first.getBookings().stream().allMatch(b -> b.getPassengers().size() == 2));
+        assertTrue(first.getBookings().stream().allMatch(b -> b.getTripDetails().getRoute().getOrigin().startsWith("Origin")));
+        // user lookup + one booking_view page; no joins, no passenger or amenity batches
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        BookingPageDto second = bookingService.getBookingsByUser(user.getEmail(), first.getNextCursor(), 4);
+        assertEquals(BOOKINGS / 2 - 4, second.getBookings().size());
+        assertFalse(second.isHasMore());
+    }
+
+    @Test
+    void testAdminListing_FixedStatementCount() {
+        List<BookingResponseDto> all = bookingService.getAllBookings();
+
+        assertEquals(BOOKINGS, all.size());
+        assertTrue(all.stream().allMatch(b -> b.getUserEmail() != null && b.getTripDetails().getRoute() != null));
+        // bookings joined with user/trip/bus/route + one passenger batch + one amenity batch
+        assertTrue(statistics.getPrepareStatementCount() <= 3,
+                "Expected at most 3 statements, got " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testAdminSearch_FiltersAndPagesWithFixedStatementCount() {
+        BookingSearchCriteria criteria = new BookingSearchCriteria();
+        criteria.setUserEmail(user.getEmail());
+        criteria.setStatus(Booking.BookingStatus.PENDING);
+        criteria.setFromDate(LocalDate.now());
+        criteria.setToDate(LocalDate.now());
+        criteria.setSize(4);
+
+        BookingPageDto first = bookingService.searchBookings(criteria);
+
+        assertEquals(4, first.getBookings().size());
+        assertTrue(first.isHasMore());
+        assertTrue(first.getBookings().stream().allMatch(b -> user.getEmail().equals(b.getUserEmail())));
+        // user lookup + filtered bookings joined with trip/bus/route + one passenger batch + one amenity batch
+        assertTrue(statistics.getPrepareStatementCount() <= 4,
+                "Expected at most 4 statements, got " + statistics.getPrepareStatementCount());
+
+        criteria.setCursor(first.getNextCursor());
+        BookingPageDto second = bookingService.searchBookings(criteria);
+        assertEquals(BOOKINGS / 2 - 4, second.getBookings().size());
+        assertFalse(second.isHasMore());
+    }
+
+    @Test
+    void testSixPassengerBooking_InsertedAsBatches() {
+        ScheduledTrip trip = entityManager.find(ScheduledTrip.class, entityManager.getEntityManager()
+                .createQuery("SELECT MIN(st.id) FROM ScheduledTrip st", Long.class).getSingleResult());
+        User owner = entityManager.find(User.class, user.getId());
+        statistics.clear();
+
+        persistBooking(owner, trip, BOOKINGS, 6);
+        entityManager.flush();
+
+        assertEquals(7, statistics.getEntityInsertCount());
+        // One booking insert plus one batch for all six passengers; ids come from the pooled block already
+        // allocated in setUp. Without batching this would be seven statements.
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private User persistUser(String email, String phone) {
+        User u = new User("Query", "Count", email, "encoded", phone, 30, "Female",
+                LocalDate.of(1994, 1, 1), User.Role.ROLE_USER);
+        return entityManager.persist(u);
+    }
+
+    private void persistBooking(User owner, ScheduledTrip trip, int index) {
+        persistBooking(owner, trip, index, 2);
+    }
+
+    private void persistBooking(User owner, ScheduledTrip trip, int index, int seats) {
+        Booking booking = new Booking();
+        booking.setUser(owner);
+        booking.setScheduledTrip(trip);
+        booking.setNumberOfSeats(seats);
+        booking.setTotalFare(trip.getFare().multiply(BigDecimal.valueOf(seats)));
+        Set<Passenger> passengers = new HashSet<>();
+        for (int seat = 1; seat <= seats; seat++) {
+            passengers.add(new Passenger(booking, "Passenger " + index + "-" + seat, 30, "Male", index + "-" + seat));
+        }
+        booking.setPassengers(passengers);
+        entityManager.persist(booking);
+    }
+}
@@ -0,0 +1,80 @@
+// src/test/java/com/guvi/busapp/repository/PooledIdInitializerTest.java
+package com.guvi.busapp.repository;
+
+import com.guvi.busapp.config.PooledIdInitializer;
+import com.guvi.busapp.model.PooledIds;
+import com.guvi.busapp.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the id sequence alignment against a real id_sequences table: ids issued after it must
+ * come after every row that was already there.
+ */
+@DataJpaTest
+@Import(PooledIdInitializer.class) // Own context, so no pooled block was handed out before the rows are seeded
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // The generator reads id_sequences in its own transaction
+class PooledIdInitializerTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private PooledIdInitializer pooledIdInitializer;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void testNewIdsComeAfterRowsInsertedBeforeTheSwitch() {
+        // Rows written with IDENTITY ids (or by hand) that id_sequences knows nothing about
+        for (long id : new long[]{7, 1_000}) {
+            jdbcTemplate.update("INSERT INTO users (id, first_name, last_name, email, password, phone_number, age, gender, "
+                            + "date_of_birth, role) VALUES (?, 'Seed', 'User', ?, 'encoded', '9000000000', 30, 'Female', ?, 'ROLE_USER')",
+                    id, "seed" + id + "@example.com", LocalDate.of(1994, 1, 1));
+        }
+
+        pooledIdInitializer.alignSequences();
+
+        User created = new TransactionTemplate(transactionManager).execute(status -> entityManager.persist(
+                new User("New", "User", "new@example.com", "encoded", "9000000001", 25, "Male",
+                        LocalDate.of(1999, 1, 1), User.Role.ROLE_USER)));
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users WHERE email LIKE 'seed%'", Long.class);
+        assertTrue(created.getId() > maxId, "new id " + created.getId() + " must come after " + maxId);
+        Long nextVal = jdbcTemplate.queryForObject("SELECT " + PooledIds.VALUE_COLUMN + " FROM " + PooledIds.TABLE
+                + " WHERE " + PooledIds.NAME_COLUMN + " = 'users'", Long.class);
+        assertTrue(nextVal > maxId + PooledIds.ALLOCATION_SIZE);
+    }
+
+    @Test
+    void testFailedAlignmentFailsStartup() {
+        JdbcTemplate broken = mock(JdbcTemplate.class);
+        when(broken.queryForObject(anyString(), eq(Long.class))).thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        PooledIdInitializer initializer = new PooledIdInitializer(broken, mock(EntityManagerFactory.class));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, initializer::alignSequences);
+        assertTrue(e.getMessage().contains("'bookings'"));
+    }
+}
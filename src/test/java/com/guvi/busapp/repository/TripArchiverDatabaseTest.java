@@ -0,0 +1,137 @@
+// src/test/java/com/guvi/busapp/repository/TripArchiverDatabaseTest.java
+package com.guvi.busapp.repository;
+
+import com.guvi.busapp.model.*;
+import com.guvi.busapp.service.BookingHistoryCache;
+import com.guvi.busapp.service.BookingViewProjector;
+import com.guvi.busapp.service.TripArchiver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the archiver's copy and delete against a real schema, including an archive table
+ * created before bookings.reference_code existed.
+ */
+@DataJpaTest
+@Import({TripArchiver.class, BookingViewProjector.class, BookingHistoryCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // The archiver commits its own chunks
+class TripArchiverDatabaseTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private TripArchiver tripArchiver;
+
+    @AfterEach
+    void tearDown() {
+        for (String table : new String[]{"passengers", "bookings", "trip_seat_status", "scheduled_trips"}) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS archived_" + table);
+        }
+        for (String table : new String[]{"booking_view", "passengers", "bookings", "trip_seat_status", "scheduled_trips",
+                "bus_amenities", "buses", "routes", "users"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void testDepartedTripMovesToArchiveWhoseSchemaPredatesReferenceCodes() {
+        Long[] ids = new TransactionTemplate(transactionManager).execute(status -> {
+            User user = entityManager.persist(new User("Archive", "Test", "archive@example.com", "encoded", "9000000009",
+                    30, "Female", LocalDate.of(1994, 1, 1), User.Role.ROLE_USER));
+            ScheduledTrip departed = persistTrip("TN-AR-1");
+            ScheduledTrip upcoming = persistTrip("TN-AR-2");
+            Booking archived = persistBooking(user, departed, "ARCHIVE00001");
+            Booking live = persistBooking(user, upcoming, "LIVE00000001");
+            return new Long[]{departed.getId(), upcoming.getId(), archived.getId(), live.getId()};
+        });
+        // Trips can't be saved with a past date, so age this one directly
+        jdbcTemplate.update("UPDATE scheduled_trips SET departure_date = ? WHERE id = ?", LocalDate.now().minusDays(120), ids[0]);
+        // An archive made by an earlier release: no reference_code column yet
+        jdbcTemplate.execute("CREATE TABLE archived_bookings AS SELECT * FROM bookings WHERE 1 = 0");
+        jdbcTemplate.execute("ALTER TABLE archived_bookings DROP COLUMN reference_code");
+
+        assertEquals(1, tripArchiver.archiveDepartedBefore(LocalDate.now().minusDays(90)));
+
+        assertEquals("ARCHIVE00001", jdbcTemplate.queryForObject(
+                "SELECT reference_code FROM archived_bookings WHERE id = ?", String.class, ids[2]));
+        assertEquals(1, count("archived_scheduled_trips WHERE id = ?", ids[0]));
+        assertEquals(2, count("archived_trip_seat_status WHERE trip_id = ?", ids[0]));
+        assertEquals(2, count("archived_passengers WHERE booking_id = ?", ids[2]));
+
+        assertEquals(0, count("scheduled_trips WHERE id = ?", ids[0]));
+        assertEquals(0, count("trip_seat_status WHERE trip_id = ?", ids[0]));
+        assertEquals(0, count("bookings WHERE id = ?", ids[2]));
+        assertEquals(0, count("passengers WHERE booking_id = ?", ids[2]));
+        assertEquals(1, count("booking_view WHERE booking_id = ?", ids[2])); // History survives the move
+
+        assertEquals(1, count("scheduled_trips WHERE id = ?", ids[1]));
+        assertEquals(2, count("passengers WHERE booking_id = ?", ids[3]));
+        assertEquals(0, count("archived_bookings WHERE id = ?", ids[3]));
+    }
+
+    private int count(String fromWhere, Long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + fromWhere, Integer.class, id);
+    }
+
+    private ScheduledTrip persistTrip(String busNumber) {
+        Bus bus = new Bus();
+        bus.setBusNumber(busNumber);
+        bus.setOperatorName("Archive Travels");
+        bus.setBusType("AC Sleeper");
+        bus.setTotalSeats(40);
+        bus.setAmenities(new HashSet<>(Set.of("AC")));
+        entityManager.persist(bus);
+
+        Route route = new Route();
+        route.setOrigin("Chennai");
+        route.setDestination("Madurai");
+        entityManager.persist(route);
+
+        ScheduledTrip trip = new ScheduledTrip();
+        trip.setBus(bus);
+        trip.setRoute(route);
+        trip.setDepartureDate(LocalDate.now().plusDays(3));
+        trip.setDepartureTime(LocalTime.of(21, 30));
+        trip.setArrivalTime(LocalTime.of(5, 30));
+        trip.setFare(new BigDecimal("450.00"));
+        trip.setAvailableSeats(38);
+        trip.getSeatStatus().put("1", ScheduledTrip.SeatStatus.BOOKED);
+        trip.getSeatStatus().put("2", ScheduledTrip.SeatStatus.BOOKED);
+        return entityManager.persist(trip);
+    }
+
+    private Booking persistBooking(User owner, ScheduledTrip trip, String referenceCode) {
+        Booking booking = new Booking();
+        booking.setUser(owner);
+        booking.setScheduledTrip(trip);
+        booking.setReferenceCode(referenceCode);
+        booking.setNumberOfSeats(2);
+        booking.setTotalFare(new BigDecimal("900.00"));
+        Set<Passenger> passengers = new HashSet<>();
+        passengers.add(new Passenger(booking, "Asha", 30, "Female", "1"));
+        passengers.add(new Passenger(booking, "Ravi", 32, "Male", "2"));
+        booking.setPassengers(passengers);
+        return entityManager.persist(booking);
+    }
+}
@@ -0,0 +1,124 @@
+// src/test/java/com/guvi/busapp/service/BookingExportServiceImplTest.java
+package com.guvi.busapp.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingExportServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private ResultSet resultSet;
+
+    private final LocalDate from = LocalDate.of(2024, 5, 1);
+    private final LocalDate to = LocalDate.of(2024, 5, 31);
+
+    private BookingExportServiceImpl exportService() {
+        return new BookingExportServiceImpl(jdbcTemplate, Integer.MIN_VALUE);
+    }
+
+    // Feeds the stubbed result set to the row callback once, as the streaming cursor would
+    private void streamOneRow(String operatorName) throws Exception {
+        when(resultSet.getLong("id")).thenReturn(7L);
+        when(resultSet.getObject("booking_time", LocalDateTime.class)).thenReturn(LocalDateTime.of(2024, 5, 3, 10, 15));
+        when(resultSet.getString("status")).thenReturn("CONFIRMED");
+        when(resultSet.getInt("number_of_seats")).thenReturn(2);
+        when(resultSet.getBigDecimal("total_fare")).thenReturn(new BigDecimal("900.00"));
+        when(resultSet.getString("email")).thenReturn("finance@example.com");
+        when(resultSet.getString("first_name")).thenReturn("Asha");
+        when(resultSet.getString("last_name")).thenReturn("Rao");
+        when(resultSet.getLong("trip_id")).thenReturn(30L);
+        when(resultSet.getObject("departure_date", LocalDate.class)).thenReturn(LocalDate.of(2024, 5, 10));
+        when(resultSet.getObject("departure_time", LocalTime.class)).thenReturn(LocalTime.of(21, 30));
+        when(resultSet.getString("origin")).thenReturn("Chennai");
+        when(resultSet.getString("destination")).thenReturn("Madurai");
+        when(resultSet.getString("bus_number")).thenReturn("TN-01-1000");
+        when(resultSet.getString("operator_name")).thenReturn(operatorName);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testCsvExport_HeaderAndEscapedRow() throws Exception {
+        streamOneRow("Sri \"Express\", Travels");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService().exportBookings(from, to, null, BookingExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(1, rows);
+        assertEquals(2, lines.length);
+        assertEquals(String.join(",", BookingExportServiceImpl.COLUMNS), lines[0]);
+        assertEquals("7,2024-05-03T10:15,CONFIRMED,2,900.00,finance@example.com,Asha Rao,30,2024-05-10,21:30,"
+                + "Chennai,Madurai,TN-01-1000,\"Sri \"\"Express\"\", Travels\"", lines[1]);
+    }
+
+    @Test
+    void testCsvExport_FormulaLikeTextIsNeutralised() throws Exception {
+        streamOneRow("=HYPERLINK(\"http://evil.example\",\"Refund\")");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService().exportBookings(from, to, null, BookingExportService.Format.CSV, out);
+
+        assertTrue(out.toString(StandardCharsets.UTF_8).split("\r\n")[1]
+                .endsWith(",\"'=HYPERLINK(\"\"http://evil.example\"\",\"\"Refund\"\")\""));
+        for (String text : new String[]{"+91 98400", "-2+3", "@SUM(A1)", "\tcmd", "\rcmd"}) {
+            assertEquals("\"'" + text + "\"", BookingExportServiceImpl.CsvRowWriter.escape(text));
+        }
+        assertEquals("-5", BookingExportServiceImpl.CsvRowWriter.escape(-5)); // Numbers are never formulas
+        assertEquals("Asha Rao", BookingExportServiceImpl.CsvRowWriter.escape("Asha Rao"));
+    }
+
+    @Test
+    void testNdjsonExport_OneObjectPerLine() throws Exception {
+        streamOneRow("Parveen");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService().exportBookings(from, to, null, BookingExportService.Format.NDJSON, out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+        // Exact decimals: otherwise the fare is read back as 900.0 or 9E+2 and the scale isn't checked
+        JsonNode row = JsonMapper.builder()
+                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .disable(JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES)
+                .build()
+                .readTree(body.trim());
+        assertEquals(7, row.get("booking_id").asLong());
+        assertEquals(new BigDecimal("900.00"), row.get("total_fare").decimalValue());
+        assertEquals("Parveen", row.get("operator_name").asText());
+        assertEquals("2024-05-10", row.get("departure_date").asText());
+    }
+
+    @Test
+    void testInvertedRangeRejectedBeforeQuerying() {
+        assertThrows(IllegalArgumentException.class, () -> exportService()
+                .exportBookings(to, from, null, BookingExportService.Format.CSV, new ByteArrayOutputStream()));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
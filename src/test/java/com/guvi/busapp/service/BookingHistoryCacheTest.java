@@ -0,0 +1,89 @@
+// src/test/java/com/guvi/busapp/service/BookingHistoryCacheTest.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.dto.BookingPageDto;
+import com.guvi.busapp.dto.BookingResponseDto;
+import com.guvi.busapp.model.Booking;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingHistoryCacheTest {
+
+    private final BookingHistoryCache cache = new BookingHistoryCache(30, 100);
+
+    private BookingPageDto page(Booking.BookingStatus status) {
+        BookingResponseDto booking = new BookingResponseDto();
+        booking.setBookingId(1L);
+        booking.setStatus(status);
+        booking.setTotalFare(new BigDecimal("900.00"));
+        booking.setBookingTime(LocalDateTime.of(2026, 1, 10, 9, 30));
+        return new BookingPageDto(List.of(booking), null, false);
+    }
+
+    @Test
+    void testRepeatVisitIsServedFromCacheUntilEvicted() {
+        AtomicInteger loads = new AtomicInteger();
+
+        BookingHistoryCache.CachedPage first = cache.getPage("user@example.com", null, 20,
+                () -> { loads.incrementAndGet(); return page(Booking.BookingStatus.PENDING); });
+        BookingHistoryCache.CachedPage second = cache.getPage("User@Example.com", null, 20,
+                () -> { loads.incrementAndGet(); return page(Booking.BookingStatus.PENDING); });
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertEquals(1, cache.getHitCount());
+
+        cache.evictAfterCommit("user@example.com"); // No transaction: evicts immediately
+        BookingHistoryCache.CachedPage confirmed = cache.getPage("user@example.com", null, 20,
+                () -> { loads.incrementAndGet(); return page(Booking.BookingStatus.CONFIRMED); });
+
+        assertEquals(2, loads.get());
+        assertNotEquals(first.etag(), confirmed.etag());
+    }
+
+    @Test
+    void testEvictionDuringLoadIsNotOverwrittenByStaleRows() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getPage("user@example.com", null, 20, () -> {
+            loads.incrementAndGet();
+            cache.evictAfterCommit("user@example.com"); // Payment confirmed while the old rows were being read
+            return page(Booking.BookingStatus.PENDING);
+        });
+        BookingHistoryCache.CachedPage next = cache.getPage("user@example.com", null, 20,
+                () -> { loads.incrementAndGet(); return page(Booking.BookingStatus.CONFIRMED); });
+
+        assertEquals(2, loads.get());
+        assertEquals(Booking.BookingStatus.CONFIRMED, next.page().getBookings().get(0).getStatus());
+    }
+
+    @Test
+    void testEtagDependsOnlyOnContent() {
+        assertEquals(BookingHistoryCache.etag(page(Booking.BookingStatus.PENDING)),
+                BookingHistoryCache.etag(page(Booking.BookingStatus.PENDING)));
+        assertNotEquals(BookingHistoryCache.etag(page(Booking.BookingStatus.PENDING)),
+                BookingHistoryCache.etag(page(Booking.BookingStatus.FAILED)));
+    }
+
+    @Test
+    void testIfNoneMatchComparesEachTagWeakly() {
+        String etag = "\"abc123\"";
+
+        assertTrue(BookingHistoryCache.matchesAny("\"abc123\"", etag));
+        assertTrue(BookingHistoryCache.matchesAny("W/\"abc123\"", etag));
+        assertTrue(BookingHistoryCache.matchesAny("\"old\", W/\"abc123\"", etag));
+        assertTrue(BookingHistoryCache.matchesAny(" * ", etag));
+
+        assertFalse(BookingHistoryCache.matchesAny(null, etag));
+        assertFalse(BookingHistoryCache.matchesAny("\"abc1234\"", etag)); // Substring of another tag
+        assertFalse(BookingHistoryCache.matchesAny("\"xabc123\"", etag));
+        assertFalse(BookingHistoryCache.matchesAny("abc123", etag)); // Unquoted is malformed
+        assertFalse(BookingHistoryCache.matchesAny("\"other\", \"abc123", etag));
+    }
+}
@@ -0,0 +1,79 @@
+// src/test/java/com/guvi/busapp/service/BookingReferenceGeneratorTest.java
+package com.guvi.busapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingReferenceGeneratorTest {
+
+    @Test
+    void testCodesAreUniqueAcrossNodesAndPastTheSequenceLimit() {
+        BookingReferenceGenerator first = new BookingReferenceGenerator(1);
+        BookingReferenceGenerator second = new BookingReferenceGenerator(2);
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) { // More than 4096 per node, so the counter rolls into the next second
+            assertTrue(codes.add(first.next()));
+            assertTrue(codes.add(second.next()));
+        }
+        assertTrue(codes.stream().allMatch(code -> code.length() == BookingReferenceGenerator.LENGTH));
+        assertTrue(codes.stream().allMatch(code -> code.equals(BookingReferenceGenerator.normalize(code))));
+    }
+
+    @Test
+    void testRestartedNodeDoesNotReissueCodesFromABurst() {
+        BookingReferenceGenerator before = new BookingReferenceGenerator(4);
+        List<String> issued = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) { // Borrows a couple of seconds ahead of the clock
+            issued.add(before.next());
+        }
+
+        BookingReferenceGenerator restarted = new BookingReferenceGenerator(4);
+        restarted.seed(issued);
+
+        Set<String> codes = new HashSet<>(issued);
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(codes.add(restarted.next()));
+        }
+    }
+
+    @Test
+    void testSecondIsReadBackFromTheCode() {
+        long now = BookingReferenceGenerator.secondOf(new BookingReferenceGenerator(9).next());
+        assertTrue(now > 0);
+        assertTrue(Math.abs(now - BookingReferenceGenerator.secondOf(new BookingReferenceGenerator(1000).next())) <= 1);
+        assertEquals(-1, BookingReferenceGenerator.secondOf("NOT-A-CODE"));
+    }
+
+    @Test
+    void testSingleCharacterTyposFailTheCheck() {
+        String code = new BookingReferenceGenerator(7).next();
+        for (int i = 0; i < code.length(); i++) {
+            for (char c : BookingReferenceGenerator.ALPHABET.toCharArray()) {
+                if (c == code.charAt(i)) continue;
+                assertNull(BookingReferenceGenerator.normalize(code.substring(0, i) + c + code.substring(i + 1)));
+            }
+        }
+    }
+
+    @Test
+    void testNormalizeAcceptsWhatCustomersType() {
+        String code = new BookingReferenceGenerator(3).next();
+        String typed = (code.substring(0, 4) + "-" + code.substring(4, 8) + " " + code.substring(8))
+                .toLowerCase().replace('0', 'o').replace('1', 'l');
+
+        assertEquals(code, BookingReferenceGenerator.normalize(typed));
+        assertNull(BookingReferenceGenerator.normalize(code.substring(1)));
+        assertNull(BookingReferenceGenerator.normalize(null));
+    }
+
+    @Test
+    void testNodeIdOutOfRangeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BookingReferenceGenerator(1024));
+    }
+}
@@ -2,6 +2,8 @@
 package com.guvi.busapp.service;
 
 import com.guvi.busapp.dto.*;
+import com.guvi.busapp.event.BookingLifecycleEvent;
+import com.guvi.busapp.event.TripAvailabilityChangedEvent;
 import com.guvi.busapp.exception.ResourceNotFoundException;
 import com.guvi.busapp.exception.SeatUnavailableException;
 import com.guvi.busapp.model.*;
@@ -9,10 +11,15 @@ import com.guvi.busapp.repository.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -22,8 +29,10 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,9 +47,13 @@ class BookingServiceImplTest {
     @Mock
     private PassengerRepository passengerRepository;
     @Mock
-    private BusService busService;
+    private ApplicationEventPublisher eventPublisher;
     @Mock
-    private RouteService routeService;
+    private BookingOutbox bookingOutbox;
+    @Mock
+    private BookingViewRepository bookingViewRepository;
+    @Mock
+    private BookingReferenceGenerator referenceGenerator;
 
     @InjectMocks
     private BookingServiceImpl bookingService;
@@ -158,8 +171,6 @@ class BookingServiceImplTest {
         when(scheduledTripRepository.findByIdForUpdate(testTrip.getId())).thenReturn(Optional.of(testTrip));
         when(bookingRepository.save(any(Booking.class))).thenReturn(savedBooking);
         when(bookingRepository.findById(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
-        when(busService.getBusById(testBus.getId())).thenReturn(testBusDto);
-        when(routeService.getRouteById(testRoute.getId())).thenReturn(testRouteDto);
 
         BookingResponseDto responseDto = bookingService.createBooking(testBookingRequest, testUser.getEmail());
 
@@ -249,6 +260,49 @@ class BookingServiceImplTest {
         verify(bookingRepository, never()).save(any(Booking.class));
     }
 
+    // --- Tests for checkout ---
+
+    @Test
+    void testCheckout_HoldsSeatsAndCreatesBookingUnderOneLock() throws Exception {
+        testBookingRequest.setSelectedSeats(List.of("3", "4"));
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(scheduledTripRepository.findByIdForUpdate(testTrip.getId())).thenReturn(Optional.of(testTrip));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> {
+            Booking booking = invocation.getArgument(0);
+            booking.setId(200L);
+            return booking;
+        });
+
+        BookingResponseDto responseDto = bookingService.checkout(testBookingRequest, testUser.getEmail());
+
+        assertEquals(200L, responseDto.getBookingId());
+        assertEquals(2, responseDto.getPassengers().size());
+        assertEquals(new BigDecimal("1000.00"), responseDto.getTotalFare());
+        assertEquals(ScheduledTrip.SeatStatus.LOCKED, testTrip.getSeatStatus().get("3"));
+        assertEquals(ScheduledTrip.SeatStatus.LOCKED, testTrip.getSeatStatus().get("4"));
+        assertEquals(28, testTrip.getAvailableSeats());
+        ArgumentCaptor<TripAvailabilityChangedEvent> event = ArgumentCaptor.forClass(TripAvailabilityChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(-2, event.getValue().getSeatDelta());
+        verify(scheduledTripRepository, times(1)).findByIdForUpdate(testTrip.getId());
+        verify(bookingRepository, never()).findById(anyLong()); // Response mapped from the saved entity
+        verify(bookingOutbox).record(any(Booking.class), eq(BookingLifecycleEvent.Type.CREATED));
+    }
+
+    @Test
+    void testCheckout_AlreadyLockedSeatRejected() {
+        // Seat 2 is LOCKED in setup: createBooking accepts it (the caller locked it), checkout must not
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(scheduledTripRepository.findByIdForUpdate(testTrip.getId())).thenReturn(Optional.of(testTrip));
+
+        assertThrows(SeatUnavailableException.class, () -> bookingService.checkout(testBookingRequest, testUser.getEmail()));
+
+        assertEquals(ScheduledTrip.SeatStatus.AVAILABLE, testTrip.getSeatStatus().get("3")); // Nothing held
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verifyNoInteractions(eventPublisher);
+        verifyNoInteractions(bookingOutbox);
+    }
+
     // --- Tests for getBookingsByUser ---
 
     @Test
@@ -257,8 +311,6 @@ class BookingServiceImplTest {
         List<Booking> userBookings = List.of(savedBooking);
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
         when(bookingRepository.findByUserOrderByBookingTimeDesc(testUser)).thenReturn(userBookings);
-        when(busService.getBusById(testBus.getId())).thenReturn(testBusDto);
-        when(routeService.getRouteById(testRoute.getId())).thenReturn(testRouteDto);
 
         // Act
         List<BookingResponseDto> result = bookingService.getBookingsByUser(testUser.getEmail());
@@ -270,6 +322,9 @@ class BookingServiceImplTest {
         assertEquals(savedBooking.getId(), dto.getBookingId());
         assertEquals(testUser.getEmail(), dto.getUserEmail());
         assertEquals(testTrip.getId(), dto.getTripDetails().getId());
+        assertEquals(testBusDto.getBusNumber(), dto.getTripDetails().getBus().getBusNumber());
+        assertEquals(testBusDto.getAmenities(), dto.getTripDetails().getBus().getAmenities());
+        assertEquals(testRouteDto.getOrigin(), dto.getTripDetails().getRoute().getOrigin());
 
         // Verify
         verify(userRepository, times(1)).findByEmail(testUser.getEmail());
@@ -312,8 +367,6 @@ class BookingServiceImplTest {
         List<Booking> allBookings = List.of(savedBooking, anotherBooking); // Order might depend on bookingTime
 
         when(bookingRepository.findAll(Sort.by(Sort.Direction.DESC, "bookingTime"))).thenReturn(allBookings);
-        when(busService.getBusById(testBus.getId())).thenReturn(testBusDto);
-        when(routeService.getRouteById(testRoute.getId())).thenReturn(testRouteDto);
 
         // Act
         List<BookingResponseDto> result = bookingService.getAllBookings();
@@ -352,4 +405,250 @@ class BookingServiceImplTest {
         // Verify
         verify(bookingRepository, times(1)).findAll(Sort.by(Sort.Direction.DESC, "bookingTime"));
     }
-}
\ No newline at end of file
+
+    // --- Tests for keyset-paginated listings ---
+
+    @Test
+    void testGetBookingsByUserPage_CursorResumesAfterLastRow() {
+        Booking older = new Booking();
+        older.setId(99L); older.setUser(testUser); older.setScheduledTrip(testTrip);
+        older.setStatus(Booking.BookingStatus.CONFIRMED); older.setBookingTime(savedBooking.getBookingTime().minusDays(1));
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        BookingView newestView = BookingViewProjector.toView(savedBooking);
+        BookingView olderView = BookingViewProjector.toView(older);
+        // size=1 asks for 2 rows; the second only signals that another page exists
+        when(bookingViewRepository.findUserPage(eq(testUser.getId()), any(LocalDateTime.class), eq(Long.MAX_VALUE), eq(PageRequest.of(0, 2))))
+                .thenReturn(List.of(newestView, olderView));
+
+        BookingPageDto first = bookingService.getBookingsByUser(testUser.getEmail(), null, 1);
+
+        assertEquals(1, first.getBookings().size());
+        assertEquals(savedBooking.getId(), first.getBookings().get(0).getBookingId());
+        assertEquals(savedBooking.getPassengers().size(), first.getBookings().get(0).getPassengers().size());
+        assertEquals(testRoute.getOrigin(), first.getBookings().get(0).getTripDetails().getRoute().getOrigin());
+        assertTrue(first.isHasMore());
+        assertNotNull(first.getNextCursor());
+
+        when(bookingViewRepository.findUserPage(testUser.getId(), savedBooking.getBookingTime(), savedBooking.getId(), PageRequest.of(0, 2)))
+                .thenReturn(List.of(olderView));
+
+        BookingPageDto second = bookingService.getBookingsByUser(testUser.getEmail(), first.getNextCursor(), 1);
+
+        assertEquals(List.of(99L), second.getBookings().stream().map(BookingResponseDto::getBookingId).toList());
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testGetAllBookingsPage_InvalidCursorRejected() {
+        assertThrows(IllegalArgumentException.class, () -> bookingService.getAllBookings("not-a-cursor", 20));
+        verify(bookingRepository, never()).findBookingsPage(any(), any(), any());
+    }
+
+    // --- Tests for checkoutTripGroup ---
+
+    private BookingRequestDto groupEntry(String... seats) {
+        BookingRequestDto request = new BookingRequestDto();
+        request.setTripId(testTrip.getId());
+        request.setSelectedSeats(List.of(seats));
+        List<PassengerDto> passengers = new ArrayList<>();
+        for (String seat : seats) {
+            PassengerDto passenger = new PassengerDto();
+            passenger.setName("Tourist " + seat); passenger.setAge(40); passenger.setGender("Female");
+            passengers.add(passenger);
+        }
+        request.setPassengers(passengers);
+        return request;
+    }
+
+    @Test
+    void testCheckoutTripGroup_OneLockAndPartialSuccess() {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(scheduledTripRepository.findByIdForUpdate(testTrip.getId())).thenReturn(Optional.of(testTrip));
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            long id = 300L;
+            for (Booking booking : bookings) booking.setId(id++);
+            return bookings;
+        });
+
+        // The second entry wants seat 4, already taken by the first entry of the same group
+        List<GroupBookingItemResultDto> results = bookingService.checkoutTripGroup(testTrip.getId(),
+                List.of(groupEntry("3", "4"), groupEntry("4", "5"), groupEntry("5", "6")), testUser.getEmail());
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).getError().contains("4 (LOCKED)"));
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(301L, results.get(2).getBooking().getBookingId());
+        assertEquals(ScheduledTrip.SeatStatus.LOCKED, testTrip.getSeatStatus().get("6"));
+        assertEquals(26, testTrip.getAvailableSeats());
+        verify(scheduledTripRepository, times(1)).findByIdForUpdate(testTrip.getId());
+        verify(bookingRepository, times(1)).saveAll(anyList());
+        verify(bookingOutbox, times(2)).record(any(Booking.class), eq(BookingLifecycleEvent.Type.CREATED));
+        verify(eventPublisher, times(1)).publishEvent(any(TripAvailabilityChangedEvent.class));
+    }
+
+    @Test
+    void testCheckoutTripGroup_NothingBookableLeavesTripUntouched() {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(scheduledTripRepository.findByIdForUpdate(testTrip.getId())).thenReturn(Optional.of(testTrip));
+
+        List<GroupBookingItemResultDto> results = bookingService.checkoutTripGroup(testTrip.getId(),
+                List.of(groupEntry("1"), groupEntry("99")), testUser.getEmail());
+
+        assertTrue(results.stream().noneMatch(GroupBookingItemResultDto::isSuccess));
+        assertEquals(30, testTrip.getAvailableSeats());
+        verify(scheduledTripRepository, never()).save(any());
+        verify(bookingRepository, never()).saveAll(anyList());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    // --- Tests for cancelBooking ---
+
+    @Test
+    void testCancelBooking_ConfirmedSeatsReturnToSale() {
+        savedBooking.setStatus(Booking.BookingStatus.CONFIRMED);
+        testTrip.getSeatStatus().put("2", ScheduledTrip.SeatStatus.BOOKED);
+        testTrip.getSeatStatus().put("3", ScheduledTrip.SeatStatus.BOOKED);
+        lockForCancel();
+        when(bookingRepository.save(savedBooking)).thenReturn(savedBooking);
+
+        BookingResponseDto responseDto = bookingService.cancelBooking(savedBooking.getId(), testUser.getEmail());
+
+        assertEquals(Booking.BookingStatus.CANCELLED, responseDto.getStatus());
+        assertEquals(ScheduledTrip.SeatStatus.AVAILABLE, testTrip.getSeatStatus().get("2"));
+        assertEquals(ScheduledTrip.SeatStatus.AVAILABLE, testTrip.getSeatStatus().get("3"));
+        assertEquals(32, testTrip.getAvailableSeats());
+        ArgumentCaptor<TripAvailabilityChangedEvent> event = ArgumentCaptor.forClass(TripAvailabilityChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(2, event.getValue().getSeatDelta());
+        verify(bookingOutbox).record(savedBooking, BookingLifecycleEvent.Type.CANCELLED);
+    }
+
+    @Test
+    void testCancelBooking_PendingReleasesOnlyItsLockedSeats() {
+        // Seat 2 is LOCKED by this booking; seat 3 is AVAILABLE in setup and must not be counted twice
+        lockForCancel();
+        when(bookingRepository.save(savedBooking)).thenReturn(savedBooking);
+
+        bookingService.cancelBooking(savedBooking.getId(), testUser.getEmail());
+
+        assertEquals(ScheduledTrip.SeatStatus.AVAILABLE, testTrip.getSeatStatus().get("2"));
+        assertEquals(31, testTrip.getAvailableSeats());
+        assertEquals(Booking.BookingStatus.CANCELLED, savedBooking.getStatus());
+    }
+
+    @Test
+    void testCancelBooking_PendingWithPaymentStartedRejected() {
+        // A PaymentIntent may still be paid; cancelling now would take the money without a ticket
+        savedBooking.setPaymentStartedAt(LocalDateTime.now().minusMinutes(1));
+        lockForCancel();
+
+        assertThrows(IllegalArgumentException.class, () -> bookingService.cancelBooking(savedBooking.getId(), testUser.getEmail()));
+
+        assertEquals(Booking.BookingStatus.PENDING, savedBooking.getStatus());
+        assertEquals(ScheduledTrip.SeatStatus.LOCKED, testTrip.getSeatStatus().get("2"));
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verifyNoInteractions(eventPublisher, bookingOutbox);
+    }
+
+    @Test
+    void testCancelBooking_AfterCutoffRejected() {
+        ReflectionTestUtils.setField(bookingService, "cancellationCutoffMinutes", 3L * 24 * 60); // Departure is tomorrow
+        savedBooking.setStatus(Booking.BookingStatus.CONFIRMED);
+        lockForCancel();
+
+        assertThrows(IllegalArgumentException.class, () -> bookingService.cancelBooking(savedBooking.getId(), testUser.getEmail()));
+
+        assertEquals(Booking.BookingStatus.CONFIRMED, savedBooking.getStatus());
+        assertEquals(30, testTrip.getAvailableSeats());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verifyNoInteractions(eventPublisher, bookingOutbox);
+    }
+
+    @Test
+    void testCancelBooking_OtherUsersBookingNotFound() {
+        lockForCancel();
+
+        assertThrows(ResourceNotFoundException.class, () -> bookingService.cancelBooking(savedBooking.getId(), "someone.else@example.com"));
+
+        assertEquals(Booking.BookingStatus.PENDING, savedBooking.getStatus());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(scheduledTripRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher, bookingOutbox);
+    }
+
+    @Test
+    void testCancelBooking_StatusIsReadUnderTheTripLock() {
+        // Payment confirmed while cancel waited for the trip lock: the locked read sees CONFIRMED and BOOKED seats
+        lockForCancel();
+        when(bookingRepository.findByIdForUpdate(savedBooking.getId())).thenAnswer(invocation -> {
+            savedBooking.setStatus(Booking.BookingStatus.CONFIRMED);
+            testTrip.getSeatStatus().put("2", ScheduledTrip.SeatStatus.BOOKED);
+            return Optional.of(savedBooking);
+        });
+        when(bookingRepository.save(savedBooking)).thenReturn(savedBooking);
+
+        bookingService.cancelBooking(savedBooking.getId(), testUser.getEmail());
+
+        InOrder lockOrder = inOrder(scheduledTripRepository, bookingRepository);
+        lockOrder.verify(scheduledTripRepository).findByIdForUpdate(testTrip.getId());
+        lockOrder.verify(bookingRepository).findByIdForUpdate(savedBooking.getId());
+        assertEquals(ScheduledTrip.SeatStatus.AVAILABLE, testTrip.getSeatStatus().get("2"));
+        assertEquals(31, testTrip.getAvailableSeats());
+    }
+
+    @Test
+    void testFindTripIdForBooking_ReadsOnlyTheTripId() {
+        when(bookingRepository.findTripIdById(savedBooking.getId())).thenReturn(Optional.of(testTrip.getId()));
+        when(bookingRepository.findTripIdById(999L)).thenReturn(Optional.empty());
+
+        assertEquals(testTrip.getId(), bookingService.findTripIdForBooking(savedBooking.getId()));
+        assertThrows(ResourceNotFoundException.class, () -> bookingService.findTripIdForBooking(999L));
+        verify(bookingRepository, never()).findById(any());
+    }
+
+    private void lockForCancel() {
+        when(bookingRepository.findTripIdById(savedBooking.getId())).thenReturn(Optional.of(testTrip.getId()));
+        when(scheduledTripRepository.findByIdForUpdate(testTrip.getId())).thenReturn(Optional.of(testTrip));
+        lenient().when(bookingRepository.findByIdForUpdate(savedBooking.getId())).thenReturn(Optional.of(savedBooking));
+    }
+
+    // --- Tests for searchBookings ---
+
+    @Test
+    void testSearchBookings_UnknownEmailShortCircuits() {
+        BookingSearchCriteria criteria = new BookingSearchCriteria();
+        criteria.setUserEmail("nobody@example.com");
+        when(userRepository.findByEmail("nobody@example.com")).thenReturn(Optional.empty());
+
+        BookingPageDto page = bookingService.searchBookings(criteria);
+
+        assertTrue(page.getBookings().isEmpty());
+        assertFalse(page.isHasMore());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void testSearchBookings_InvertedDateRangeRejected() {
+        BookingSearchCriteria criteria = new BookingSearchCriteria();
+        criteria.setFromDate(LocalDate.now());
+        criteria.setToDate(LocalDate.now().minusDays(1));
+
+        assertThrows(IllegalArgumentException.class, () -> bookingService.searchBookings(criteria));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void testSearchBookings_MistypedReferenceRejectedWithoutQuery() {
+        String reference = new BookingReferenceGenerator(1).next();
+        char typo = reference.charAt(3) == 'A' ? 'B' : 'A';
+        BookingSearchCriteria criteria = new BookingSearchCriteria();
+        criteria.setReference(reference.substring(0, 3) + typo + reference.substring(4));
+
+        assertThrows(IllegalArgumentException.class, () -> bookingService.searchBookings(criteria));
+        verifyNoInteractions(bookingRepository);
+    }
+}
@@ -3,6 +3,7 @@ package com.guvi.busapp.service;
 
 import com.guvi.busapp.dto.BusDto;
 import com.guvi.busapp.exception.ResourceNotFoundException;
+import com.guvi.busapp.model.Amenity;
 import com.guvi.busapp.model.Bus;
 import com.guvi.busapp.repository.BusRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,6 +27,8 @@ class BusServiceImplTest {
 
     @Mock
     private BusRepository busRepository;
+    @Mock
+    private BookingViewProjector bookingViewProjector;
 
     @InjectMocks
     private BusServiceImpl busService;
@@ -191,6 +194,8 @@ class BusServiceImplTest {
         updatedDto.setTotalSeats(35);
         updatedDto.setAmenities(new HashSet<>(Set.of("Fan")));
         updatedDto.setSeatLayout("Updated Layout");
+        testBus.refreshAmenityMask(); // Persisted mask has the CHARGING bit
+        assertEquals(Amenity.CHARGING.bit(), testBus.getAmenityMask());
 
         when(busRepository.findById(busId)).thenReturn(Optional.of(testBus)); // Return existing bus
         ArgumentCaptor<Bus> busCaptor = ArgumentCaptor.forClass(Bus.class);
@@ -218,6 +223,7 @@ class BusServiceImplTest {
         assertEquals(busId, capturedBus.getId()); // ID should be preserved
         assertEquals("Updated Operator", capturedBus.getOperatorName());
         assertEquals(35, capturedBus.getTotalSeats());
+        assertEquals(0, capturedBus.getAmenityMask()); // "Fan" on a non-AC seater has no searchable bits
     }
 
     @Test
@@ -0,0 +1,131 @@
+// src/test/java/com/guvi/busapp/service/CorridorSummaryServiceImplTest.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.dto.CorridorAvailabilityDto;
+import com.guvi.busapp.event.TripAvailabilityChangedEvent;
+import com.guvi.busapp.model.CorridorDaySummary;
+import com.guvi.busapp.repository.CorridorDaySummaryRepository;
+import com.guvi.busapp.repository.ScheduledTripRepository;
+import com.guvi.busapp.repository.projection.CorridorAggregate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CorridorSummaryServiceImplTest {
+
+    @Mock
+    private CorridorDaySummaryRepository summaryRepository;
+    @Mock
+    private ScheduledTripRepository scheduledTripRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private CorridorSummaryServiceImpl corridorSummaryService;
+
+    private final LocalDate date = LocalDate.now().plusDays(3);
+
+    private CorridorDaySummary summary(LocalDate day, int trips, String minFare, int seats) {
+        CorridorDaySummary summary = new CorridorDaySummary("Chennai", "Madurai", day);
+        summary.setId(1L);
+        summary.setTripCount(trips);
+        summary.setMinFare(minFare != null ? new BigDecimal(minFare) : null);
+        summary.setTotalAvailableSeats(seats);
+        return summary;
+    }
+
+    private CorridorAggregate aggregate(long trips, String minFare, long seats) {
+        return new CorridorAggregate() {
+            @Override public String getOrigin() { return "Chennai"; }
+            @Override public String getDestination() { return "Madurai"; }
+            @Override public LocalDate getTravelDate() { return date; }
+            @Override public Long getTripCount() { return trips; }
+            @Override public BigDecimal getMinFare() { return new BigDecimal(minFare); }
+            @Override public Long getTotalAvailableSeats() { return seats; }
+        };
+    }
+
+    @Test
+    void testGetCalendar_FillsDaysWithoutRows() {
+        when(summaryRepository.findByOriginAndDestinationAndTravelDateBetweenOrderByTravelDateAsc("Chennai", "Madurai", date, date.plusDays(2)))
+                .thenReturn(List.of(summary(date.plusDays(1), 2, "450.00", 30)));
+
+        List<CorridorAvailabilityDto> calendar = corridorSummaryService.getCalendar("Chennai", "Madurai", date, 3);
+
+        assertEquals(3, calendar.size());
+        assertFalse(calendar.get(0).isAvailable());
+        assertTrue(calendar.get(1).isAvailable());
+        assertEquals(new BigDecimal("450.00"), calendar.get(1).getMinFare());
+        assertEquals(date.plusDays(2), calendar.get(2).getDate());
+        assertNull(calendar.get(2).getMinFare());
+    }
+
+    @Test
+    void testSeatDelta_UpdatesRowInPlace() {
+        when(summaryRepository.applySeatDelta(eq("Chennai"), eq("Madurai"), eq(date), eq(-2), any(LocalDateTime.class))).thenReturn(1);
+
+        corridorSummaryService.onTripAvailabilityChanged(new TripAvailabilityChangedEvent("Chennai", "Madurai", date, -2, false));
+
+        verifyNoInteractions(scheduledTripRepository); // No aggregation for a plain delta
+        verify(summaryRepository, never()).save(any());
+    }
+
+    @Test
+    void testSeatDelta_WithoutRowUpsertsFromTrips() {
+        when(summaryRepository.applySeatDelta(any(), any(), any(), anyInt(), any())).thenReturn(0);
+
+        corridorSummaryService.onTripAvailabilityChanged(new TripAvailabilityChangedEvent("Chennai", "Madurai", date, -2, false));
+
+        // Insert-or-overwrite in one statement, so a row another listener just created can't fail it
+        verify(summaryRepository).upsertFromTrips(eq("Chennai"), eq("Madurai"), eq(date), any(LocalDateTime.class));
+        verify(summaryRepository, never()).save(any());
+    }
+
+    @Test
+    void testRecomputeEvent_UpsertsWithoutDelta() {
+        corridorSummaryService.onTripAvailabilityChanged(new TripAvailabilityChangedEvent("Chennai", "Madurai", date, 0, true));
+
+        verify(summaryRepository, never()).applySeatDelta(any(), any(), any(), anyInt(), any());
+        verify(summaryRepository).upsertFromTrips(eq("Chennai"), eq("Madurai"), eq(date), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testRebuild_UpsertsAggregatesAndClearsStaleRows() {
+        LocalDate today = LocalDate.now();
+        CorridorDaySummary booked = summary(date, 2, "399.00", 25);
+        CorridorDaySummary soldOut = summary(date.plusDays(1), 1, "500.00", 2);
+        when(summaryRepository.findByTravelDateGreaterThanEqual(today)).thenReturn(List.of(booked, soldOut));
+        when(scheduledTripRepository.aggregateCorridorDaysFrom(today)).thenReturn(List.of(aggregate(3, "350.00", 40)));
+
+        corridorSummaryService.rebuildUpcoming();
+
+        verify(summaryRepository).upsert(eq("Chennai"), eq("Madurai"), eq(date), eq(3), eq(new BigDecimal("350.00")), eq(40), any(LocalDateTime.class));
+        verify(summaryRepository).saveAll(List.of(soldOut));
+        assertEquals(0, soldOut.getTripCount());
+        assertEquals(0, soldOut.getTotalAvailableSeats());
+        assertNull(soldOut.getMinFare());
+    }
+
+    @Test
+    void testListenerFailureIsContained() {
+        when(summaryRepository.applySeatDelta(any(), any(), any(), anyInt(), any())).thenThrow(new RuntimeException("lock timeout"));
+
+        assertDoesNotThrow(() -> corridorSummaryService.onTripAvailabilityChanged(
+                new TripAvailabilityChangedEvent("Chennai", "Madurai", date, 1, false)));
+    }
+}
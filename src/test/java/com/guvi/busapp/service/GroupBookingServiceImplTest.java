@@ -0,0 +1,93 @@
+// src/test/java/com/guvi/busapp/service/GroupBookingServiceImplTest.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.dto.BookingRequestDto;
+import com.guvi.busapp.dto.BookingResponseDto;
+import com.guvi.busapp.dto.GroupBookingItemResultDto;
+import com.guvi.busapp.dto.GroupBookingRequestDto;
+import com.guvi.busapp.dto.GroupBookingResultDto;
+import com.guvi.busapp.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupBookingServiceImplTest {
+
+    private static final String EMAIL = "operator@example.com";
+
+    @Mock
+    private BookingService bookingService;
+
+    private TripWriteQueue tripWriteQueue;
+    private GroupBookingServiceImpl groupBookingService;
+
+    @BeforeEach
+    void setUp() {
+        tripWriteQueue = new TripWriteQueue(false, 1, 10, 1000); // Inline
+        groupBookingService = new GroupBookingServiceImpl(bookingService, tripWriteQueue, 5, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tripWriteQueue.shutdown();
+    }
+
+    private BookingRequestDto entry(Long tripId, String... seats) {
+        BookingRequestDto request = new BookingRequestDto();
+        request.setTripId(tripId);
+        request.setSelectedSeats(List.of(seats));
+        return request;
+    }
+
+    private GroupBookingRequestDto group(BookingRequestDto... entries) {
+        GroupBookingRequestDto request = new GroupBookingRequestDto();
+        request.setBookings(List.of(entries));
+        return request;
+    }
+
+    @Test
+    void testEntriesGroupedPerTripAndReportedInRequestOrder() {
+        BookingResponseDto booking = new BookingResponseDto();
+        when(bookingService.checkoutTripGroup(eq(1L), anyList(), eq(EMAIL))).thenReturn(List.of(
+                GroupBookingItemResultDto.succeeded(1L, booking), GroupBookingItemResultDto.failed(1L, "Seats unavailable: 4 (LOCKED)")));
+        when(bookingService.checkoutTripGroup(eq(2L), anyList(), eq(EMAIL)))
+                .thenThrow(new ResourceNotFoundException("ScheduledTrip", "ID", 2L));
+
+        GroupBookingResultDto result = groupBookingService.checkoutGroup(
+                group(entry(1L, "1"), entry(2L, "1"), entry(1L, "4")), EMAIL);
+
+        assertEquals(3, result.getRequested());
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(0, 1, 2), result.getResults().stream().map(GroupBookingItemResultDto::getIndex).toList());
+        assertTrue(result.getResults().get(0).isSuccess());
+        assertEquals(2L, result.getResults().get(1).getTripId()); // Whole trip failed
+        assertFalse(result.getResults().get(1).isSuccess());
+        assertEquals("Seats unavailable: 4 (LOCKED)", result.getResults().get(2).getError());
+        // One call per trip, not per entry
+        verify(bookingService, times(1)).checkoutTripGroup(eq(1L), anyList(), eq(EMAIL));
+        verify(bookingService, times(1)).checkoutTripGroup(eq(2L), anyList(), eq(EMAIL));
+    }
+
+    @Test
+    void testSeatLimitRejectedUpFront() {
+        GroupBookingRequestDto request = group(entry(1L, "1", "2", "3", "4", "5", "6"), entry(2L, "1", "2", "3", "4", "5"));
+
+        assertThrows(IllegalArgumentException.class, () -> groupBookingService.checkoutGroup(request, EMAIL));
+
+        verify(bookingService, never()).checkoutTripGroup(anyLong(), anyList(), anyString());
+    }
+}
@@ -0,0 +1,75 @@
+// src/test/java/com/guvi/busapp/service/LocationSuggestServiceImplTest.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.repository.RouteRepository;
+import com.guvi.busapp.repository.projection.RouteEndpointCount;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LocationSuggestServiceImplTest {
+
+    @Mock
+    private RouteRepository routeRepository;
+
+    @InjectMocks
+    private LocationSuggestServiceImpl locationSuggestService;
+
+    private RouteEndpointCount endpoint(String origin, String destination, long tripCount) {
+        return new RouteEndpointCount() {
+            @Override public String getOrigin() { return origin; }
+            @Override public String getDestination() { return destination; }
+            @Override public Long getTripCount() { return tripCount; }
+        };
+    }
+
+    @Test
+    void testSuggest_RankedByPopularity() {
+        when(routeRepository.findRouteEndpointCounts()).thenReturn(List.of(
+                endpoint("Chennai", "Coimbatore", 2),
+                endpoint("Chennai", "Bangalore", 10),
+                endpoint("Coimbatore", "Madurai", 0)));
+        locationSuggestService.refresh();
+
+        // Chennai: 3 + 11 = 14, Coimbatore: 3 + 1 = 4
+        assertEquals(List.of("Chennai", "Coimbatore"), locationSuggestService.suggest("c", 10));
+        assertEquals(List.of("Coimbatore"), locationSuggestService.suggest("  COI", 10));
+        assertEquals(List.of("Chennai"), locationSuggestService.suggest("c", 1));
+    }
+
+    @Test
+    void testSuggest_NoMatchOrBlank() {
+        when(routeRepository.findRouteEndpointCounts()).thenReturn(List.of(endpoint("Chennai", "Madurai", 1)));
+        locationSuggestService.refresh();
+
+        assertTrue(locationSuggestService.suggest("x", 5).isEmpty());
+        assertTrue(locationSuggestService.suggest("   ", 5).isEmpty());
+        assertTrue(locationSuggestService.suggest(null, 5).isEmpty());
+    }
+
+    @Test
+    void testSuggest_BeforeRefreshReturnsEmpty() {
+        assertTrue(locationSuggestService.suggest("ch", 5).isEmpty());
+        verify(routeRepository, never()).findRouteEndpointCounts();
+    }
+
+    @Test
+    void testRefresh_PicksUpRouteChanges() {
+        when(routeRepository.findRouteEndpointCounts())
+                .thenReturn(List.of(endpoint("Chennai", "Madurai", 1)))
+                .thenReturn(List.of(endpoint("Chennai", "Madurai", 1), endpoint("Mysore", "Chennai", 0)));
+        locationSuggestService.refresh();
+        assertEquals(List.of("Madurai"), locationSuggestService.suggest("m", 5));
+
+        locationSuggestService.refresh();
+        assertEquals(List.of("Madurai", "Mysore"), locationSuggestService.suggest("m", 5));
+    }
+}
@@ -0,0 +1,156 @@
+// src/test/java/com/guvi/busapp/service/OutboxDispatcherTest.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.event.BookingLifecycleEvent;
+import com.guvi.busapp.model.BookingOutboxEvent;
+import com.guvi.busapp.repository.BookingOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    @Mock
+    private BookingOutboxRepository outboxRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private ObjectProvider<OutboxSink> sinkProvider;
+
+    private final List<BookingLifecycleEvent> delivered = new ArrayList<>();
+    private final List<Long> failingOutboxIds = new ArrayList<>();
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        OutboxSink sink = new OutboxSink() {
+            @Override public String name() { return "test"; }
+            @Override public void deliver(BookingLifecycleEvent event) {
+                if (failingOutboxIds.contains(event.getOutboxId())) throw new IllegalStateException("sink down");
+                delivered.add(event);
+            }
+        };
+        when(sinkProvider.orderedStream()).thenReturn(Stream.of(sink));
+        dispatcher = new OutboxDispatcher(outboxRepository, eventPublisher, sinkProvider, 100, 3, 2000);
+    }
+
+    private BookingOutboxEvent row(long id, long bookingId, BookingLifecycleEvent.Type type) {
+        BookingOutboxEvent row = new BookingOutboxEvent(bookingId, type, "{}");
+        row.setId(id);
+        return row;
+    }
+
+    @Test
+    void testDeliversInOrderAndMarksDispatched() {
+        boolean complete = dispatcher.dispatchBatch(List.of(
+                row(1, 10, BookingLifecycleEvent.Type.CREATED),
+                row(2, 10, BookingLifecycleEvent.Type.CONFIRMED)));
+
+        assertTrue(complete);
+        assertEquals(List.of(1L, 2L), delivered.stream().map(BookingLifecycleEvent::getOutboxId).toList());
+        verify(eventPublisher, times(2)).publishEvent(any(BookingLifecycleEvent.class));
+        verify(outboxRepository).markDispatched(eq(1L), any(LocalDateTime.class));
+        verify(outboxRepository).markDispatched(eq(2L), any(LocalDateTime.class));
+        assertEquals(2, dispatcher.getDispatchedCount());
+    }
+
+    @Test
+    void testFailureHoldsBackLaterEventsOfSameBookingOnly() {
+        failingOutboxIds.add(1L);
+
+        boolean complete = dispatcher.dispatchBatch(List.of(
+                row(1, 10, BookingLifecycleEvent.Type.CREATED),
+                row(2, 20, BookingLifecycleEvent.Type.CREATED),
+                row(3, 10, BookingLifecycleEvent.Type.CONFIRMED)));
+
+        assertFalse(complete);
+        assertEquals(List.of(2L), delivered.stream().map(BookingLifecycleEvent::getOutboxId).toList());
+        verify(outboxRepository).recordFailure(eq(1L), eq(BookingOutboxEvent.Status.PENDING), anyString(), any(LocalDateTime.class));
+        verify(outboxRepository).markDispatched(eq(2L), any(LocalDateTime.class));
+        verify(outboxRepository, never()).markDispatched(eq(3L), any());
+        assertEquals(1, dispatcher.getDeferredCount());
+    }
+
+    @Test
+    void testListenerFailureLeavesEventForRetry() {
+        doThrow(new RuntimeException("listener failed")).when(eventPublisher).publishEvent(any(BookingLifecycleEvent.class));
+
+        assertFalse(dispatcher.dispatchBatch(List.of(row(1, 10, BookingLifecycleEvent.Type.CONFIRMED))));
+
+        assertTrue(delivered.isEmpty());
+        verify(outboxRepository).recordFailure(eq(1L), eq(BookingOutboxEvent.Status.PENDING), anyString(), any(LocalDateTime.class));
+        verify(outboxRepository, never()).markDispatched(any(), any());
+    }
+
+    @Test
+    void testRetryAfterSinkFailureDoesNotRepeatTheListeners() {
+        failingOutboxIds.add(1L);
+        BookingOutboxEvent row = row(1, 10, BookingLifecycleEvent.Type.CONFIRMED);
+
+        assertFalse(dispatcher.dispatchBatch(List.of(row)));
+        verify(outboxRepository).markDelivered(1L, OutboxDispatcher.LISTENERS);
+        ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxRepository).recordFailure(eq(1L), eq(BookingOutboxEvent.Status.PENDING), startsWith("test: "), nextAttempt.capture());
+        assertTrue(nextAttempt.getValue().isAfter(LocalDateTime.now().plusSeconds(1))); // Backed off, not retried next poll
+
+        // The poller's next read of the row: listeners already had it, the sink is back up
+        row.setDeliveredTo(OutboxDispatcher.LISTENERS);
+        row.setAttempts(1);
+        failingOutboxIds.clear();
+        assertTrue(dispatcher.dispatchBatch(List.of(row)));
+
+        verify(eventPublisher, times(1)).publishEvent(any(BookingLifecycleEvent.class)); // One confirmation email
+        assertEquals(List.of(1L), delivered.stream().map(BookingLifecycleEvent::getOutboxId).toList());
+        verify(outboxRepository).markDispatched(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testEventIsDeadLetteredAfterMaxAttemptsAndStopsBlockingItsBooking() {
+        failingOutboxIds.add(1L);
+        BookingOutboxEvent lastTry = row(1, 10, BookingLifecycleEvent.Type.CREATED);
+        lastTry.setAttempts(2);
+
+        boolean complete = dispatcher.dispatchBatch(List.of(lastTry, row(2, 10, BookingLifecycleEvent.Type.CONFIRMED)));
+
+        assertTrue(complete);
+        verify(outboxRepository).recordFailure(eq(1L), eq(BookingOutboxEvent.Status.DEAD), anyString(), any(LocalDateTime.class));
+        verify(outboxRepository).markDispatched(eq(2L), any(LocalDateTime.class));
+        assertEquals(1, dispatcher.getDeadCount());
+    }
+
+    @Test
+    void testEventWaitsWhileAnEarlierOneOfItsBookingIsBackingOff() {
+        when(outboxRepository.existsByBookingIdAndStatusAndIdLessThan(10L, BookingOutboxEvent.Status.PENDING, 5L)).thenReturn(true);
+
+        assertFalse(dispatcher.dispatchBatch(List.of(row(5, 10, BookingLifecycleEvent.Type.CONFIRMED))));
+
+        assertTrue(delivered.isEmpty());
+        verifyNoInteractions(eventPublisher);
+        assertEquals(1, dispatcher.getDeferredCount());
+    }
+
+    @Test
+    void testBackoffDoublesUpToTenMinutes() {
+        assertEquals(2000, dispatcher.backoff(1));
+        assertEquals(8000, dispatcher.backoff(3));
+        assertEquals(600_000, dispatcher.backoff(30));
+    }
+}
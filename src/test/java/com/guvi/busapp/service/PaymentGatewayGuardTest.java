@@ -0,0 +1,126 @@
+// src/test/java/com/guvi/busapp/service/PaymentGatewayGuardTest.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.exception.PaymentGatewayException;
+import com.guvi.busapp.exception.PaymentNotAttemptedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentGatewayGuardTest {
+
+    private PaymentGatewayGuard guard;
+
+    @AfterEach
+    void tearDown() {
+        guard.shutdown();
+    }
+
+    private static String fail() throws PaymentGatewayException {
+        throw new PaymentGatewayException("api.stripe.com: 502 Bad Gateway", null, true);
+    }
+
+    private static String decline() throws PaymentGatewayException {
+        throw new PaymentGatewayException("Your card was declined.", null, false);
+    }
+
+    @Test
+    void testCircuitOpensAfterConsecutiveFailuresAndFailsFast() {
+        guard = new PaymentGatewayGuard(2, 2, 1000, 3, 60_000);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(PaymentGatewayException.class, () -> guard.call(() -> { calls.incrementAndGet(); return fail(); }));
+        }
+        assertEquals(PaymentGatewayGuard.State.OPEN, guard.getState());
+
+        assertThrows(PaymentNotAttemptedException.class, () -> guard.call(() -> { calls.incrementAndGet(); return "pi_1"; }));
+        assertEquals(3, calls.get()); // The provider was not called while open
+        assertEquals(1, guard.getShortCircuitedCount());
+    }
+
+    @Test
+    void testRequestErrorsDoNotOpenTheCircuit() {
+        guard = new PaymentGatewayGuard(2, 2, 1000, 2, 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(PaymentGatewayException.class, () -> guard.call(PaymentGatewayGuardTest::decline));
+        }
+        assertThrows(IllegalArgumentException.class, () -> guard.call(() -> { throw new IllegalArgumentException("bad amount"); }));
+        assertEquals(PaymentGatewayGuard.State.CLOSED, guard.getState());
+
+        assertThrows(PaymentGatewayException.class, () -> guard.call(PaymentGatewayGuardTest::fail));
+        assertThrows(PaymentGatewayException.class, () -> guard.call(PaymentGatewayGuardTest::decline));
+        assertThrows(PaymentGatewayException.class, () -> guard.call(PaymentGatewayGuardTest::fail));
+        assertEquals(PaymentGatewayGuard.State.OPEN, guard.getState()); // The decline in between didn't reset the count
+    }
+
+    @Test
+    void testTrialCallAfterOpenPeriodClosesOrReopensTheCircuit() throws Exception {
+        guard = new PaymentGatewayGuard(2, 2, 1000, 1, 20);
+
+        assertThrows(PaymentGatewayException.class, () -> guard.call(PaymentGatewayGuardTest::fail));
+        Thread.sleep(40);
+        assertThrows(PaymentGatewayException.class, () -> guard.call(PaymentGatewayGuardTest::fail)); // Trial fails
+        assertEquals(PaymentGatewayGuard.State.OPEN, guard.getState());
+
+        Thread.sleep(40);
+        assertEquals("pi_1", guard.call(() -> "pi_1")); // Trial succeeds
+        assertEquals(PaymentGatewayGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void testSlowCallTimesOutAndCountsAsFailure() {
+        guard = new PaymentGatewayGuard(1, 1, 50, 1, 60_000);
+
+        RejectedExecutionException e = assertThrows(RejectedExecutionException.class, () -> guard.call(() -> {
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return "pi_late";
+        }));
+
+        assertTrue(e.getMessage().contains("50 ms"));
+        assertFalse(e instanceof PaymentNotAttemptedException); // The request may have reached the provider
+        assertEquals(PaymentGatewayGuard.State.OPEN, guard.getState());
+    }
+
+    @Test
+    void testFullPoolRejectsWithoutOpeningTheCircuit() throws Exception {
+        guard = new PaymentGatewayGuard(1, 1, 5_000, 1, 60_000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PaymentGatewayGuard.GatewayCall<String> blocking = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return "pi_slow";
+        };
+        Thread running = new Thread(() -> assertDoesNotThrow(() -> guard.call(blocking)));
+        Thread queued = new Thread(() -> assertDoesNotThrow(() -> guard.call(() -> "pi_queued")));
+        running.start();
+        started.await();
+        queued.start();
+        while (queued.getState() != Thread.State.TIMED_WAITING) { // Queued behind the running call
+            Thread.sleep(5);
+        }
+
+        assertThrows(PaymentNotAttemptedException.class, () -> guard.call(() -> "pi_rejected"));
+        assertEquals(1, guard.getBulkheadRejectedCount());
+        assertEquals(PaymentGatewayGuard.State.CLOSED, guard.getState());
+
+        release.countDown();
+        running.join();
+        queued.join();
+    }
+}
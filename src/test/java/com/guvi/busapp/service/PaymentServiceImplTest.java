@@ -0,0 +1,65 @@
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.exception.PaymentNotAttemptedException;
+import com.guvi.busapp.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentServiceImplTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private PaymentGateway paymentGateway;
+    @Mock
+    private PaymentGatewayGuard paymentGatewayGuard;
+
+    @InjectMocks
+    private PaymentServiceImpl paymentService;
+
+    @Test
+    void testCreatePaymentIntent_RefusedBeforeProviderClearsPaymentStarted() throws Exception {
+        when(bookingRepository.markPaymentStarted(eq(7L), any(LocalDateTime.class))).thenReturn(1);
+        when(paymentGatewayGuard.call(any())).thenThrow(new PaymentNotAttemptedException("Payment provider is unavailable, please retry shortly."));
+
+        assertThrows(PaymentNotAttemptedException.class, () -> paymentService.createPaymentIntent(7L, 150000L, "INR", "a@b.com"));
+
+        ArgumentCaptor<LocalDateTime> marked = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(bookingRepository).markPaymentStarted(eq(7L), marked.capture());
+        verify(bookingRepository).clearPaymentStarted(7L, marked.getValue()); // Only undoes this attempt's mark
+    }
+
+    @Test
+    void testCreatePaymentIntent_TimeoutKeepsPaymentStarted() throws Exception {
+        when(bookingRepository.markPaymentStarted(eq(7L), any(LocalDateTime.class))).thenReturn(1);
+        when(paymentGatewayGuard.call(any())).thenThrow(new RejectedExecutionException("Payment provider did not respond within 5000 ms, please retry."));
+
+        assertThrows(RejectedExecutionException.class, () -> paymentService.createPaymentIntent(7L, 150000L, "INR", "a@b.com"));
+
+        verify(bookingRepository, never()).clearPaymentStarted(anyLong(), any()); // The intent may exist at Stripe
+    }
+
+    @Test
+    void testCreatePaymentIntent_BookingNoLongerPendingNeverCallsProvider() throws Exception {
+        when(bookingRepository.markPaymentStarted(eq(7L), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> paymentService.createPaymentIntent(7L, 150000L, "INR", "a@b.com"));
+
+        verify(paymentGatewayGuard, never()).call(any());
+        verify(bookingRepository, never()).clearPaymentStarted(anyLong(), any());
+    }
+}
@@ -2,6 +2,7 @@
 package com.guvi.busapp.service;
 
 import com.guvi.busapp.dto.RouteDto;
+import com.guvi.busapp.event.RouteChangedEvent;
 import com.guvi.busapp.exception.ResourceNotFoundException;
 import com.guvi.busapp.model.Route;
 import com.guvi.busapp.repository.RouteRepository;
@@ -12,6 +13,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Collections;
 import java.util.List;
@@ -28,6 +30,10 @@ class RouteServiceImplTest {
 
     @Mock
     private RouteRepository routeRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private BookingViewProjector bookingViewProjector;
 
     @InjectMocks
     private RouteServiceImpl routeService;
@@ -75,6 +81,7 @@ class RouteServiceImplTest {
         // Verify
         verify(routeRepository, times(1)).existsByOriginIgnoreCaseAndDestinationIgnoreCase(origin, destination);
         verify(routeRepository, times(1)).save(any(Route.class));
+        verify(eventPublisher, times(1)).publishEvent(any(RouteChangedEvent.class));
 
         // Check captured entity before save (excluding ID check)
         Route capturedRoute = routeCaptor.getValue();
@@ -97,6 +104,7 @@ class RouteServiceImplTest {
         // Verify
         verify(routeRepository, times(1)).existsByOriginIgnoreCaseAndDestinationIgnoreCase(origin, destination);
         verify(routeRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(RouteChangedEvent.class));
     }
 
     // --- Tests for getAllRoutes ---
@@ -216,6 +224,7 @@ class RouteServiceImplTest {
         assertDoesNotThrow(() -> routeService.deleteRoute(routeId));
         verify(routeRepository, times(1)).findById(routeId);
         verify(routeRepository, times(1)).delete(testRoute);
+        verify(eventPublisher, times(1)).publishEvent(any(RouteChangedEvent.class));
     }
 
     @Test
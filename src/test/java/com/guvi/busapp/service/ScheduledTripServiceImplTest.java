@@ -2,21 +2,28 @@
 package com.guvi.busapp.service;
 
 import com.guvi.busapp.dto.*;
+import com.guvi.busapp.event.TripAvailabilityChangedEvent;
 import com.guvi.busapp.exception.ResourceNotFoundException;
 import com.guvi.busapp.exception.SeatUnavailableException;
+import com.guvi.busapp.model.Amenity;
 import com.guvi.busapp.model.Bus;
 import com.guvi.busapp.model.Route;
 import com.guvi.busapp.model.ScheduledTrip;
 import com.guvi.busapp.repository.BusRepository;
 import com.guvi.busapp.repository.RouteRepository;
 import com.guvi.busapp.repository.ScheduledTripRepository;
+import com.guvi.busapp.repository.projection.BusAmenityRow;
+import com.guvi.busapp.repository.projection.TripRow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
@@ -28,6 +35,8 @@ import java.util.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +48,14 @@ class ScheduledTripServiceImplTest {
     private BusRepository busRepository;
     @Mock
     private RouteRepository routeRepository;
+    @Spy
+    private TripSearchCoalescer searchCoalescer = new TripSearchCoalescer();
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private ServedCorridorIndex servedCorridorIndex;
+    @Mock
+    private BookingViewProjector bookingViewProjector;
 
     @InjectMocks
     private ScheduledTripServiceImpl scheduledTripService;
@@ -64,6 +81,8 @@ class ScheduledTripServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(servedCorridorIndex.mightServe(anyString(), anyString())).thenReturn(true);
+
         testBus = new Bus();
         testBus.setId(busId);
         testBus.setBusNumber("TN-TEST-BUS");
@@ -109,6 +128,21 @@ class ScheduledTripServiceImplTest {
     }
 
 
+    private TripRow toRow(ScheduledTrip trip) {
+        Bus bus = trip.getBus();
+        Route route = trip.getRoute();
+        return new TripRow(trip.getId(), trip.getDepartureDate(), trip.getDepartureTime(), trip.getArrivalTime(),
+                trip.getFare(), trip.getAvailableSeats(), bus.getId(), bus.getBusNumber(), bus.getOperatorName(),
+                bus.getBusType(), bus.getTotalSeats(), bus.getSeatLayout(), Amenity.maskOf(bus.getAmenities(), bus.getBusType()), route.getId(), route.getOrigin(), route.getDestination());
+    }
+
+    private BusAmenityRow amenityRow(Long busId, String amenity) {
+        return new BusAmenityRow() {
+            @Override public Long getBusId() { return busId; }
+            @Override public String getAmenity() { return amenity; }
+        };
+    }
+
     // --- Tests for scheduleTrip ---
     @Test
     void testScheduleTrip_Success() {
@@ -165,21 +199,27 @@ class ScheduledTripServiceImplTest {
     // --- Tests for getScheduledTripById ---
     @Test
     void testGetScheduledTripById_Success(){
-        when(scheduledTripRepository.findById(tripId)).thenReturn(Optional.of(testTrip));
-        // Removed call to mockMappingDependencies();
+        when(scheduledTripRepository.findTripRowById(tripId)).thenReturn(Optional.of(toRow(testTrip)));
+        when(busRepository.findAmenitiesByBusIds(Set.of(busId)))
+                .thenReturn(List.of(amenityRow(busId, "WiFi"), amenityRow(busId, "AC")));
 
         ScheduledTripResponseDto result = scheduledTripService.getScheduledTripById(tripId);
         assertNotNull(result);
         assertEquals(tripId, result.getId());
-        verify(scheduledTripRepository, times(1)).findById(tripId);
+        assertEquals("TN-TEST-BUS", result.getBus().getBusNumber());
+        assertEquals(Set.of("WiFi", "AC"), result.getBus().getAmenities());
+        assertEquals("DestCity", result.getRoute().getDestination());
+        verify(scheduledTripRepository, times(1)).findTripRowById(tripId);
+        verify(scheduledTripRepository, never()).findById(anyLong());
     }
 
     @Test
     void testGetScheduledTripById_NotFound(){
-        when(scheduledTripRepository.findById(tripId)).thenReturn(Optional.empty());
+        when(scheduledTripRepository.findTripRowById(tripId)).thenReturn(Optional.empty());
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> scheduledTripService.getScheduledTripById(tripId));
         assertEquals("ScheduledTrip not found with ID : '" + tripId + "'", exception.getMessage());
-        verify(scheduledTripRepository, times(1)).findById(tripId);
+        verify(scheduledTripRepository, times(1)).findTripRowById(tripId);
+        verifyNoInteractions(busRepository);
     }
 
     // --- Tests for getSeatLayoutForTrip ---
@@ -218,27 +258,139 @@ class ScheduledTripServiceImplTest {
     @Test
     void testFindAvailableTrips_Success(){
         String origin = "OriginCity"; String destination = "DestCity"; LocalDate date = LocalDate.now().plusDays(1);
-        List<ScheduledTrip> foundTrips = List.of(testTrip);
-        when(scheduledTripRepository.findAvailableTripsByLocationAndDate(origin, destination, date)).thenReturn(foundTrips);
-        // Removed call to mockMappingDependencies();
+        ScheduledTrip secondTrip = new ScheduledTrip();
+        secondTrip.setId(tripId + 1); secondTrip.setBus(testBus); secondTrip.setRoute(testRoute);
+        secondTrip.setDepartureDate(date); secondTrip.setDepartureTime(LocalTime.of(11, 0));
+        secondTrip.setArrivalTime(LocalTime.of(19, 0)); secondTrip.setFare(new BigDecimal("300.00")); secondTrip.setAvailableSeats(4);
+        when(scheduledTripRepository.findAvailableTripRowsByLocationAndDate(origin, destination, date))
+                .thenReturn(List.of(toRow(testTrip), toRow(secondTrip)));
+        when(busRepository.findAmenitiesByBusIds(Set.of(busId))).thenReturn(List.of(amenityRow(busId, "AC")));
 
         List<ScheduledTripResponseDto> results = scheduledTripService.findAvailableTrips(origin, destination, date);
 
         assertNotNull(results);
-        assertEquals(1, results.size());
-        verify(scheduledTripRepository, times(1)).findAvailableTripsByLocationAndDate(origin, destination, date);
+        assertEquals(2, results.size());
+        assertEquals(Set.of("AC"), results.get(1).getBus().getAmenities());
+        verify(scheduledTripRepository, times(1)).findAvailableTripRowsByLocationAndDate(origin, destination, date);
+        // Both trips share a bus, so amenities are fetched once for the whole result
+        verify(busRepository, times(1)).findAmenitiesByBusIds(any());
     }
 
     @Test
     void testFindAvailableTrips_NoneFound(){
         String origin = "OriginCity"; String destination = "DestCity"; LocalDate date = LocalDate.now().plusDays(1);
-        when(scheduledTripRepository.findAvailableTripsByLocationAndDate(origin, destination, date)).thenReturn(Collections.emptyList());
+        when(scheduledTripRepository.findAvailableTripRowsByLocationAndDate(origin, destination, date)).thenReturn(Collections.emptyList());
 
         List<ScheduledTripResponseDto> results = scheduledTripService.findAvailableTrips(origin, destination, date);
 
         assertNotNull(results);
         assertTrue(results.isEmpty());
-        verify(scheduledTripRepository, times(1)).findAvailableTripsByLocationAndDate(origin, destination, date);
+        verify(scheduledTripRepository, times(1)).findAvailableTripRowsByLocationAndDate(origin, destination, date);
+        verifyNoInteractions(busRepository);
+    }
+
+    @Test
+    void testFindAvailableTripsPage_FirstPageHasMore() {
+        LocalDate date = LocalDate.now().plusDays(1);
+        ScheduledTrip laterTrip = new ScheduledTrip();
+        laterTrip.setId(tripId + 1); laterTrip.setBus(testBus); laterTrip.setRoute(testRoute);
+        laterTrip.setDepartureDate(date); laterTrip.setDepartureTime(LocalTime.of(11, 0));
+        laterTrip.setArrivalTime(LocalTime.of(19, 0)); laterTrip.setFare(new BigDecimal("300.00")); laterTrip.setAvailableSeats(4);
+        TripSearchCriteria criteria = new TripSearchCriteria("OriginCity", "DestCity", date);
+        criteria.setSize(1);
+        when(scheduledTripRepository.findAvailableTripsPageByDepartureTime(eq("OriginCity"), eq("DestCity"), eq(date),
+                eq(LocalTime.MIN), eq(0L), any(Pageable.class))).thenReturn(List.of(toRow(testTrip), toRow(laterTrip)));
+        when(busRepository.findAmenitiesByBusIds(Set.of(busId))).thenReturn(Collections.emptyList());
+
+        TripSearchPageDto page = scheduledTripService.findAvailableTrips(criteria);
+
+        assertEquals(1, page.getTrips().size());
+        assertEquals(tripId, page.getTrips().get(0).getId());
+        assertTrue(page.isHasMore());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    void testFindAvailableTripsPage_CursorSeeksPastLastRow() {
+        LocalDate date = LocalDate.now().plusDays(1);
+        TripSearchCriteria criteria = new TripSearchCriteria("OriginCity", "DestCity", date);
+        criteria.setSortBy(TripSearchCriteria.SortBy.FARE);
+        criteria.setSize(1);
+        when(scheduledTripRepository.findAvailableTripsPageByFare(anyString(), anyString(), any(LocalDate.class),
+                any(BigDecimal.class), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(toRow(testTrip), toRow(testTrip)))
+                .thenReturn(Collections.emptyList());
+        when(busRepository.findAmenitiesByBusIds(any())).thenReturn(Collections.emptyList());
+        String cursor = scheduledTripService.findAvailableTrips(criteria).getNextCursor();
+
+        criteria.setCursor(cursor);
+        TripSearchPageDto nextPage = scheduledTripService.findAvailableTrips(criteria);
+
+        assertTrue(nextPage.getTrips().isEmpty());
+        assertFalse(nextPage.isHasMore());
+        assertNull(nextPage.getNextCursor());
+        verify(scheduledTripRepository).findAvailableTripsPageByFare(eq("OriginCity"), eq("DestCity"), eq(date),
+                eq(new BigDecimal("350.50")), eq(tripId), any(Pageable.class));
+    }
+
+    @Test
+    void testFindAvailableTripsPage_CursorFromOtherSortRejected() {
+        TripSearchCriteria criteria = new TripSearchCriteria("OriginCity", "DestCity", LocalDate.now());
+        criteria.setSortBy(TripSearchCriteria.SortBy.AVAILABLE_SEATS);
+        criteria.setCursor(com.guvi.busapp.util.KeysetCursor.encode("FARE", "100.00", 5L));
+        assertThrows(IllegalArgumentException.class, () -> scheduledTripService.findAvailableTrips(criteria));
+
+        criteria.setCursor("%%not base64%%");
+        assertThrows(IllegalArgumentException.class, () -> scheduledTripService.findAvailableTrips(criteria));
+        verifyNoInteractions(scheduledTripRepository);
+    }
+
+    @Test
+    void testFindAvailableTripsPage_AmenityAndTypeFiltersApplied() {
+        LocalDate date = LocalDate.now().plusDays(1);
+        Bus plainBus = new Bus();
+        plainBus.setId(busId + 1); plainBus.setBusNumber("TN-PLAIN"); plainBus.setOperatorName("Plain Travels");
+        plainBus.setBusType("Seater"); plainBus.setTotalSeats(40); plainBus.setAmenities(new HashSet<>(Set.of("AC")));
+        ScheduledTrip plainTrip = new ScheduledTrip();
+        plainTrip.setId(tripId - 1); plainTrip.setBus(plainBus); plainTrip.setRoute(testRoute);
+        plainTrip.setDepartureDate(date); plainTrip.setDepartureTime(LocalTime.of(7, 0));
+        plainTrip.setArrivalTime(LocalTime.of(12, 0)); plainTrip.setFare(new BigDecimal("200.00")); plainTrip.setAvailableSeats(30);
+        TripSearchCriteria criteria = new TripSearchCriteria("OriginCity", "DestCity", date);
+        criteria.setSize(1);
+        criteria.getAmenities().add(Amenity.WIFI);
+        criteria.setBusType("sleeper");
+        when(scheduledTripRepository.findAvailableTripsPageByDepartureTime(eq("OriginCity"), eq("DestCity"), eq(date),
+                eq(LocalTime.MIN), eq(0L), any(Pageable.class))).thenReturn(List.of(toRow(plainTrip), toRow(testTrip)));
+        when(busRepository.findAmenitiesByBusIds(Set.of(busId))).thenReturn(List.of(amenityRow(busId, "WiFi")));
+
+        TripSearchPageDto page = scheduledTripService.findAvailableTrips(criteria);
+
+        assertEquals(1, page.getTrips().size());
+        assertEquals(tripId, page.getTrips().get(0).getId());
+        assertFalse(page.isHasMore()); // Batch came back short, so nothing is left to scan
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testFindAvailableTripsPage_InvertedDepartureWindowRejected() {
+        TripSearchCriteria criteria = new TripSearchCriteria("OriginCity", "DestCity", LocalDate.now());
+        criteria.setDepartureFrom(LocalTime.of(18, 0));
+        criteria.setDepartureTo(LocalTime.of(6, 0));
+        assertThrows(IllegalArgumentException.class, () -> scheduledTripService.findAvailableTrips(criteria));
+        verifyNoInteractions(scheduledTripRepository);
+    }
+
+    @Test
+    void testFindAvailableTripsPage_UnservedCorridorSkipsQuery() {
+        when(servedCorridorIndex.mightServe("OriginCity", "Nowhere")).thenReturn(false);
+        TripSearchCriteria criteria = new TripSearchCriteria("OriginCity", "Nowhere", LocalDate.now());
+
+        TripSearchPageDto page = scheduledTripService.findAvailableTrips(criteria);
+
+        assertTrue(page.getTrips().isEmpty());
+        assertFalse(page.isHasMore());
+        verifyNoInteractions(scheduledTripRepository, busRepository);
+        verify(searchCoalescer, never()).search(any(), any());
     }
 
     // --- Tests for lockSeats ---
@@ -259,6 +411,10 @@ class ScheduledTripServiceImplTest {
         assertEquals(initialAvailable - seatsToLock.size(), savedTrip.getAvailableSeats());
         assertEquals(ScheduledTrip.SeatStatus.LOCKED, savedTrip.getSeatStatus().get("3"));
         assertEquals(ScheduledTrip.SeatStatus.LOCKED, savedTrip.getSeatStatus().get("4"));
+        ArgumentCaptor<TripAvailabilityChangedEvent> eventCaptor = ArgumentCaptor.forClass(TripAvailabilityChangedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(-seatsToLock.size(), eventCaptor.getValue().getSeatDelta());
+        assertFalse(eventCaptor.getValue().isRecompute()); // Trip still has seats, so a plain delta is enough
     }
 
     @Test
@@ -269,6 +425,7 @@ class ScheduledTripServiceImplTest {
             scheduledTripService.lockSeats(tripId, seatsToLock, userId);
         }, "Should throw SeatUnavailableException when a locked seat is requested");
         verify(scheduledTripRepository, never()).save(any(ScheduledTrip.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -344,6 +501,7 @@ class ScheduledTripServiceImplTest {
 
         verify(scheduledTripRepository, times(1)).findById(tripId);
         verify(scheduledTripRepository, times(1)).delete(testTrip);
+        verify(eventPublisher).publishEvent(any(TripAvailabilityChangedEvent.class));
     }
 
     @Test
@@ -0,0 +1,71 @@
+// src/test/java/com/guvi/busapp/service/ServedCorridorIndexTest.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.model.Route;
+import com.guvi.busapp.repository.RouteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ServedCorridorIndexTest {
+
+    @Mock
+    private RouteRepository routeRepository;
+
+    @InjectMocks
+    private ServedCorridorIndex servedCorridorIndex;
+
+    private Route route(String origin, String destination) {
+        Route route = new Route();
+        route.setOrigin(origin);
+        route.setDestination(destination);
+        return route;
+    }
+
+    @Test
+    void testMightServe_ExactDirectionalMatch() {
+        when(routeRepository.findAll()).thenReturn(List.of(route("Chennai", "Madurai")));
+        servedCorridorIndex.rebuild();
+
+        assertTrue(servedCorridorIndex.mightServe("chennai", "MADURAI"));
+        assertTrue(servedCorridorIndex.mightServe("Chénnai", "Madurái")); // utf8mb4_0900_ai_ci ignores accents
+        assertFalse(servedCorridorIndex.mightServe("Chennai ", "Madurai")); // NO PAD: a trailing space makes it a different string
+        assertFalse(servedCorridorIndex.mightServe(" Chennai", "Madurai"));
+        assertFalse(servedCorridorIndex.mightServe("Madurai", "Chennai")); // Routes are one-way
+        assertFalse(servedCorridorIndex.mightServe("Chennai", "Goa"));
+        assertEquals(4, servedCorridorIndex.getUnservedCount());
+    }
+
+    @Test
+    void testMightServe_LetsThroughWhatItCannotFoldExactly() {
+        when(routeRepository.findAll()).thenReturn(List.of(route("Chennai", "Madurai")));
+        servedCorridorIndex.rebuild();
+        assertTrue(servedCorridorIndex.mightServe("Chennai", "Ærøskøbing")); // No ASCII folding to compare with
+
+        when(routeRepository.findAll()).thenReturn(List.of(route("Chennai", "Madurai"), route("சென்னை", "மதுரை")));
+        servedCorridorIndex.rebuild();
+        assertTrue(servedCorridorIndex.mightServe("Chennai", "Goa")); // Can't prove the Tamil route isn't a match
+        assertEquals(0, servedCorridorIndex.getUnservedCount());
+    }
+
+    @Test
+    void testFold_MatchesCollationEqualities() {
+        assertEquals("sao paulo", ServedCorridorIndex.fold("São Paulo"));
+        assertEquals("strasse", ServedCorridorIndex.fold("Straße"));
+        assertEquals("goa ", ServedCorridorIndex.fold("GOA "));
+    }
+
+    @Test
+    void testMightServe_AllowsEverythingBeforeFirstLoad() {
+        assertTrue(servedCorridorIndex.mightServe("Chennai", "Goa"));
+        verifyNoInteractions(routeRepository);
+    }
+}
@@ -0,0 +1,58 @@
+// src/test/java/com/guvi/busapp/service/SimulatedPaymentGatewayTest.java
+package com.guvi.busapp.service;
+
+import com.stripe.model.Event;
+import com.stripe.net.Webhook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatedPaymentGatewayTest {
+
+    private static final String SECRET = "whsec_simulator_test";
+
+    // Callbacks are scheduled an hour out, so nothing is posted while the test runs
+    private final SimulatedPaymentGateway gateway = new SimulatedPaymentGateway("http://localhost:1/api/stripe/webhook",
+            SECRET, 3_600_000, 0, 0.0, 0.0, 0.0, 42, 1);
+
+    @AfterEach
+    void tearDown() {
+        gateway.shutdown();
+    }
+
+    @Test
+    void testCreatedIntentLooksLikeStripes() {
+        PaymentGateway.CreatedIntent intent = gateway.createPaymentIntent(7L, 90000, "INR", "user@example.com");
+
+        assertTrue(intent.id().startsWith("pi_sim_"));
+        assertTrue(intent.clientSecret().startsWith(intent.id() + "_secret_"));
+    }
+
+    @Test
+    void testSimulatedWebhookPassesStripeSignatureCheckAndParses() throws Exception {
+        String payload = SimulatedPaymentGateway.event("payment_intent.succeeded",
+                SimulatedPaymentGateway.intent("pi_sim_1", 7L, 90000, "INR", "user@example.com", "succeeded"));
+        String header = gateway.signatureHeader(payload, Instant.now().getEpochSecond());
+
+        Event event = Webhook.constructEvent(payload, header, SECRET);
+        WebhookInbox.PaymentEventData data = WebhookInbox.parse(payload);
+
+        assertEquals("payment_intent.succeeded", event.getType());
+        assertEquals("pi_sim_1", data.paymentIntentId());
+        assertEquals(7L, data.bookingId());
+        assertEquals(90000L, data.amount());
+        assertEquals("inr", data.currency());
+    }
+
+    @Test
+    void testTamperedPayloadFailsSignatureCheck() throws Exception {
+        String payload = SimulatedPaymentGateway.event("payment_intent.succeeded",
+                SimulatedPaymentGateway.intent("pi_sim_1", 7L, 90000, "INR", "user@example.com", "succeeded"));
+        String header = gateway.signatureHeader(payload, Instant.now().getEpochSecond());
+
+        assertThrows(Exception.class, () -> Webhook.constructEvent(payload.replace("90000", "100"), header, SECRET));
+    }
+}
@@ -0,0 +1,32 @@
+// src/test/java/com/guvi/busapp/service/StripePaymentGatewayTest.java
+package com.guvi.busapp.service;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.CardException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.RateLimitException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripePaymentGatewayTest {
+
+    @Test
+    void testOnlyProviderSideErrorsAreProviderFaults() {
+        assertTrue(StripePaymentGateway.isProviderFault(new ApiConnectionException("Connection reset")));
+        assertTrue(StripePaymentGateway.isProviderFault(new ApiException("Internal error", "req_1", null, 500, null)));
+        assertTrue(StripePaymentGateway.isProviderFault(new RateLimitException("Too many requests", "req_2", null, null, 429, null)));
+
+        assertFalse(StripePaymentGateway.isProviderFault(new InvalidRequestException("No such customer", "req_3", null, "customer", 400, null)));
+        assertFalse(StripePaymentGateway.isProviderFault(new CardException("Your card was declined.", "req_4", "card_declined", null, null, null, 402, null)));
+    }
+
+    @Test
+    void testIdempotencyKeyIsStablePerBookingAndAmount() {
+        assertEquals("booking-42-150000-inr", StripePaymentGateway.idempotencyKey(42L, 150000, "INR"));
+        assertEquals(StripePaymentGateway.idempotencyKey(42L, 150000, "INR"), StripePaymentGateway.idempotencyKey(42L, 150000, "inr"));
+        assertNotEquals(StripePaymentGateway.idempotencyKey(42L, 150000, "INR"), StripePaymentGateway.idempotencyKey(42L, 120000, "INR"));
+        assertNotEquals(StripePaymentGateway.idempotencyKey(42L, 150000, "INR"), StripePaymentGateway.idempotencyKey(43L, 150000, "INR"));
+    }
+}
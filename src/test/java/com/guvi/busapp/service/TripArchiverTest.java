@@ -0,0 +1,88 @@
+// src/test/java/com/guvi/busapp/service/TripArchiverTest.java
+package com.guvi.busapp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TripArchiverTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private BookingViewProjector bookingViewProjector;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TripArchiver archiver;
+    private final LocalDate cutoff = LocalDate.now().minusDays(90);
+    private final Map<String, List<String>> columns = Map.of(
+            "scheduled_trips", List.of("id", "departure_date"),
+            "trip_seat_status", List.of("trip_id", "seat_number", "status"),
+            "bookings", List.of("id", "trip_id", "reference_code"),
+            "passengers", List.of("id", "booking_id", "seat_number"));
+
+    @BeforeEach
+    void setUp() {
+        archiver = new TripArchiver(jdbcTemplate, bookingViewProjector, transactionManager, true, 90, 2);
+    }
+
+    @Test
+    void testChunkProjectsHistoryThenCopiesBeforeDeletingChildrenFirst() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM scheduled_trips"), eq(Long.class), eq(cutoff), eq(2)))
+                .thenReturn(List.of(7L, 8L));
+        when(jdbcTemplate.queryForList(startsWith("SELECT b.id FROM bookings"), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(70L));
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(3);
+
+        assertEquals(2, archiver.archiveChunk(cutoff, columns));
+
+        InOrder order = inOrder(bookingViewProjector, jdbcTemplate);
+        order.verify(bookingViewProjector).projectBookings(List.of(70L));
+        order.verify(jdbcTemplate).update(startsWith("INSERT INTO archived_scheduled_trips (id, departure_date) SELECT t.id, t.departure_date"), any(Object[].class));
+        order.verify(jdbcTemplate).update(startsWith("INSERT INTO archived_bookings (id, trip_id, reference_code) SELECT b.id"), any(Object[].class));
+        order.verify(jdbcTemplate).update(startsWith("INSERT INTO archived_passengers (id, booking_id, seat_number) SELECT p.id"), any(Object[].class));
+        order.verify(jdbcTemplate).update(startsWith("DELETE FROM passengers"), any(Object[].class));
+        order.verify(jdbcTemplate).update(startsWith("DELETE FROM bookings"), any(Object[].class));
+        order.verify(jdbcTemplate).update(startsWith("DELETE FROM trip_seat_status"), any(Object[].class));
+        order.verify(jdbcTemplate).update(startsWith("DELETE FROM scheduled_trips"), any(Object[].class));
+    }
+
+    @Test
+    void testColumnTypesAreRebuiltFromMetadata() {
+        assertEquals("CHARACTER VARYING(16)", TripArchiver.columnType("CHARACTER VARYING", 16, 0));
+        assertEquals("NUMERIC(38, 2)", TripArchiver.columnType("NUMERIC", 38, 2));
+        assertEquals("TIMESTAMP(6)", TripArchiver.columnType("TIMESTAMP", 26, 6));
+        assertEquals("VARCHAR(255)", TripArchiver.columnType("ENUM('PENDING', 'CONFIRMED')", 9, 0));
+        assertEquals("TEXT", TripArchiver.columnType("VARCHAR", 65535, 0));
+        assertEquals("BIGINT", TripArchiver.columnType("bigint", 19, 0));
+    }
+
+    @Test
+    void testNothingDepartedMovesNothing() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM scheduled_trips"), eq(Long.class), eq(cutoff), eq(2)))
+                .thenReturn(List.of());
+
+        assertEquals(0, archiver.archiveChunk(cutoff, columns));
+
+        verifyNoInteractions(bookingViewProjector);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+}
@@ -0,0 +1,113 @@
+// src/test/java/com/guvi/busapp/service/TripSearchCoalescerTest.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.dto.BusDto;
+import com.guvi.busapp.dto.RouteDto;
+import com.guvi.busapp.dto.ScheduledTripResponseDto;
+import com.guvi.busapp.dto.TripSearchCriteria;
+import com.guvi.busapp.dto.TripSearchPageDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TripSearchCoalescerTest {
+
+    private final TripSearchCoalescer coalescer = new TripSearchCoalescer();
+    private final LocalDate date = LocalDate.now().plusDays(1);
+
+    @Test
+    void testIdenticalConcurrentSearchesShareOneQuery() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        TripSearchPageDto result = new TripSearchPageDto(List.of(trip()), "cursor-1", true);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<TripSearchPageDto> leader = pool.submit(() -> coalescer.search(new TripSearchCriteria("A", "B", date), () -> {
+                loads.incrementAndGet();
+                leaderStarted.countDown();
+                await(release);
+                return result;
+            }));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+            // Equal criteria built separately map to the same key
+            Future<TripSearchPageDto> follower = pool.submit(() -> coalescer.search(new TripSearchCriteria("A", "B", date), () -> {
+                loads.incrementAndGet();
+                return new TripSearchPageDto();
+            }));
+            while (coalescer.getCoalescedCount() == 0) Thread.sleep(5);
+            release.countDown();
+
+            TripSearchPageDto leaderPage = leader.get(5, TimeUnit.SECONDS);
+            TripSearchPageDto followerPage = follower.get(5, TimeUnit.SECONDS);
+            assertEquals(result, leaderPage);
+            assertEquals(result, followerPage);
+            // Each caller owns its copy: editing one page leaves the other and the original alone
+            assertNotSame(leaderPage, followerPage);
+            leaderPage.getTrips().get(0).getBus().getAmenities().add("Blanket");
+            leaderPage.getTrips().get(0).setAvailableSeats(0);
+            assertEquals(Set.of("AC"), followerPage.getTrips().get(0).getBus().getAmenities());
+            assertEquals(12, followerPage.getTrips().get(0).getAvailableSeats());
+            assertEquals(12, result.getTrips().get(0).getAvailableSeats());
+            assertEquals(1, loads.get());
+            assertEquals(1, coalescer.getLeaderCount());
+            assertEquals(1, coalescer.getCoalescedCount());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCompletedSearchIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        TripSearchCriteria criteria = new TripSearchCriteria("A", "B", date);
+        coalescer.search(criteria, () -> { loads.incrementAndGet(); return new TripSearchPageDto(); });
+        coalescer.search(criteria, () -> { loads.incrementAndGet(); return new TripSearchPageDto(); });
+        assertEquals(2, loads.get());
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    void testLeaderFailureIsRethrownAndNotRetained() {
+        TripSearchCriteria criteria = new TripSearchCriteria("A", "B", date);
+        assertThrows(IllegalArgumentException.class,
+                () -> coalescer.search(criteria, () -> { throw new IllegalArgumentException("Invalid pagination cursor."); }));
+        TripSearchPageDto page = coalescer.search(criteria, TripSearchPageDto::new);
+        assertNotNull(page);
+    }
+
+    private static ScheduledTripResponseDto trip() {
+        BusDto bus = new BusDto();
+        bus.setBusNumber("TN-01-1234");
+        bus.setAmenities(new HashSet<>(Set.of("AC")));
+        RouteDto route = new RouteDto();
+        route.setOrigin("A");
+        route.setDestination("B");
+        ScheduledTripResponseDto trip = new ScheduledTripResponseDto();
+        trip.setId(1L);
+        trip.setBus(bus);
+        trip.setRoute(route);
+        trip.setAvailableSeats(12);
+        return trip;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
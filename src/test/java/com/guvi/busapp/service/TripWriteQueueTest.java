@@ -0,0 +1,140 @@
+// src/test/java/com/guvi/busapp/service/TripWriteQueueTest.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.exception.SeatUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TripWriteQueueTest {
+
+    @Test
+    void testDisabledRunsInlineOnCallerThread() {
+        TripWriteQueue queue = new TripWriteQueue(false, 4, 10, 1000);
+        Thread caller = Thread.currentThread();
+
+        assertSame(caller, queue.execute(7L, Thread::currentThread));
+        assertFalse(queue.isEnabled());
+    }
+
+    @Test
+    void testSameTripCommandsNeverOverlap() throws Exception {
+        TripWriteQueue queue = new TripWriteQueue(true, 4, 100, 5000);
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxConcurrent = new AtomicInteger();
+            List<String> threads = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                int n = i;
+                futures.add(queue.submit(42L, () -> {
+                    maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    threads.add(Thread.currentThread().getName());
+                    sleep(2);
+                    running.decrementAndGet();
+                    return n;
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(i, futures.get(i).get(5, TimeUnit.SECONDS)); // FIFO per trip
+            }
+            assertEquals(1, maxConcurrent.get());
+            assertEquals(1, threads.stream().distinct().count());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testCommandExceptionRethrownUnchanged() {
+        TripWriteQueue queue = new TripWriteQueue(true, 2, 10, 5000);
+        try {
+            assertThrows(SeatUnavailableException.class,
+                    () -> queue.execute(1L, () -> { throw new SeatUnavailableException("Seat 3 taken"); }));
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testNestedSubmitFromShardRunsInline() throws Exception {
+        TripWriteQueue queue = new TripWriteQueue(true, 1, 10, 5000);
+        try {
+            CountDownLatch done = new CountDownLatch(1);
+            // Same shard (only one): waiting on a queued command here would deadlock
+            String inner = queue.execute(1L, () -> queue.execute(2L, () -> {
+                done.countDown();
+                return Thread.currentThread().getName();
+            }));
+            assertTrue(done.await(1, TimeUnit.SECONDS));
+            assertEquals("trip-writer-0", inner);
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testStartedCommandOutlivesCallerTimeoutAndReturnsItsRealResult() {
+        TripWriteQueue queue = new TripWriteQueue(true, 1, 10, 50);
+        try {
+            // Committed after the caller's 50 ms: the caller must see the booking, not a failure
+            assertEquals("booked", queue.execute(1L, () -> {
+                sleep(200);
+                return "booked";
+            }));
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testQueuedCommandTimesOutWithoutRunning() throws Exception {
+        TripWriteQueue queue = new TripWriteQueue(true, 1, 10, 50);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<String> blocker = queue.submit(1L, () -> {
+                started.countDown();
+                await(release);
+                return "first";
+            });
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+            AtomicBoolean ran = new AtomicBoolean();
+
+            assertThrows(RejectedExecutionException.class, () -> queue.execute(1L, () -> ran.getAndSet(true)));
+
+            release.countDown();
+            assertEquals("first", blocker.get(1, TimeUnit.SECONDS));
+            assertEquals("after", queue.submit(1L, () -> "after").get(1, TimeUnit.SECONDS)); // Queue drained past it
+            assertFalse(ran.get());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
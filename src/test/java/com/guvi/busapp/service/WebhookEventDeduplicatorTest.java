@@ -0,0 +1,73 @@
+// src/test/java/com/guvi/busapp/service/WebhookEventDeduplicatorTest.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.model.ProcessedWebhookEvent;
+import com.guvi.busapp.repository.ProcessedWebhookEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookEventDeduplicatorTest {
+
+    @Mock
+    private ProcessedWebhookEventRepository repository;
+
+    private WebhookEventDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        deduplicator = new WebhookEventDeduplicator(repository, 2, 30);
+    }
+
+    @Test
+    void testRedeliveryIsRejectedFromMemoryWithoutQuery() {
+        when(repository.existsById("evt_1")).thenReturn(false);
+
+        assertTrue(deduplicator.claim("evt_1", "payment_intent.succeeded"));
+        assertFalse(deduplicator.claim("evt_1", "payment_intent.succeeded"));
+
+        verify(repository, times(1)).existsById("evt_1");
+        verify(repository, times(1)).saveAndFlush(any(ProcessedWebhookEvent.class));
+        assertEquals(1, deduplicator.getMemoryDuplicateCount());
+    }
+
+    @Test
+    void testIdKnownOnlyToTheDatabaseIsRejected() {
+        when(repository.existsById("evt_old")).thenReturn(true);
+
+        assertFalse(deduplicator.claim("evt_old", "payment_intent.succeeded"));
+
+        verify(repository, never()).saveAndFlush(any());
+        assertEquals(1, deduplicator.getDatabaseDuplicateCount());
+    }
+
+    @Test
+    void testFailedClaimIsOnlyADuplicateWhenTheIdWasCommitted() {
+        when(repository.existsById("evt_raced")).thenReturn(true);
+        when(repository.existsById("evt_broken")).thenReturn(false);
+
+        assertTrue(deduplicator.isRecorded("evt_raced"));
+        assertFalse(deduplicator.isRecorded("evt_broken"));
+    }
+
+    @Test
+    void testLeastRecentlySeenIdFallsBackToTheDatabase() {
+        when(repository.existsById(any())).thenReturn(false);
+        deduplicator.claim("evt_1", "payment_intent.succeeded");
+        deduplicator.claim("evt_2", "payment_intent.succeeded");
+        deduplicator.claim("evt_3", "payment_intent.succeeded"); // Cache holds two ids: evt_1 is evicted
+
+        when(repository.existsById("evt_1")).thenReturn(true);
+        assertFalse(deduplicator.claim("evt_1", "payment_intent.succeeded"));
+
+        assertEquals(0, deduplicator.getMemoryDuplicateCount());
+        assertEquals(1, deduplicator.getDatabaseDuplicateCount());
+    }
+}
@@ -0,0 +1,106 @@
+// src/test/java/com/guvi/busapp/service/WebhookInboxProcessorTest.java
+package com.guvi.busapp.service;
+
+import com.guvi.busapp.model.WebhookInboxEvent;
+import com.guvi.busapp.repository.BookingRepository;
+import com.guvi.busapp.repository.WebhookInboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookInboxProcessorTest {
+
+    @Mock
+    private WebhookInboxRepository inboxRepository;
+    @Mock
+    private PaymentService paymentService;
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private WebhookInboxProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new WebhookInboxProcessor(inboxRepository, paymentService, new TripWriteQueue(false, 1, 10, 1000),
+                bookingRepository, 2, 100, 3, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    private WebhookInboxEvent row(long id, String type, Long bookingId, int attempts) {
+        String payload = "{\"id\":\"evt_" + id + "\",\"data\":{\"object\":{\"id\":\"pi_" + bookingId + "\",\"amount\":90000,"
+                + "\"currency\":\"inr\",\"metadata\":{\"booking_id\":\"" + bookingId + "\"}}}}";
+        WebhookInboxEvent row = new WebhookInboxEvent("evt_" + id, type, bookingId, payload);
+        row.setId(id);
+        row.setAttempts(attempts);
+        return row;
+    }
+
+    @Test
+    void testEventsAreHandledAndMarkedProcessed() {
+        WebhookInboxEvent success = row(1, WebhookInboxProcessor.PAYMENT_SUCCEEDED, 10L, 0);
+        WebhookInboxEvent other = row(2, "charge.updated", 11L, 0);
+
+        assertTrue(processor.processBatch(List.of(success, other)));
+
+        verify(paymentService).handlePaymentSuccess("pi_10", 10L, 90000L, "inr");
+        verify(inboxRepository).markDone(eq(1L), eq(WebhookInboxEvent.Status.PROCESSED), any(LocalDateTime.class));
+        verify(inboxRepository).markDone(eq(2L), eq(WebhookInboxEvent.Status.IGNORED), any(LocalDateTime.class));
+        assertEquals(1, processor.getProcessedCount());
+    }
+
+    @Test
+    void testFailureSchedulesRetryAndHoldsBackTheBookingsLaterEvents() {
+        WebhookInboxEvent success = row(1, WebhookInboxProcessor.PAYMENT_SUCCEEDED, 10L, 0);
+        WebhookInboxEvent failure = row(2, WebhookInboxProcessor.PAYMENT_FAILED, 10L, 0);
+        doThrow(new IllegalStateException("lock wait timeout")).when(paymentService).handlePaymentSuccess(any(), any(), any(), any());
+
+        assertFalse(processor.processBatch(List.of(success, failure)));
+
+        verify(inboxRepository).recordFailure(eq(1L), eq(WebhookInboxEvent.Status.PENDING), eq("lock wait timeout"), any(LocalDateTime.class));
+        verify(paymentService, never()).handlePaymentFailure(any(), any()); // Must not overtake the pending success
+        verify(inboxRepository, never()).markDone(any(), any(), any());
+    }
+
+    @Test
+    void testLastAttemptIsDeadLettered() {
+        WebhookInboxEvent success = row(1, WebhookInboxProcessor.PAYMENT_SUCCEEDED, 10L, 2); // Third and final attempt
+        doThrow(new IllegalStateException("still failing")).when(paymentService).handlePaymentSuccess(any(), any(), any(), any());
+
+        assertTrue(processor.processBatch(List.of(success)));
+
+        verify(inboxRepository).recordFailure(eq(1L), eq(WebhookInboxEvent.Status.DEAD), eq("still failing"), any(LocalDateTime.class));
+        assertEquals(1, processor.getDeadCount());
+    }
+
+    @Test
+    void testBookingWithEarlierPendingRetryIsSkipped() {
+        WebhookInboxEvent failure = row(5, WebhookInboxProcessor.PAYMENT_FAILED, 10L, 0);
+        when(inboxRepository.existsByBookingIdAndStatusAndIdLessThan(10L, WebhookInboxEvent.Status.PENDING, 5L)).thenReturn(true);
+
+        assertFalse(processor.processBatch(List.of(failure)));
+
+        verifyNoInteractions(paymentService);
+    }
+
+    @Test
+    void testBackoffDoublesUpToTheCap() {
+        assertEquals(1000, processor.backoff(1));
+        assertEquals(4000, processor.backoff(3));
+        assertEquals(600_000, processor.backoff(20));
+    }
+}